@@ -0,0 +1,87 @@
+package com.voice.platform.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.voice.platform.capability.DeviceCapabilityRegistry;
+import com.voice.platform.dto.RawJson;
+import com.voice.platform.dto.alexa.AlexaResponse;
+import com.voice.platform.dto.google.GoogleResponse;
+import com.voice.platform.model.Device;
+import com.voice.platform.service.DiscoveryCache;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 设备发现响应构建与 Jackson 序列化基准测试
+ * 分别测量 1、100、10000 台设备时 Alexa Discovery 与 Google SYNC 响应的耗时：
+ * *Render 包含按预编译能力模板渲染设备列表（缓存未命中），*Cached 只序列化缓存中的预渲染片段（缓存命中）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiscoverySerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int deviceCount;
+
+    private ObjectMapper objectMapper;
+
+    private DeviceCapabilityRegistry capabilityRegistry;
+
+    private List<Device> devices;
+
+    private RawJson alexaEndpoints;
+
+    private RawJson googleDevices;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        capabilityRegistry = new DeviceCapabilityRegistry(objectMapper, new ClassPathResource("device-capabilities.json"));
+        devices = new ArrayList<>(deviceCount);
+        for (int i = 0; i < deviceCount; i++) {
+            String deviceId = "robot_" + i;
+            Device device = new Device();
+            device.setDeviceId(deviceId);
+            device.setDeviceName("扫地机器人 " + i);
+            device.setDeviceType("robot_cleaner");
+            device.setPowerState("off");
+            device.setWorkMode("auto");
+            device.setBatteryLevel(100);
+            device.setStatus("online");
+            devices.add(device);
+        }
+        alexaEndpoints = capabilityRegistry.render(DiscoveryCache.Platform.ALEXA, devices);
+        googleDevices = capabilityRegistry.render(DiscoveryCache.Platform.GOOGLE, devices);
+    }
+
+    @Benchmark
+    public byte[] alexaDiscoveryRender() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(AlexaResponse.createDiscoveryResponse("message-id",
+                capabilityRegistry.render(DiscoveryCache.Platform.ALEXA, devices)));
+    }
+
+    @Benchmark
+    public byte[] alexaDiscoveryCached() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(AlexaResponse.createDiscoveryResponse("message-id", alexaEndpoints));
+    }
+
+    @Benchmark
+    public byte[] googleSyncRender() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(GoogleResponse.createSyncResponse("request-id", "user_1",
+                capabilityRegistry.render(DiscoveryCache.Platform.GOOGLE, devices)));
+    }
+
+    @Benchmark
+    public byte[] googleSyncCached() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(GoogleResponse.createSyncResponse("request-id", "user_1", googleDevices));
+    }
+}
@@ -0,0 +1,87 @@
+package com.voice.platform.benchmark;
+
+import com.voice.platform.config.JwtConfig;
+import com.voice.platform.security.JwtKeyRing;
+import com.voice.platform.util.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT 生成与验证基准测试
+ * 验证走无请求上下文的路径，即每次都完整解析并校验签名；
+ * HS256 为未配置密钥库时的共享密钥签名，ES256 使用 keytool 在临时目录生成的 PKCS12 密钥库
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final String KEY_STORE_PASSWORD = "benchmark";
+
+    @Param({"HS256", "ES256"})
+    private String algorithm;
+
+    private JwtUtil jwtUtil;
+
+    private String token;
+
+    private Path keyStoreDir;
+
+    @Setup
+    public void setup() throws Exception {
+        String keyStorePath = "";
+        if ("ES256".equals(algorithm)) {
+            keyStoreDir = Files.createTempDirectory("jwt-bench");
+            keyStorePath = generateKeyStore(keyStoreDir.resolve("jwt-signing.p12"));
+        }
+
+        JwtKeyRing keyRing = new JwtKeyRing();
+        ReflectionTestUtils.setField(keyRing, "keyStorePath", keyStorePath);
+        ReflectionTestUtils.setField(keyRing, "keyStorePassword", KEY_STORE_PASSWORD);
+        ReflectionTestUtils.setField(keyRing, "activeKid", "");
+        ReflectionTestUtils.setField(keyRing, "activeKidFile", "");
+        keyRing.init();
+        jwtUtil = new JwtUtil(new JwtConfig(), keyRing, "");
+        token = jwtUtil.generateAccessToken("1", "bench_client", "device:control,device:read");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        if (keyStoreDir != null) {
+            Files.deleteIfExists(keyStoreDir.resolve("jwt-signing.p12"));
+            Files.deleteIfExists(keyStoreDir);
+        }
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtUtil.generateAccessToken("1", "bench_client", "device:control,device:read");
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtil.validateToken(token);
+    }
+
+    private static String generateKeyStore(Path keyStore) throws Exception {
+        Path keytool = Path.of(System.getProperty("java.home"), "bin", "keytool");
+        Process process = new ProcessBuilder(keytool.toString(), "-genkeypair",
+                "-keyalg", "EC", "-groupname", "secp256r1", "-alias", "bench", "-validity", "1",
+                "-dname", "CN=jwt", "-storetype", "PKCS12", "-keystore", keyStore.toString(),
+                "-storepass", KEY_STORE_PASSWORD)
+                .redirectErrorStream(true)
+                .start();
+        byte[] output = process.getInputStream().readAllBytes();
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("keytool 生成密钥库失败: " + new String(output));
+        }
+        return keyStore.toString();
+    }
+}
@@ -0,0 +1,46 @@
+package com.voice.platform.benchmark;
+
+import com.voice.platform.model.OAuthClient;
+import com.voice.platform.util.TokenGenerator;
+import com.voice.platform.util.TokenHasher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 不透明令牌生成、令牌摘要与客户端权限范围校验基准测试
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenBenchmark {
+
+    private OAuthClient client;
+
+    private String token;
+
+    @Setup
+    public void setup() {
+        client = new OAuthClient();
+        client.setScopes("device:control,device:read,profile,openid");
+        token = TokenGenerator.generateToken();
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return TokenGenerator.generateToken();
+    }
+
+    @Benchmark
+    public String hashToken() {
+        return TokenHasher.hashKey(token);
+    }
+
+    @Benchmark
+    public boolean supportsScope() {
+        return client.supportsScope("device:control,device:read");
+    }
+}
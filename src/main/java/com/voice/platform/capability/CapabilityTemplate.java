@@ -0,0 +1,150 @@
+package com.voice.platform.capability;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.voice.platform.model.Device;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 预编译的设备能力模板
+ * 模板 JSON 在启动时拆分为已编码为 UTF-8 的字面量片段和占位符，渲染单个设备时只按顺序拷贝字面量字节，
+ * 并在占位符处写入设备 ID、名称和状态
+ *
+ * 占位符以 JSON 字符串形式出现在模板中，例如 "${deviceId}"，渲染时整体（含引号）被替换为对应值，
+ * 因此数值和布尔占位符输出为 JSON 数值和布尔值
+ */
+public final class CapabilityTemplate {
+
+    /**
+     * 模板占位符
+     */
+    enum Slot {
+        DEVICE_ID("deviceId", Device::getDeviceId),
+        DEVICE_NAME("deviceName", Device::getDeviceName),
+        DEVICE_TYPE("deviceType", Device::getDeviceType),
+        POWER_STATE("powerState", Device::getPowerState),
+        WORK_MODE("workMode", Device::getWorkMode),
+        BATTERY_LEVEL("batteryLevel", Device::getBatteryLevel),
+        STATUS("status", Device::getStatus),
+        ONLINE("online", device -> "online".equals(device.getStatus()));
+
+        private final String token;
+
+        private final Function<Device, Object> accessor;
+
+        Slot(String name, Function<Device, Object> accessor) {
+            this.token = "\"${" + name + "}\"";
+            this.accessor = accessor;
+        }
+
+        /**
+         * 是否为设备状态占位符（状态变化后渲染结果会变化）
+         */
+        boolean isState() {
+            return this == POWER_STATE || this == WORK_MODE || this == BATTERY_LEVEL
+                    || this == STATUS || this == ONLINE;
+        }
+
+        void appendTo(ByteArrayBuilder out, Device device) {
+            Object value = accessor.apply(device);
+            if (value == null) {
+                out.write(NULL);
+            } else if (value instanceof String text) {
+                out.append('"');
+                out.write(JsonStringEncoder.getInstance().quoteAsUTF8(text));
+                out.append('"');
+            } else if (value instanceof Boolean flag) {
+                out.write(flag ? TRUE : FALSE);
+            } else {
+                out.write(value.toString().getBytes(StandardCharsets.US_ASCII));
+            }
+        }
+    }
+
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[][] literals;
+
+    private final Slot[] slots;
+
+    private CapabilityTemplate(byte[][] literals, Slot[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+    }
+
+    /**
+     * 编译模板
+     *
+     * @param json 模板的 JSON 文本（紧凑格式）
+     * @throws IllegalArgumentException 模板中包含未知占位符
+     */
+    static CapabilityTemplate compile(String json) {
+        List<byte[]> literals = new ArrayList<>();
+        List<Slot> slots = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int start = json.indexOf("\"${", position);
+            if (start < 0) {
+                break;
+            }
+            Slot slot = slotAt(json, start);
+            literals.add(json.substring(position, start).getBytes(StandardCharsets.UTF_8));
+            slots.add(slot);
+            position = start + slot.token.length();
+        }
+        literals.add(json.substring(position).getBytes(StandardCharsets.UTF_8));
+        return new CapabilityTemplate(literals.toArray(new byte[0][]), slots.toArray(new Slot[0]));
+    }
+
+    private static Slot slotAt(String json, int start) {
+        for (Slot slot : Slot.values()) {
+            if (json.startsWith(slot.token, start)) {
+                return slot;
+            }
+        }
+        int end = json.indexOf('"', start + 1);
+        throw new IllegalArgumentException("未知的模板占位符: " + json.substring(start, end < 0 ? json.length() : end + 1));
+    }
+
+    /**
+     * 模板是否引用设备状态
+     */
+    public boolean includesState() {
+        for (Slot slot : slots) {
+            if (slot.isState()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 渲染单个设备
+     */
+    public void appendTo(ByteArrayBuilder out, Device device) {
+        for (int i = 0; i < slots.length; i++) {
+            out.write(literals[i]);
+            slots[i].appendTo(out, device);
+        }
+        out.write(literals[slots.length]);
+    }
+
+    /**
+     * 模板字面量的总字节数，用于预估输出缓冲区大小
+     */
+    int literalLength() {
+        int length = 0;
+        for (byte[] literal : literals) {
+            length += literal.length;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,133 @@
+package com.voice.platform.capability;
+
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.voice.platform.dto.RawJson;
+import com.voice.platform.model.Device;
+import com.voice.platform.service.DiscoveryCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 设备能力注册表
+ * 启动时读取 device-capabilities.json，为每种设备类型、每个平台编译一份不可变的 CapabilityTemplate，
+ * 各平台的设备发现只需按设备类型取模板并写入设备 ID、名称和状态
+ *
+ * 新增设备类型只需在 JSON 中增加模板；没有模板的设备类型在该平台的设备发现中跳过，并记录一次告警
+ */
+@Slf4j
+@Component
+public class DeviceCapabilityRegistry {
+
+    private final Map<String, Map<DiscoveryCache.Platform, CapabilityTemplate>> templates;
+
+    private final Set<String> warnedTypes = ConcurrentHashMap.newKeySet();
+
+    public DeviceCapabilityRegistry(ObjectMapper objectMapper,
+                                    @Value("${device-capabilities.location:classpath:device-capabilities.json}")
+                                    Resource location) {
+        this.templates = load(objectMapper, location);
+        log.info("设备能力模板已加载: location={}, deviceTypes={}", location, templates.keySet());
+    }
+
+    /**
+     * 渲染设备列表为 JSON 数组片段，没有模板的设备跳过
+     */
+    public RawJson render(DiscoveryCache.Platform platform, List<Device> devices) {
+        ByteArrayBuilder out = new ByteArrayBuilder(estimateLength(platform, devices));
+        out.append('[');
+        int count = 0;
+        for (Device device : devices) {
+            CapabilityTemplate template = find(device.getDeviceType(), platform);
+            if (template == null) {
+                continue;
+            }
+            if (count++ > 0) {
+                out.append(',');
+            }
+            template.appendTo(out, device);
+        }
+        out.append(']');
+        return new RawJson(out.toByteArray(), count);
+    }
+
+    /**
+     * 获取设备类型在平台上的模板，不支持时返回 null
+     */
+    public CapabilityTemplate find(String deviceType, DiscoveryCache.Platform platform) {
+        Map<DiscoveryCache.Platform, CapabilityTemplate> byPlatform = templates.get(deviceType);
+        CapabilityTemplate template = byPlatform != null ? byPlatform.get(platform) : null;
+        if (template == null && warnedTypes.add(deviceType + "/" + platform)) {
+            log.warn("设备类型没有能力模板，设备发现中跳过: deviceType={}, platform={}", deviceType, platform);
+        }
+        return template;
+    }
+
+    /**
+     * 平台是否有模板引用设备状态（设备状态变化后该平台的发现结果需要刷新）
+     */
+    public boolean includesState(DiscoveryCache.Platform platform) {
+        for (Map<DiscoveryCache.Platform, CapabilityTemplate> byPlatform : templates.values()) {
+            CapabilityTemplate template = byPlatform.get(platform);
+            if (template != null && template.includesState()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int estimateLength(DiscoveryCache.Platform platform, List<Device> devices) {
+        if (devices.isEmpty()) {
+            return 2;
+        }
+        CapabilityTemplate template = find(devices.get(0).getDeviceType(), platform);
+        int perDevice = template != null ? template.literalLength() + 64 : 64;
+        return 2 + perDevice * devices.size();
+    }
+
+    private static Map<String, Map<DiscoveryCache.Platform, CapabilityTemplate>> load(ObjectMapper objectMapper,
+                                                                                       Resource location) {
+        JsonNode root;
+        try (InputStream in = location.getInputStream()) {
+            root = objectMapper.readTree(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取设备能力模板失败: " + location, e);
+        }
+
+        Map<String, Map<DiscoveryCache.Platform, CapabilityTemplate>> templates = new HashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> types = root.fields();
+        while (types.hasNext()) {
+            Map.Entry<String, JsonNode> type = types.next();
+            Map<DiscoveryCache.Platform, CapabilityTemplate> byPlatform = new EnumMap<>(DiscoveryCache.Platform.class);
+            Iterator<Map.Entry<String, JsonNode>> platforms = type.getValue().fields();
+            while (platforms.hasNext()) {
+                Map.Entry<String, JsonNode> platform = platforms.next();
+                try {
+                    DiscoveryCache.Platform key = DiscoveryCache.Platform.valueOf(platform.getKey().toUpperCase(Locale.ROOT));
+                    byPlatform.put(key, CapabilityTemplate.compile(objectMapper.writeValueAsString(platform.getValue())));
+                } catch (IOException | IllegalArgumentException e) {
+                    throw new IllegalStateException("设备能力模板无效: deviceType=" + type.getKey()
+                            + ", platform=" + platform.getKey(), e);
+                }
+            }
+            templates.put(type.getKey(), Collections.unmodifiableMap(byPlatform));
+        }
+        return Collections.unmodifiableMap(templates);
+    }
+}
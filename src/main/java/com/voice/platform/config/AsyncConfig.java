@@ -0,0 +1,87 @@
+package com.voice.platform.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 异步任务配置
+ * 为各平台的出站调用分别提供有界执行器，一个平台响应变慢不会占满另一个平台的线程
+ * 默认使用虚拟线程，大量在途请求不需要对应数量的平台线程；
+ * 执行器饱和时拒绝任务并记录日志，不回退到请求线程执行
+ */
+@Slf4j
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    @Value("${state-report.executor.core-size:4}")
+    private int coreSize;
+
+    @Value("${state-report.executor.max-size:16}")
+    private int maxSize;
+
+    @Value("${state-report.executor.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${state-report.executor.virtual-threads:true}")
+    private boolean virtualThreads;
+
+    @Value("${state-report.executor.max-in-flight:2000}")
+    private int maxInFlight;
+
+    @Value("${google.execute.max-in-flight:500}")
+    private int executeMaxInFlight;
+
+    /**
+     * Alexa 状态推送线程池
+     */
+    @Bean
+    public Executor alexaReportExecutor() {
+        return buildExecutor("alexa-report-");
+    }
+
+    /**
+     * Google 状态推送与同步线程池
+     */
+    @Bean
+    public Executor googleReportExecutor() {
+        return buildExecutor("google-report-");
+    }
+
+    /**
+     * Google EXECUTE 命令执行线程池
+     * 各组设备的命令并行执行，阻塞在数据库写入上不占用请求线程
+     */
+    @Bean
+    public Executor googleExecuteExecutor() {
+        return new BoundedVirtualThreadExecutor("google-execute-", executeMaxInFlight);
+    }
+
+    private Executor buildExecutor(String threadNamePrefix) {
+        if (virtualThreads) {
+            return new BoundedVirtualThreadExecutor(threadNamePrefix, maxInFlight);
+        }
+        
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            log.warn("出站任务队列已满，拒绝任务: pool={}, queueSize={}",
+                    threadNamePrefix, pool.getQueue().size());
+            throw new RejectedExecutionException("出站任务队列已满: " + threadNamePrefix);
+        });
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+        return executor;
+    }
+}
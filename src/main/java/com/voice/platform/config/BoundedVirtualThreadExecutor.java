@@ -0,0 +1,56 @@
+package com.voice.platform.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 有界虚拟线程执行器
+ * 每个任务一个虚拟线程，阻塞在出站 HTTP 调用或数据库写入上不占用平台线程；
+ * 在途任务数达到上限时拒绝新任务，不阻塞提交方
+ */
+@Slf4j
+public class BoundedVirtualThreadExecutor implements Executor, AutoCloseable {
+
+    private final String name;
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+
+    public BoundedVirtualThreadExecutor(String name, int maxInFlight) {
+        this.name = name;
+        this.delegate = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name, 0).factory());
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!permits.tryAcquire()) {
+            log.warn("任务在途数已达上限，拒绝任务: executor={}", name);
+            throw new RejectedExecutionException("任务在途数已达上限: " + name);
+        }
+        try {
+            delegate.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 停机时等待在途任务完成
+     */
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
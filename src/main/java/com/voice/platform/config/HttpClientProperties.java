@@ -0,0 +1,63 @@
+package com.voice.platform.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 出站 HTTP 客户端配置
+ * 供 RestTemplateConfig 构建连接池使用
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "http-client")
+public class HttpClientProperties {
+    
+    /**
+     * 连接池最大连接数
+     */
+    private int maxTotal = 200;
+    
+    /**
+     * 每个目标主机的默认最大连接数
+     */
+    private int defaultMaxPerRoute = 50;
+    
+    /**
+     * 按目标主机单独设置的最大连接数（主机名 -> 连接数，按 HTTPS 443 端口计）
+     */
+    private Map<String, Integer> maxPerRoute = new LinkedHashMap<>();
+    
+    /**
+     * 建立连接超时（毫秒）
+     */
+    private long connectTimeoutMs = 2000;
+    
+    /**
+     * 读取响应超时（毫秒）
+     */
+    private long socketTimeoutMs = 5000;
+    
+    /**
+     * 从连接池获取连接的等待超时（毫秒），连接池耗尽时快速失败
+     */
+    private long connectionRequestTimeoutMs = 1000;
+    
+    /**
+     * 服务端未声明 Keep-Alive 时连接的保持时间（秒）
+     */
+    private long keepAliveSeconds = 30;
+    
+    /**
+     * 空闲连接回收时间（秒）
+     */
+    private long idleEvictSeconds = 30;
+    
+    /**
+     * 连接空闲超过该时间后复用前先做有效性检查（毫秒）
+     */
+    private long validateAfterInactivityMs = 2000;
+}
@@ -0,0 +1,85 @@
+package com.voice.platform.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 出站调用隔离配置
+ * 按目标（Alexa Event Gateway、LWA 令牌端点、Google OAuth、HomeGraph）分别设置舱壁和熔断器，
+ * 供 RestTemplateConfig 构建 OutboundGuardInterceptor 使用
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "outbound")
+public class OutboundProperties {
+
+    /**
+     * 是否启用舱壁和熔断
+     */
+    private boolean enabled = true;
+
+    /**
+     * 目标名 -> 配置
+     */
+    private Map<String, Destination> destinations = new LinkedHashMap<>();
+
+    @Data
+    public static class Destination {
+
+        /**
+         * 归属该目标的 URL 前缀，请求 URL 以其中任一前缀开头即按该目标隔离
+         */
+        private List<String> urls = new ArrayList<>();
+
+        /**
+         * 同时进行的调用数上限
+         */
+        private int maxConcurrent = 20;
+
+        /**
+         * 并发已满时允许排队等待的调用数，超出立即拒绝
+         */
+        private int maxQueued = 50;
+
+        /**
+         * 排队等待的最长时间（毫秒），超时拒绝
+         */
+        private long maxWaitMs = 200;
+
+        /**
+         * 熔断统计窗口（最近的调用数）
+         */
+        private int windowSize = 50;
+
+        /**
+         * 窗口内至少有该数量的调用才计算失败率
+         */
+        private int minimumCalls = 20;
+
+        /**
+         * 失败率（百分比）达到该值时熔断
+         */
+        private int failureRateThreshold = 50;
+
+        /**
+         * 耗时超过该值（毫秒）的调用按失败计
+         */
+        private long slowCallMs = 3000;
+
+        /**
+         * 熔断持续时间（毫秒），之后进入半开状态放行探测调用
+         */
+        private long openMs = 30000;
+
+        /**
+         * 半开状态放行的探测调用数，全部成功后恢复，任一失败重新熔断
+         */
+        private int halfOpenCalls = 5;
+    }
+}
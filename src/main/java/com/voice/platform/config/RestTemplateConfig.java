@@ -1,18 +1,125 @@
 package com.voice.platform.config;
 
+import com.voice.platform.metrics.OutboundTimingInterceptor;
+import com.voice.platform.resilience.OutboundGuardInterceptor;
+import com.voice.platform.resilience.OutboundGuards;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
 /**
  * RestTemplate 配置
  * 用于 HTTP 客户端调用
+ * 
+ * 基于 Apache HttpClient 5 连接池，按目标主机限制连接数，
+ * 设置连接/读取/取连接超时，定期回收空闲连接，并通过 Micrometer 暴露连接池使用情况；
+ * 各出站目标（Alexa Event Gateway、LWA、Google OAuth、HomeGraph）另有独立的舱壁和熔断器，见 OutboundGuards
  */
+@Slf4j
 @Configuration
 public class RestTemplateConfig {
     
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager httpConnectionManager(HttpClientProperties properties,
+                                                                    ObjectProvider<MeterRegistry> meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getMaxTotal())
+                .setMaxConnPerRoute(properties.getDefaultMaxPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(properties.getConnectTimeoutMs()))
+                        .setSocketTimeout(Timeout.ofMilliseconds(properties.getSocketTimeoutMs()))
+                        .setValidateAfterInactivity(TimeValue.ofMilliseconds(properties.getValidateAfterInactivityMs()))
+                        .build())
+                .build();
+        
+        for (Map.Entry<String, Integer> entry : properties.getMaxPerRoute().entrySet()) {
+            connectionManager.setMaxPerRoute(routeOf(entry.getKey()), entry.getValue());
+        }
+        
+        meterRegistry.ifAvailable(registry -> registerPoolMetrics(registry, connectionManager, properties));
+        
+        log.info("HTTP 连接池已初始化: maxTotal={}, defaultMaxPerRoute={}, maxPerRoute={}",
+                properties.getMaxTotal(), properties.getDefaultMaxPerRoute(), properties.getMaxPerRoute());
+        return connectionManager;
+    }
+    
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager httpConnectionManager,
+                                          HttpClientProperties properties) {
+        return HttpClients.custom()
+                .setConnectionManager(httpConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(properties.getConnectionRequestTimeoutMs()))
+                        .setResponseTimeout(Timeout.ofMilliseconds(properties.getSocketTimeoutMs()))
+                        .setDefaultKeepAlive(properties.getKeepAliveSeconds(), TimeUnit.SECONDS)
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(properties.getIdleEvictSeconds()))
+                .build();
+    }
+    
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(CloseableHttpClient httpClient, OutboundGuards outboundGuards) {
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        restTemplate.getInterceptors().add(new OutboundTimingInterceptor());
+        restTemplate.getInterceptors().add(new OutboundGuardInterceptor(outboundGuards));
+        return restTemplate;
+    }
+    
+    /**
+     * 注册连接池指标
+     * http.client.pool.leased 接近 max 或 pending 大于 0 表示连接池已饱和
+     */
+    private void registerPoolMetrics(MeterRegistry registry, PoolingHttpClientConnectionManager connectionManager,
+                                     HttpClientProperties properties) {
+        registerPoolGauges(registry, "all", connectionManager::getTotalStats);
+        for (String host : properties.getMaxPerRoute().keySet()) {
+            HttpRoute route = routeOf(host);
+            registerPoolGauges(registry, host, () -> connectionManager.getStats(route));
+        }
+    }
+    
+    private void registerPoolGauges(MeterRegistry registry, String route,
+                                    Supplier<PoolStats> stats) {
+        gauge(registry, "http.client.pool.leased", route, stats, PoolStats::getLeased);
+        gauge(registry, "http.client.pool.available", route, stats, PoolStats::getAvailable);
+        gauge(registry, "http.client.pool.pending", route, stats, PoolStats::getPending);
+        gauge(registry, "http.client.pool.max", route, stats, PoolStats::getMax);
+    }
+    
+    private void gauge(MeterRegistry registry, String name, String route,
+                       Supplier<PoolStats> stats, ToIntFunction<PoolStats> value) {
+        Gauge.builder(name, stats, s -> value.applyAsInt(s.get()))
+                .tag("route", route)
+                .strongReference(true)
+                .register(registry);
+    }
+    
+    /**
+     * 与 DefaultRoutePlanner 为 HTTPS 请求生成的路由一致（secure=true），否则连接数限制和指标对应不到实际使用的路由
+     */
+    private static HttpRoute routeOf(String host) {
+        return new HttpRoute(new HttpHost("https", host, 443), null, true);
     }
 }
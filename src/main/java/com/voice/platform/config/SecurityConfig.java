@@ -1,13 +1,19 @@
 package com.voice.platform.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.util.StringUtils;
 
 /**
  * Spring Security 配置
@@ -18,6 +24,41 @@ import org.springframework.security.web.SecurityFilterChain;
 @EnableWebSecurity
 public class SecurityConfig {
 
+    @Value("${metrics.scrape.username:prometheus}")
+    private String scrapeUsername;
+
+    @Value("${metrics.scrape.password:}")
+    private String scrapePassword;
+
+    /**
+     * 监控端点：Prometheus 采集、指标查询和出站熔断器/舱壁状态
+     * 指标包含请求量、用户和设备相关统计，只允许持有 METRICS 角色的采集账号通过 HTTP Basic 访问；
+     * 未配置 metrics.scrape.password 时不创建账号，端点拒绝所有请求
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain metricsFilterChain(HttpSecurity http, PasswordEncoder passwordEncoder) throws Exception {
+        InMemoryUserDetailsManager scrapeUsers = new InMemoryUserDetailsManager();
+        if (StringUtils.hasText(scrapePassword)) {
+            scrapeUsers.createUser(User.withUsername(scrapeUsername)
+                    .password(passwordEncoder.encode(scrapePassword))
+                    .roles("METRICS")
+                    .build());
+        }
+
+        http
+            .securityMatcher("/actuator/prometheus", "/actuator/metrics/**", "/actuator/outbound")
+            .csrf(csrf -> csrf.disable())
+            .authorizeHttpRequests(authorize -> authorize.anyRequest().hasRole("METRICS"))
+            .httpBasic(Customizer.withDefaults())
+            .userDetailsService(scrapeUsers)
+            .sessionManagement(session -> session
+                .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+            );
+
+        return http.build();
+    }
+
     /**
      * 配置 HTTP 安全
      */
@@ -48,6 +89,9 @@ public class SecurityConfig {
                 // 静态资源
                 .requestMatchers("/static/**").permitAll()
                 
+                // 健康检查（/actuator/prometheus 由 metricsFilterChain 单独认证）
+                .requestMatchers("/actuator/health").permitAll()
+                
                 // 其他请求需要认证
                 .anyRequest().authenticated()
             )
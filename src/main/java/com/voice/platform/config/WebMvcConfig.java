@@ -0,0 +1,42 @@
+package com.voice.platform.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.voice.platform.metrics.PlatformMetricsInterceptor;
+import com.voice.platform.metrics.TimedJackson2HttpMessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Web MVC 配置
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    /**
+     * 语音平台接口路径
+     */
+    public static final String[] PLATFORM_PATHS = {
+        "/alexa/**", "/google/**", "/aligenie/**", "/dueros/**", "/miai/**"
+    };
+
+    @Autowired
+    private PlatformMetricsInterceptor platformMetricsInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(platformMetricsInterceptor).addPathPatterns(PLATFORM_PATHS);
+    }
+
+    /**
+     * JSON 消息转换器
+     * 替换默认转换器，记录响应序列化耗时
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new TimedJackson2HttpMessageConverter(objectMapper);
+    }
+}
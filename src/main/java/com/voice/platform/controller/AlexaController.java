@@ -1,14 +1,18 @@
 package com.voice.platform.controller;
 
+import com.voice.platform.capability.DeviceCapabilityRegistry;
+import com.voice.platform.dto.RawJson;
 import com.voice.platform.dto.alexa.AlexaRequest;
 import com.voice.platform.dto.alexa.AlexaResponse;
-import com.voice.platform.dto.alexa.DiscoveredEndpoint;
 import com.voice.platform.model.AlexaToken;
 import com.voice.platform.model.Device;
+import com.voice.platform.security.RequestPrincipal;
 import com.voice.platform.service.AlexaStateReporter;
 import com.voice.platform.service.AlexaTokenService;
 import com.voice.platform.service.DeviceService;
+import com.voice.platform.service.DiscoveryCache;
 import com.voice.platform.service.OAuthService;
+import com.voice.platform.util.TokenHasher;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -45,9 +49,18 @@ public class AlexaController {
     @Autowired
     private OAuthService oauthService;
     
+    @Autowired
+    private RequestPrincipal requestPrincipal;
+    
     @Autowired
     private DeviceService deviceService;
     
+    @Autowired
+    private DiscoveryCache discoveryCache;
+    
+    @Autowired
+    private DeviceCapabilityRegistry capabilityRegistry;
+    
     @Autowired
     private AlexaTokenService alexaTokenService;
     
@@ -68,28 +81,28 @@ public class AlexaController {
         String name = request.getDirective().getHeader().getName();
         String messageId = request.getDirective().getHeader().getMessageId();
         
-        log.info("=== 收到 Alexa 请求 ===");
-        log.info("Namespace: {}", namespace);
-        log.info("Name: {}", name);
-        log.info("MessageId: {}", messageId);
+        log.debug("=== 收到 Alexa 请求 ===");
+        log.debug("Namespace: {}", namespace);
+        log.debug("Name: {}", name);
+        log.debug("MessageId: {}", messageId);
         
         try {
             // 1. 处理设备发现请求 (不需要 endpoint)
             if ("Alexa.Discovery".equals(namespace) && "Discover".equals(name)) {
-                log.info("处理设备发现请求");
+                log.debug("处理设备发现请求");
                 return handleDiscovery(request);
             }
             
             // 2. 处理授权请求 (AcceptGrant)
             if ("Alexa.Authorization".equals(namespace) && "AcceptGrant".equals(name)) {
-                log.info("处理授权接受请求");
+                log.debug("处理授权接受请求");
                 return handleAcceptGrant(request);
             }
             
             // 3. 验证 Token（其他请求需要验证）
             String token = extractToken(request);
-            if (token == null || !oauthService.validateAccessToken(token)) {
-                log.warn("Token 验证失败: token={}", token != null ? token.substring(0, Math.min(10, token.length())) + "..." : "null");
+            if (token == null || !oauthService.authenticate(token)) {
+                log.warn("Token 验证失败: token={}", TokenHasher.fingerprint(token));
                 return ResponseEntity.ok(AlexaResponse.createErrorResponse(
                     messageId,
                     request.getDirective().getHeader().getCorrelationToken(),
@@ -102,19 +115,19 @@ public class AlexaController {
             
             // 4. 处理电源控制请求
             if ("Alexa.PowerController".equals(namespace)) {
-                log.info("处理电源控制请求: {}", name);
+                log.debug("处理电源控制请求: {}", name);
                 return handlePowerControl(request);
             }
             
             // 5. 处理模式控制请求
             if ("Alexa.ModeController".equals(namespace)) {
-                log.info("处理模式控制请求: {}", name);
+                log.debug("处理模式控制请求: {}", name);
                 return handleModeControl(request);
             }
             
             // 6. 处理状态报告请求
             if ("Alexa".equals(namespace) && "ReportState".equals(name)) {
-                log.info("处理状态报告请求");
+                log.debug("处理状态报告请求");
                 return handleReportState(request);
             }
             
@@ -162,7 +175,7 @@ public class AlexaController {
                 token = (String) scope.get("token");
             }
             
-            if (token == null || !oauthService.validateAccessToken(token)) {
+            if (token == null || !oauthService.authenticate(token)) {
                 log.warn("Discovery Token 验证失败: token={}", token != null ? "exists" : "null");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(
                     AlexaResponse.createErrorResponse(messageId, null, null,
@@ -170,27 +183,14 @@ public class AlexaController {
                 );
             }
             
-            // 获取用户 ID（简化处理，实际应从 token 解析）
-            // TODO: 从 token 中解析真实的 userId
-            Long userId = 1L;
-            
-            // 查询用户设备
-            List<Device> devices = deviceService.findDevicesByUserId(userId);
-            log.info("查询到用户设备: userId={}, totalDevices={}", userId, devices.size());
-            
-            // 构建设备列表
-            List<DiscoveredEndpoint> endpoints = new ArrayList<>();
-            for (Device device : devices) {
-                if ("robot_cleaner".equals(device.getDeviceType())) {
-                    endpoints.add(DiscoveredEndpoint.createVacuumEndpoint(
-                        device.getDeviceId(),
-                        device.getDeviceName()
-                    ));
-                    log.debug("添加设备: deviceId={}, deviceName={}", device.getDeviceId(), device.getDeviceName());
-                }
-            }
+            // 当前请求的用户 ID（由令牌认证解析）
+            Long userId = requestPrincipal.getUserId();
+            
+            // 设备列表（按用户缓存，未命中时查询设备并按能力模板渲染）
+            RawJson endpoints = discoveryCache.get(DiscoveryCache.Platform.ALEXA, userId,
+                () -> capabilityRegistry.render(DiscoveryCache.Platform.ALEXA, deviceService.findDevicesByUserId(userId)));
             
-            log.info("设备发现完成: userId={}, discoveredDevices={}", userId, endpoints.size());
+            log.debug("设备发现完成: userId={}, discoveredDevices={}", userId, endpoints.size());
             
             AlexaResponse response = AlexaResponse.createDiscoveryResponse(messageId, endpoints);
             return ResponseEntity.ok(response);
@@ -218,13 +218,13 @@ public class AlexaController {
         String endpointId = request.getDirective().getEndpoint().getEndpointId();
         String token = extractToken(request);
         
-        log.info("=== 电源控制请求 ===");
-        log.info("操作: {}", name);
-        log.info("设备ID: {}", endpointId);
+        log.debug("=== 电源控制请求 ===");
+        log.debug("操作: {}", name);
+        log.debug("设备ID: {}", endpointId);
         
         try {
             // 1. 查询设备
-            Optional<Device> deviceOpt = deviceService.findDeviceByDeviceId(endpointId);
+            Optional<Device> deviceOpt = deviceService.findDeviceByDeviceId(endpointId, requestPrincipal.getUserId());
             if (!deviceOpt.isPresent()) {
                 log.warn("设备不存在: endpointId={}", endpointId);
                 return ResponseEntity.ok(AlexaResponse.createErrorResponse(
@@ -234,7 +234,7 @@ public class AlexaController {
             }
             
             Device device = deviceOpt.get();
-            log.info("找到设备: deviceName={}, currentPowerState={}, status={}", 
+            log.debug("找到设备: deviceName={}, currentPowerState={}, status={}", 
                     device.getDeviceName(), device.getPowerState(), device.getStatus());
             
             // 2. 检查设备是否在线
@@ -249,13 +249,13 @@ public class AlexaController {
             // 3. 执行操作
             String powerState;
             if ("TurnOn".equals(name)) {
-                deviceService.turnOn(endpointId);
+                deviceService.updatePowerState(device, "on");
                 powerState = "ON";
-                log.info("✓ 设备开机成功: endpointId={}, deviceName={}", endpointId, device.getDeviceName());
+                log.debug("✓ 设备开机成功: endpointId={}, deviceName={}", endpointId, device.getDeviceName());
             } else if ("TurnOff".equals(name)) {
-                deviceService.turnOff(endpointId);
+                deviceService.updatePowerState(device, "off");
                 powerState = "OFF";
-                log.info("✓ 设备关机成功: endpointId={}, deviceName={}", endpointId, device.getDeviceName());
+                log.debug("✓ 设备关机成功: endpointId={}, deviceName={}", endpointId, device.getDeviceName());
             } else {
                 log.warn("不支持的电源操作: name={}", name);
                 return ResponseEntity.ok(AlexaResponse.createErrorResponse(
@@ -296,7 +296,7 @@ public class AlexaController {
                 properties
             );
             
-            log.info("电源控制响应已生成: powerState={}", powerState);
+            log.debug("电源控制响应已生成: powerState={}", powerState);
             return ResponseEntity.ok(response);
             
         } catch (Exception e) {
@@ -322,13 +322,13 @@ public class AlexaController {
         String endpointId = request.getDirective().getEndpoint().getEndpointId();
         String token = extractToken(request);
         
-        log.info("=== 模式控制请求 ===");
-        log.info("操作: {}", name);
-        log.info("设备ID: {}", endpointId);
+        log.debug("=== 模式控制请求 ===");
+        log.debug("操作: {}", name);
+        log.debug("设备ID: {}", endpointId);
         
         try {
             // 1. 查询设备
-            Optional<Device> deviceOpt = deviceService.findDeviceByDeviceId(endpointId);
+            Optional<Device> deviceOpt = deviceService.findDeviceByDeviceId(endpointId, requestPrincipal.getUserId());
             if (!deviceOpt.isPresent()) {
                 log.warn("设备不存在: endpointId={}", endpointId);
                 return ResponseEntity.ok(AlexaResponse.createErrorResponse(
@@ -338,7 +338,7 @@ public class AlexaController {
             }
             
             Device device = deviceOpt.get();
-            log.info("找到设备: deviceName={}, currentMode={}, status={}", 
+            log.debug("找到设备: deviceName={}, currentMode={}, status={}", 
                     device.getDeviceName(), device.getWorkMode(), device.getStatus());
             
             // 2. 检查设备是否在线
@@ -354,11 +354,11 @@ public class AlexaController {
             String mode = null;
             if ("SetMode".equals(name)) {
                 mode = (String) request.getDirective().getPayload().get("mode");
-                log.info("请求设置模式: mode={}", mode);
+                log.debug("请求设置模式: mode={}", mode);
             } else if ("AdjustMode".equals(name)) {
                 // AdjustMode 用于循环切换模式
                 Integer modeDelta = (Integer) request.getDirective().getPayload().get("modeDelta");
-                log.info("请求调整模式: modeDelta={}", modeDelta);
+                log.debug("请求调整模式: modeDelta={}", modeDelta);
                 // 简化处理：循环切换 Auto -> Spot -> Edge -> Auto
                 String currentMode = device.getWorkMode();
                 mode = getNextMode(currentMode, modeDelta != null ? modeDelta : 1);
@@ -383,8 +383,8 @@ public class AlexaController {
             }
             
             // 5. 设置模式
-            deviceService.setMode(endpointId, normalizedMode);
-            log.info("✓ 模式设置成功: endpointId={}, deviceName={}, newMode={}", 
+            deviceService.updateWorkMode(device, normalizedMode);
+            log.debug("✓ 模式设置成功: endpointId={}, deviceName={}, newMode={}", 
                     endpointId, device.getDeviceName(), normalizedMode);
             
             // 6. 构建响应属性
@@ -419,7 +419,7 @@ public class AlexaController {
                 properties
             );
             
-            log.info("模式控制响应已生成: mode={}", capitalizeFirst(normalizedMode));
+            log.debug("模式控制响应已生成: mode={}", capitalizeFirst(normalizedMode));
             return ResponseEntity.ok(response);
             
         } catch (Exception e) {
@@ -494,8 +494,8 @@ public class AlexaController {
         String messageId = request.getDirective().getHeader().getMessageId();
         
         try {
-            log.info("=== 处理 AcceptGrant 请求 ===");
-            log.info("MessageId: {}", messageId);
+            log.debug("=== 处理 AcceptGrant 请求 ===");
+            log.debug("MessageId: {}", messageId);
             
             // 从 payload 中获取授权码和 grantee
             Map<String, Object> payload = request.getDirective().getPayload();
@@ -516,15 +516,22 @@ public class AlexaController {
             String type = (String) grant.get("type");
             String granteeToken = (String) grantee.get("token");
             
-            log.info("授权信息: type={}, code={}, granteeToken={}", 
+            log.debug("授权信息: type={}, code={}, granteeToken={}", 
                     type, 
-                    code != null ? code.substring(0, Math.min(10, code.length())) + "..." : "null",
-                    granteeToken != null ? granteeToken.substring(0, Math.min(10, granteeToken.length())) + "..." : "null");
+                    TokenHasher.fingerprint(code), TokenHasher.fingerprint(granteeToken));
             
+            // granteeToken 是本平台颁发给 Alexa 的访问令牌，据此确定用户
+            if (!oauthService.authenticate(granteeToken)) {
+                log.warn("AcceptGrant granteeToken 验证失败");
+                return ResponseEntity.ok(AlexaResponse.createErrorResponse(
+                    messageId, null, null,
+                    "ACCEPT_GRANT_FAILED", "granteeToken 无效或已过期"
+                ));
+            }
+
             // 用授权码换取 Alexa Access Token
-            // TODO: 从 granteeToken 或其他方式获取真实的 userId
-            Long userId = 1L; // 简化处理，实际应从授权流程中获取
-            
+            Long userId = requestPrincipal.getUserId();
+
             AlexaToken alexaToken = alexaTokenService.exchangeToken(code, userId);
             
             // 存储 Token（用于后续的状态报告）
@@ -571,11 +578,11 @@ public class AlexaController {
         String endpointId = request.getDirective().getEndpoint().getEndpointId();
         String token = extractToken(request);
         
-        log.info("状态报告请求: endpointId={}", endpointId);
+        log.debug("状态报告请求: endpointId={}", endpointId);
         
         try {
             // 查询设备
-            Optional<Device> deviceOpt = deviceService.findDeviceByDeviceId(endpointId);
+            Optional<Device> deviceOpt = deviceService.findDeviceByDeviceId(endpointId, requestPrincipal.getUserId());
             if (!deviceOpt.isPresent()) {
                 log.warn("设备不存在: endpointId={}", endpointId);
                 return ResponseEntity.ok(AlexaResponse.createErrorResponse(
@@ -622,7 +629,7 @@ public class AlexaController {
                 .uncertaintyInMilliseconds(500)
                 .build());
             
-            log.info("状态报告完成: endpointId={}, powerState={}, mode={}, status={}", 
+            log.debug("状态报告完成: endpointId={}, powerState={}, mode={}, status={}", 
                     endpointId, powerState, device.getWorkMode(), device.getStatus());
             
             // 构建 StateReport 响应
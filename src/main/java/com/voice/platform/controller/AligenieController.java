@@ -2,6 +2,7 @@ package com.voice.platform.controller;
 
 import com.voice.platform.dto.AligenieRequest;
 import com.voice.platform.dto.AligenieResponse;
+import com.voice.platform.security.RequestPrincipal;
 import com.voice.platform.service.DeviceService;
 import com.voice.platform.service.OAuthService;
 import lombok.extern.slf4j.Slf4j;
@@ -37,6 +38,9 @@ public class AligenieController {
     @Autowired
     private OAuthService oauthService;
     
+    @Autowired
+    private RequestPrincipal requestPrincipal;
+    
     @Autowired
     private DeviceService deviceService;
     
@@ -57,15 +61,15 @@ public class AligenieController {
         String namespace = request.getHeader().getNamespace();
         String name = request.getHeader().getName();
         
-        log.info("=== 收到天猫精灵设备发现请求 ===");
-        log.info("MessageId: {}", messageId);
-        log.info("Namespace: {}", namespace);
-        log.info("Name: {}", name);
+        log.debug("=== 收到天猫精灵设备发现请求 ===");
+        log.debug("MessageId: {}", messageId);
+        log.debug("Namespace: {}", namespace);
+        log.debug("Name: {}", name);
         
         try {
             // 验证 Token
             String accessToken = extractToken(authorization);
-            if (accessToken == null || !oauthService.validateAccessToken(accessToken)) {
+            if (accessToken == null || !oauthService.authenticate(accessToken)) {
                 log.warn("Token 验证失败: token={}", accessToken != null ? "exists" : "null");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(AligenieResponse.error(
@@ -74,15 +78,14 @@ public class AligenieController {
                                 "访问令牌无效或已过期"));
             }
             
-            // 获取用户ID（简化处理，实际应从 token 获取）
-            // TODO: 从 token 中解析真实的 userId
-            Long userId = 1L;
+            // 当前请求的用户 ID（由令牌认证解析）
+            Long userId = requestPrincipal.getUserId();
             
-            log.info("开始设备发现: userId={}", userId);
+            log.debug("开始设备发现: userId={}", userId);
             
             AligenieResponse response = deviceService.discovery(userId, messageId);
             
-            log.info("✓ 设备发现完成: userId={}, messageId={}", userId, messageId);
+            log.debug("✓ 设备发现完成: userId={}, messageId={}", userId, messageId);
             
             return ResponseEntity.ok(response);
             
@@ -112,15 +115,15 @@ public class AligenieController {
         String namespace = request.getHeader().getNamespace();
         String action = request.getHeader().getName();
         
-        log.info("=== 收到天猫精灵设备控制请求 ===");
-        log.info("MessageId: {}", messageId);
-        log.info("Namespace: {}", namespace);
-        log.info("Action: {}", action);
+        log.debug("=== 收到天猫精灵设备控制请求 ===");
+        log.debug("MessageId: {}", messageId);
+        log.debug("Namespace: {}", namespace);
+        log.debug("Action: {}", action);
         
         try {
             // 验证 Token
             String accessToken = extractToken(authorization);
-            if (accessToken == null || !oauthService.validateAccessToken(accessToken)) {
+            if (accessToken == null || !oauthService.authenticate(accessToken)) {
                 log.warn("Token 验证失败: token={}", accessToken != null ? "exists" : "null");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(AligenieResponse.error(
@@ -140,7 +143,7 @@ public class AligenieController {
                         "缺少设备ID参数"));
             }
             
-            log.info("设备ID: {}", deviceId);
+            log.debug("设备ID: {}", deviceId);
             
             // 执行控制操作
             AligenieResponse response = executeControl(deviceId, action, request, messageId);
@@ -171,23 +174,23 @@ public class AligenieController {
         
         switch (action) {
             case "TurnOn":
-                response = deviceService.turnOn(deviceId, messageId);
-                log.info("✓ 设备开机成功: deviceId={}", deviceId);
+                response = deviceService.turnOn(deviceId, requestPrincipal.getUserId(), messageId);
+                log.debug("✓ 设备开机成功: deviceId={}", deviceId);
                 break;
                 
             case "TurnOff":
-                response = deviceService.turnOff(deviceId, messageId);
-                log.info("✓ 设备关机成功: deviceId={}", deviceId);
+                response = deviceService.turnOff(deviceId, requestPrincipal.getUserId(), messageId);
+                log.debug("✓ 设备关机成功: deviceId={}", deviceId);
                 break;
                 
             case "Pause":
-                response = deviceService.pause(deviceId, messageId);
-                log.info("✓ 设备暂停成功: deviceId={}", deviceId);
+                response = deviceService.pause(deviceId, requestPrincipal.getUserId(), messageId);
+                log.debug("✓ 设备暂停成功: deviceId={}", deviceId);
                 break;
                 
             case "Continue":
-                response = deviceService.continueWork(deviceId, messageId);
-                log.info("✓ 设备继续成功: deviceId={}", deviceId);
+                response = deviceService.continueWork(deviceId, requestPrincipal.getUserId(), messageId);
+                log.debug("✓ 设备继续成功: deviceId={}", deviceId);
                 break;
                 
             case "SetMode":
@@ -200,8 +203,8 @@ public class AligenieController {
                     response = AligenieResponse.error(messageId, "INVALID_MODE", 
                             "不支持的模式: " + mode + "。支持的模式: auto, spot, edge");
                 } else {
-                    response = deviceService.setMode(deviceId, mode, messageId);
-                    log.info("✓ 模式设置成功: deviceId={}, mode={}", deviceId, mode);
+                    response = deviceService.setMode(deviceId, requestPrincipal.getUserId(), mode, messageId);
+                    log.debug("✓ 模式设置成功: deviceId={}, mode={}", deviceId, mode);
                 }
                 break;
                 
@@ -241,15 +244,15 @@ public class AligenieController {
         String namespace = request.getHeader().getNamespace();
         String name = request.getHeader().getName();
         
-        log.info("=== 收到天猫精灵设备查询请求 ===");
-        log.info("MessageId: {}", messageId);
-        log.info("Namespace: {}", namespace);
-        log.info("Name: {}", name);
+        log.debug("=== 收到天猫精灵设备查询请求 ===");
+        log.debug("MessageId: {}", messageId);
+        log.debug("Namespace: {}", namespace);
+        log.debug("Name: {}", name);
         
         try {
             // 验证 Token
             String accessToken = extractToken(authorization);
-            if (accessToken == null || !oauthService.validateAccessToken(accessToken)) {
+            if (accessToken == null || !oauthService.authenticate(accessToken)) {
                 log.warn("Token 验证失败: token={}", accessToken != null ? "exists" : "null");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(AligenieResponse.error(
@@ -269,11 +272,11 @@ public class AligenieController {
                         "缺少设备ID参数"));
             }
             
-            log.info("查询设备: deviceId={}", deviceId);
+            log.debug("查询设备: deviceId={}", deviceId);
             
-            AligenieResponse response = deviceService.query(deviceId, messageId);
+            AligenieResponse response = deviceService.query(deviceId, requestPrincipal.getUserId(), messageId);
             
-            log.info("✓ 设备查询成功: deviceId={}", deviceId);
+            log.debug("✓ 设备查询成功: deviceId={}", deviceId);
             
             return ResponseEntity.ok(response);
             
@@ -1,9 +1,13 @@
 package com.voice.platform.controller;
 
+import com.voice.platform.capability.DeviceCapabilityRegistry;
 import com.voice.platform.dto.DuerOSRequest;
 import com.voice.platform.dto.DuerOSResponse;
+import com.voice.platform.dto.RawJson;
 import com.voice.platform.model.Device;
-import com.voice.platform.repository.DeviceRepository;
+import com.voice.platform.security.RequestPrincipal;
+import com.voice.platform.service.DeviceService;
+import com.voice.platform.service.DiscoveryCache;
 import com.voice.platform.service.OAuthService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,7 +38,16 @@ public class DuerOSController {
     private OAuthService oauthService;
     
     @Autowired
-    private DeviceRepository deviceRepository;
+    private RequestPrincipal requestPrincipal;
+    
+    @Autowired
+    private DeviceService deviceService;
+    
+    @Autowired
+    private DiscoveryCache discoveryCache;
+    
+    @Autowired
+    private DeviceCapabilityRegistry capabilityRegistry;
     
     /**
      * 设备发现接口
@@ -51,15 +64,15 @@ public class DuerOSController {
         
         String messageId = request.getHeader().getMessageId();
         
-        log.info("=== 收到小度设备发现请求 ===");
-        log.info("MessageId: {}", messageId);
-        log.info("Namespace: {}", request.getHeader().getNamespace());
-        log.info("Name: {}", request.getHeader().getName());
+        log.debug("=== 收到小度设备发现请求 ===");
+        log.debug("MessageId: {}", messageId);
+        log.debug("Namespace: {}", request.getHeader().getNamespace());
+        log.debug("Name: {}", request.getHeader().getName());
         
         try {
             // 验证 Token
             String accessToken = extractToken(authorization);
-            if (accessToken == null || !oauthService.validateAccessToken(accessToken)) {
+            if (accessToken == null || !oauthService.authenticate(accessToken)) {
                 log.warn("Token 验证失败: token={}", accessToken != null ? "exists" : "null");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(DuerOSResponse.error(
@@ -68,27 +81,14 @@ public class DuerOSController {
                                 "访问令牌无效或已过期"));
             }
             
-            // 获取用户ID（简化处理，实际应从 token 获取）
-            // TODO: 从 token 中解析真实的 userId
-            Long userId = 1L;
+            // 当前请求的用户 ID（由令牌认证解析）
+            Long userId = requestPrincipal.getUserId();
             
-            // 查询用户设备
-            List<Device> devices = deviceRepository.findByUserId(userId);
-            log.info("查询到用户设备: userId={}, totalDevices={}", userId, devices.size());
+            // 设备列表（按用户缓存，未命中时查询设备并按能力模板渲染）
+            RawJson discoveredAppliances = discoveryCache.get(DiscoveryCache.Platform.DUEROS, userId,
+                () -> capabilityRegistry.render(DiscoveryCache.Platform.DUEROS, deviceService.findDevicesByUserId(userId)));
             
-            // 构建设备列表
-            List<Map<String, Object>> discoveredAppliances = new ArrayList<>();
-            
-            for (Device device : devices) {
-                if ("robot_cleaner".equals(device.getDeviceType())) {
-                    Map<String, Object> appliance = buildApplianceInfo(device);
-                    discoveredAppliances.add(appliance);
-                    log.debug("添加设备: applianceId={}, friendlyName={}", 
-                            device.getDeviceId(), device.getDeviceName());
-                }
-            }
-            
-            log.info("小度设备发现完成: userId={}, discoveredDevices={}", userId, discoveredAppliances.size());
+            log.debug("小度设备发现完成: userId={}, discoveredDevices={}", userId, discoveredAppliances.size());
             
             DuerOSResponse response = DuerOSResponse.discoveryResponse(
                 messageId,
@@ -107,46 +107,6 @@ public class DuerOSController {
         }
     }
     
-    /**
-     * 构建设备信息
-     * 
-     * @param device 设备实体
-     * @return 设备信息 Map
-     */
-    private Map<String, Object> buildApplianceInfo(Device device) {
-        Map<String, Object> appliance = new HashMap<>();
-        
-        // 基本信息
-        appliance.put("applianceId", device.getDeviceId());
-        appliance.put("manufacturerName", "Smart Home Demo");
-        appliance.put("modelName", "智能扫地机器人");
-        appliance.put("version", "1.0");
-        appliance.put("friendlyName", device.getDeviceName());
-        appliance.put("friendlyDescription", "智能扫地机器人，支持语音控制");
-        appliance.put("isReachable", "online".equals(device.getStatus()));
-        
-        // 设备类型
-        List<String> applianceTypes = new ArrayList<>();
-        applianceTypes.add("ROBOT_CLEANER");
-        appliance.put("applianceTypes", applianceTypes);
-        
-        // 支持的操作
-        List<String> actions = Arrays.asList(
-            "turnOn", "turnOff", "pause", "continue", "setMode", "getState"
-        );
-        appliance.put("actions", actions);
-        
-        // 设备属性
-        Map<String, Object> additionalApplianceDetails = new HashMap<>();
-        additionalApplianceDetails.put("powerState", device.getPowerState());
-        additionalApplianceDetails.put("workMode", device.getWorkMode());
-        additionalApplianceDetails.put("batteryLevel", device.getBatteryLevel());
-        additionalApplianceDetails.put("status", device.getStatus());
-        appliance.put("additionalApplianceDetails", additionalApplianceDetails);
-        
-        return appliance;
-    }
-    
     /**
      * 设备控制接口
      * POST /dueros/control
@@ -163,14 +123,14 @@ public class DuerOSController {
         String action = request.getHeader().getName();
         String messageId = request.getHeader().getMessageId();
         
-        log.info("=== 收到小度设备控制请求 ===");
-        log.info("Action: {}", action);
-        log.info("MessageId: {}", messageId);
+        log.debug("=== 收到小度设备控制请求 ===");
+        log.debug("Action: {}", action);
+        log.debug("MessageId: {}", messageId);
         
         try {
             // 1. 验证 Token
             String accessToken = extractToken(authorization);
-            if (accessToken == null || !oauthService.validateAccessToken(accessToken)) {
+            if (accessToken == null || !oauthService.authenticate(accessToken)) {
                 log.warn("Token 验证失败: token={}", accessToken != null ? "exists" : "null");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(DuerOSResponse.error(messageId, "INVALID_TOKEN", "访问令牌无效或已过期"));
@@ -178,10 +138,10 @@ public class DuerOSController {
             
             // 2. 获取设备ID
             String deviceId = request.getPayload().getAppliance().getApplianceId();
-            log.info("设备ID: {}", deviceId);
+            log.debug("设备ID: {}", deviceId);
             
             // 3. 查询设备
-            Optional<Device> deviceOpt = deviceRepository.findByDeviceId(deviceId);
+            Optional<Device> deviceOpt = deviceService.findDeviceByDeviceId(deviceId, requestPrincipal.getUserId());
             if (!deviceOpt.isPresent()) {
                 log.warn("设备不存在: deviceId={}", deviceId);
                 return ResponseEntity.ok(
@@ -190,7 +150,7 @@ public class DuerOSController {
             }
             
             Device device = deviceOpt.get();
-            log.info("找到设备: deviceName={}, currentPowerState={}, status={}", 
+            log.debug("找到设备: deviceName={}, currentPowerState={}, status={}", 
                     device.getDeviceName(), device.getPowerState(), device.getStatus());
             
             // 4. 检查设备是否在线
@@ -231,29 +191,27 @@ public class DuerOSController {
         
         switch (action) {
             case "TurnOnRequest":
-                device.setPowerState("on");
-                deviceRepository.save(device);
+                deviceService.updatePowerState(device, "on");
                 response = DuerOSResponse.controlConfirmation("TurnOn", messageId);
-                log.info("✓ 设备开机成功: deviceId={}, deviceName={}", deviceId, device.getDeviceName());
+                log.debug("✓ 设备开机成功: deviceId={}, deviceName={}", deviceId, device.getDeviceName());
                 break;
                 
             case "TurnOffRequest":
-                device.setPowerState("off");
-                deviceRepository.save(device);
+                deviceService.updatePowerState(device, "off");
                 response = DuerOSResponse.controlConfirmation("TurnOff", messageId);
-                log.info("✓ 设备关机成功: deviceId={}, deviceName={}", deviceId, device.getDeviceName());
+                log.debug("✓ 设备关机成功: deviceId={}, deviceName={}", deviceId, device.getDeviceName());
                 break;
                 
             case "PauseRequest":
                 // 暂停操作（扫地机器人暂停清扫）
                 response = DuerOSResponse.controlConfirmation("Pause", messageId);
-                log.info("✓ 设备暂停成功: deviceId={}, deviceName={}", deviceId, device.getDeviceName());
+                log.debug("✓ 设备暂停成功: deviceId={}, deviceName={}", deviceId, device.getDeviceName());
                 break;
                 
             case "ContinueRequest":
                 // 继续操作（扫地机器人继续清扫）
                 response = DuerOSResponse.controlConfirmation("Continue", messageId);
-                log.info("✓ 设备继续成功: deviceId={}, deviceName={}", deviceId, device.getDeviceName());
+                log.debug("✓ 设备继续成功: deviceId={}, deviceName={}", deviceId, device.getDeviceName());
                 break;
                 
             case "SetModeRequest":
@@ -269,9 +227,8 @@ public class DuerOSController {
                             "不支持的模式: " + mode + "。支持的模式: auto, spot, edge");
                     }
                     
-                    device.setWorkMode(mode);
-                    deviceRepository.save(device);
-                    log.info("✓ 模式设置成功: deviceId={}, deviceName={}, newMode={}", 
+                    deviceService.updateWorkMode(device, mode);
+                    log.debug("✓ 模式设置成功: deviceId={}, deviceName={}, newMode={}", 
                             deviceId, device.getDeviceName(), mode);
                 } else {
                     log.warn("SetModeRequest 缺少 mode 参数");
@@ -283,7 +240,7 @@ public class DuerOSController {
             case "GetStateRequest":
                 // 查询设备状态
                 response = buildStateResponse(messageId, device);
-                log.info("✓ 状态查询成功: deviceId={}, powerState={}, workMode={}", 
+                log.debug("✓ 状态查询成功: deviceId={}, powerState={}, workMode={}", 
                         deviceId, device.getPowerState(), device.getWorkMode());
                 break;
                 
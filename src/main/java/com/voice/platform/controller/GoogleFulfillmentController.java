@@ -1,17 +1,29 @@
 package com.voice.platform.controller;
 
-import com.voice.platform.dto.google.GoogleDevice;
+import com.voice.platform.capability.DeviceCapabilityRegistry;
+import com.voice.platform.dto.RawJson;
 import com.voice.platform.dto.google.GoogleRequest;
 import com.voice.platform.dto.google.GoogleResponse;
+import com.voice.platform.metrics.RequestTiming;
 import com.voice.platform.model.Device;
+import com.voice.platform.security.RequestPrincipal;
 import com.voice.platform.service.DeviceService;
+import com.voice.platform.service.DiscoveryCache;
 import com.voice.platform.service.OAuthService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Google Assistant Fulfillment 控制器
@@ -45,9 +57,25 @@ public class GoogleFulfillmentController {
     @Autowired
     private OAuthService oauthService;
     
+    @Autowired
+    private RequestPrincipal requestPrincipal;
+    
     @Autowired
     private DeviceService deviceService;
     
+    @Autowired
+    private DiscoveryCache discoveryCache;
+    
+    @Autowired
+    private DeviceCapabilityRegistry capabilityRegistry;
+    
+    @Autowired
+    @Qualifier("googleExecuteExecutor")
+    private Executor googleExecuteExecutor;
+    
+    @Value("${google.execute.device-timeout-ms:3000}")
+    private long deviceTimeoutMs;
+    
     /**
      * Google Smart Home 主入口
      * 处理所有 Google Assistant 请求
@@ -64,9 +92,9 @@ public class GoogleFulfillmentController {
         String requestId = request.getRequestId();
         String intent = request.getInputs().get(0).getIntent();
         
-        log.info("=== 收到 Google Assistant 请求 ===");
-        log.info("RequestId: {}", requestId);
-        log.info("Intent: {}", intent);
+        log.debug("=== 收到 Google Assistant 请求 ===");
+        log.debug("RequestId: {}", requestId);
+        log.debug("Intent: {}", intent);
         
         try {
             // 提取 Token
@@ -75,19 +103,19 @@ public class GoogleFulfillmentController {
             // 处理不同的 Intent
             switch (intent) {
                 case "action.devices.SYNC":
-                    log.info("处理 SYNC Intent - 设备发现");
+                    log.debug("处理 SYNC Intent - 设备发现");
                     return handleSync(request, token);
                     
                 case "action.devices.QUERY":
-                    log.info("处理 QUERY Intent - 状态查询");
+                    log.debug("处理 QUERY Intent - 状态查询");
                     return handleQuery(request, token);
                     
                 case "action.devices.EXECUTE":
-                    log.info("处理 EXECUTE Intent - 设备控制");
+                    log.debug("处理 EXECUTE Intent - 设备控制");
                     return handleExecute(request, token);
                     
                 case "action.devices.DISCONNECT":
-                    log.info("处理 DISCONNECT Intent - 账号解绑");
+                    log.debug("处理 DISCONNECT Intent - 账号解绑");
                     return handleDisconnect(request, token);
                     
                 default:
@@ -115,41 +143,26 @@ public class GoogleFulfillmentController {
     private ResponseEntity<?> handleSync(GoogleRequest request, String token) {
         String requestId = request.getRequestId();
         
-        log.info("=== 开始设备发现 ===");
+        log.debug("=== 开始设备发现 ===");
         
         try {
             // 验证 Token
-            if (token == null || !oauthService.validateAccessToken(token)) {
+            if (token == null || !oauthService.authenticate(token)) {
                 log.warn("SYNC Token 验证失败: token={}", token != null ? "exists" : "null");
                 return ResponseEntity.ok(GoogleResponse.createErrorResponse(
                     requestId, "authFailure", "访问令牌无效或已过期"
                 ));
             }
             
-            // 获取用户 ID（简化处理，实际应从 token 获取）
-            // TODO: 从 token 中解析真实的 userId
-            Long userId = 1L;
+            // 当前请求的用户 ID（由令牌认证解析）
+            Long userId = requestPrincipal.getUserId();
             String agentUserId = "user_" + userId;
             
-            // 查询用户设备
-            List<Device> devices = deviceService.findDevicesByUserId(userId);
-            log.info("查询到用户设备: userId={}, totalDevices={}", userId, devices.size());
+            // 设备列表（按用户缓存，未命中时查询设备并按能力模板渲染）
+            RawJson googleDevices = discoveryCache.get(DiscoveryCache.Platform.GOOGLE, userId,
+                () -> capabilityRegistry.render(DiscoveryCache.Platform.GOOGLE, deviceService.findDevicesByUserId(userId)));
             
-            // 构建设备列表
-            List<GoogleDevice> googleDevices = new ArrayList<>();
-            for (Device device : devices) {
-                if ("robot_cleaner".equals(device.getDeviceType())) {
-                    googleDevices.add(GoogleDevice.createVacuumDevice(
-                        device.getDeviceId(),
-                        device.getDeviceName(),
-                        "Living Room"
-                    ));
-                    log.debug("添加设备: deviceId={}, deviceName={}", 
-                            device.getDeviceId(), device.getDeviceName());
-                }
-            }
-            
-            log.info("✓ 设备发现完成: userId={}, discoveredDevices={}", userId, googleDevices.size());
+            log.debug("✓ 设备发现完成: userId={}, discoveredDevices={}", userId, googleDevices.size());
             
             return ResponseEntity.ok(GoogleResponse.createSyncResponse(
                 requestId, agentUserId, googleDevices
@@ -174,11 +187,11 @@ public class GoogleFulfillmentController {
     private ResponseEntity<?> handleQuery(GoogleRequest request, String token) {
         String requestId = request.getRequestId();
         
-        log.info("=== 开始状态查询 ===");
+        log.debug("=== 开始状态查询 ===");
         
         try {
             // 验证 Token
-            if (token == null || !oauthService.validateAccessToken(token)) {
+            if (token == null || !oauthService.authenticate(token)) {
                 log.warn("QUERY Token 验证失败: token={}", token != null ? "exists" : "null");
                 return ResponseEntity.ok(GoogleResponse.createErrorResponse(
                     requestId, "authFailure", "访问令牌无效或已过期"
@@ -190,19 +203,21 @@ public class GoogleFulfillmentController {
             @SuppressWarnings("unchecked")
             List<Map<String, String>> deviceList = (List<Map<String, String>>) payload.get("devices");
             
-            log.info("查询设备数量: {}", deviceList.size());
+            log.debug("查询设备数量: {}", deviceList.size());
+            
+            // 一次加载全部查询设备，避免逐台查询
+            List<String> deviceIds = new ArrayList<>(deviceList.size());
+            for (Map<String, String> deviceMap : deviceList) {
+                deviceIds.add(deviceMap.get("id"));
+            }
+            Map<String, Device> devices = deviceService.findDevicesByDeviceIds(requestPrincipal.getUserId(), deviceIds);
             
             Map<String, GoogleResponse.DeviceState> deviceStates = new HashMap<>();
             
-            for (Map<String, String> deviceMap : deviceList) {
-                String deviceId = deviceMap.get("id");
-                log.debug("查询设备状态: deviceId={}", deviceId);
-                
-                Optional<Device> deviceOpt = deviceService.findDeviceByDeviceId(deviceId);
+            for (String deviceId : deviceIds) {
+                Device device = devices.get(deviceId);
                 
-                if (deviceOpt.isPresent()) {
-                    Device device = deviceOpt.get();
-                    
+                if (device != null) {
                     // 构建设备状态
                     GoogleResponse.DeviceState state = buildDeviceState(device);
                     deviceStates.put(deviceId, state);
@@ -221,7 +236,7 @@ public class GoogleFulfillmentController {
                 }
             }
             
-            log.info("✓ 状态查询完成: deviceCount={}", deviceStates.size());
+            log.debug("✓ 状态查询完成: deviceCount={}", deviceStates.size());
             
             return ResponseEntity.ok(GoogleResponse.createQueryResponse(requestId, deviceStates));
             
@@ -268,7 +283,7 @@ public class GoogleFulfillmentController {
             .build();
     }
 
-        /**
+    /**
      * 处理 EXECUTE Intent - 设备控制
      * 执行设备控制命令
      * 
@@ -279,11 +294,11 @@ public class GoogleFulfillmentController {
     private ResponseEntity<?> handleExecute(GoogleRequest request, String token) {
         String requestId = request.getRequestId();
         
-        log.info("=== 开始执行设备控制 ===");
+        log.debug("=== 开始执行设备控制 ===");
         
         try {
             // 验证 Token
-            if (token == null || !oauthService.validateAccessToken(token)) {
+            if (token == null || !oauthService.authenticate(token)) {
                 log.warn("EXECUTE Token 验证失败: token={}", token != null ? "exists" : "null");
                 return ResponseEntity.ok(GoogleResponse.createErrorResponse(
                     requestId, "authFailure", "访问令牌无效或已过期"
@@ -295,27 +310,52 @@ public class GoogleFulfillmentController {
             @SuppressWarnings("unchecked")
             List<Map<String, Object>> commandList = (List<Map<String, Object>>) payload.get("commands");
             
-            log.info("命令数量: {}", commandList.size());
-            
-            List<GoogleResponse.Command> responses = new ArrayList<>();
+            log.debug("命令数量: {}", commandList.size());
             
+            // 按设备汇总命令：同一设备出现在多个命令组中时，各组命令按请求顺序在该设备的任务中依次执行
+            Map<String, List<Map<String, Object>>> executionsByDevice = new LinkedHashMap<>();
             for (Map<String, Object> commandMap : commandList) {
-                @SuppressWarnings("unchecked")
-                List<Map<String, String>> devices = (List<Map<String, String>>) commandMap.get("devices");
                 @SuppressWarnings("unchecked")
                 List<Map<String, Object>> executions = (List<Map<String, Object>>) commandMap.get("execution");
                 
-                for (Map<String, String> deviceMap : devices) {
-                    String deviceId = deviceMap.get("id");
-                    log.info("处理设备: deviceId={}", deviceId);
-                    
-                    // 执行设备命令
-                    GoogleResponse.Command response = executeDeviceCommands(deviceId, executions);
-                    responses.add(response);
+                Set<String> commandDeviceIds = new LinkedHashSet<>();
+                for (Map<String, String> deviceMap : devicesOf(commandMap)) {
+                    commandDeviceIds.add(deviceMap.get("id"));
+                }
+                for (String deviceId : commandDeviceIds) {
+                    executionsByDevice.computeIfAbsent(deviceId, id -> new ArrayList<>()).addAll(executions);
+                }
+            }
+            
+            // 一次加载所有命令涉及的设备
+            Map<String, Device> loadedDevices = deviceService.findDevicesByDeviceIds(requestPrincipal.getUserId(), executionsByDevice.keySet());
+            
+            // 不存在或离线的设备直接返回错误，其余设备各自提交到执行线程池并行执行
+            List<GoogleResponse.Command> responses = new ArrayList<>(executionsByDevice.size());
+            List<DeviceExecution> pending = new ArrayList<>(executionsByDevice.size());
+            for (Map.Entry<String, List<Map<String, Object>>> entry : executionsByDevice.entrySet()) {
+                String deviceId = entry.getKey();
+                Device device = loadedDevices.get(deviceId);
+                GoogleResponse.Command error = checkDevice(deviceId, device);
+                if (error != null) {
+                    responses.add(error);
+                    continue;
                 }
+                pending.add(submit(device.copy(), entry.getValue()));
             }
             
-            log.info("✓ 命令执行完成: commandCount={}", responses.size());
+            // 每台设备在各自的时限内等待结果，超时的设备返回 PENDING，执行在后台继续完成
+            List<RequestTiming> taskTimings = new ArrayList<>(pending.size());
+            for (DeviceExecution execution : pending) {
+                responses.add(await(execution));
+                if (execution.timing() != null && execution.result().isDone()) {
+                    taskTimings.add(execution.timing());
+                }
+            }
+            // 已完成任务的数据库等阶段耗时合并回请求，未完成的任务不计入
+            RequestTiming.joinParallel(taskTimings);
+            
+            log.debug("✓ 命令执行完成: commandCount={}", responses.size());
             
             return ResponseEntity.ok(GoogleResponse.createExecuteResponse(requestId, responses));
             
@@ -327,37 +367,93 @@ public class GoogleFulfillmentController {
         }
     }
     
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, String>> devicesOf(Map<String, Object> commandMap) {
+        return (List<Map<String, String>>) commandMap.get("devices");
+    }
+    
     /**
-     * 执行设备命令
+     * 检查命令指定的设备是否存在且在线
      * 
      * @param deviceId 设备ID
-     * @param executions 命令列表
-     * @return 命令执行结果
+     * @param device 已加载的设备，不存在时为 null
+     * @return 不存在或离线时的错误结果，可执行时返回 null
      */
-    private GoogleResponse.Command executeDeviceCommands(String deviceId, List<Map<String, Object>> executions) {
+    private GoogleResponse.Command checkDevice(String deviceId, Device device) {
+        log.debug("处理设备: deviceId={}", deviceId);
+        
         // 检查设备是否存在
-        Optional<Device> deviceOpt = deviceService.findDeviceByDeviceId(deviceId);
-        if (!deviceOpt.isPresent()) {
+        if (device == null) {
             log.warn("设备不存在: deviceId={}", deviceId);
-            return GoogleResponse.Command.builder()
-                .ids(List.of(deviceId))
-                .status("ERROR")
-                .errorCode("deviceNotFound")
-                .build();
+            return statusCommand(deviceId, "ERROR", "deviceNotFound");
         }
         
-        Device device = deviceOpt.get();
-        
         // 检查设备是否在线
         if (!"online".equals(device.getStatus())) {
             log.warn("设备离线: deviceId={}, status={}", deviceId, device.getStatus());
-            return GoogleResponse.Command.builder()
-                .ids(List.of(deviceId))
-                .status("ERROR")
-                .errorCode("deviceOffline")
-                .build();
+            return statusCommand(deviceId, "ERROR", "deviceOffline");
         }
         
+        return null;
+    }
+    
+    /**
+     * 提交一台设备的命令执行任务，时限从提交时开始计算
+     * 任务只修改传入的设备副本，不与其他任务共享设备对象；
+     * 执行线程池饱和时不回退到请求线程，直接返回 transientError
+     */
+    private DeviceExecution submit(Device device, List<Map<String, Object>> executions) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deviceTimeoutMs);
+        RequestTiming timing = RequestTiming.fork();
+        CompletableFuture<GoogleResponse.Command> result;
+        try {
+            result = CompletableFuture.supplyAsync(
+                    () -> RequestTiming.runWith(timing, () -> executeDeviceCommands(device, executions)),
+                    googleExecuteExecutor);
+        } catch (RejectedExecutionException e) {
+            result = CompletableFuture.completedFuture(statusCommand(device.getDeviceId(), "ERROR", "transientError"));
+        }
+        return new DeviceExecution(device.getDeviceId(), deadline, result, timing);
+    }
+    
+    /**
+     * 在设备的时限内等待执行结果
+     * 超时返回 PENDING，状态变化由状态推送上报
+     */
+    private GoogleResponse.Command await(DeviceExecution execution) {
+        try {
+            return execution.result().get(Math.max(execution.deadline() - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("设备命令执行超时，返回 PENDING: deviceId={}, timeoutMs={}", execution.deviceId(), deviceTimeoutMs);
+            return statusCommand(execution.deviceId(), "PENDING", null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return statusCommand(execution.deviceId(), "PENDING", null);
+        } catch (ExecutionException e) {
+            log.error("设备命令执行失败: deviceId={}", execution.deviceId(), e.getCause());
+            return statusCommand(execution.deviceId(), "ERROR", "hardError");
+        }
+    }
+    
+    private static GoogleResponse.Command statusCommand(String deviceId, String status, String errorCode) {
+        return GoogleResponse.Command.builder()
+            .ids(List.of(deviceId))
+            .status(status)
+            .errorCode(errorCode)
+            .build();
+    }
+    
+    /**
+     * 对一台在线设备依次执行命令
+     * 在 googleExecuteExecutor 中执行
+     * 
+     * @param device 设备副本
+     * @param executions 命令列表
+     * @return 命令执行结果
+     */
+    private GoogleResponse.Command executeDeviceCommands(Device device, List<Map<String, Object>> executions) {
+        String deviceId = device.getDeviceId();
+        
         // 执行命令
         Map<String, Object> states = new HashMap<>();
         boolean success = true;
@@ -367,10 +463,10 @@ public class GoogleFulfillmentController {
             @SuppressWarnings("unchecked")
             Map<String, Object> params = (Map<String, Object>) execution.get("params");
             
-            log.info("执行命令: deviceId={}, command={}", deviceId, command);
+            log.debug("执行命令: deviceId={}, command={}", deviceId, command);
             
             try {
-                boolean commandSuccess = executeCommand(deviceId, device, command, params, states);
+                boolean commandSuccess = executeCommand(device, command, params, states);
                 if (!commandSuccess) {
                     success = false;
                 }
@@ -380,54 +476,59 @@ public class GoogleFulfillmentController {
             }
         }
         
-        if (success) {
-            states.put("online", true);
-            log.info("✓ 设备命令执行成功: deviceId={}", deviceId);
-            return GoogleResponse.Command.builder()
-                .ids(List.of(deviceId))
-                .status("SUCCESS")
-                .states(states)
-                .build();
-        } else {
+        if (!success) {
             log.warn("设备命令执行失败: deviceId={}", deviceId);
-            return GoogleResponse.Command.builder()
-                .ids(List.of(deviceId))
-                .status("ERROR")
-                .errorCode("hardError")
-                .build();
+            return statusCommand(deviceId, "ERROR", "hardError");
         }
+        
+        states.put("online", true);
+        log.debug("✓ 设备命令执行成功: deviceId={}", deviceId);
+        return GoogleResponse.Command.builder()
+            .ids(List.of(deviceId))
+            .status("SUCCESS")
+            .states(states)
+            .build();
     }
     
     /**
-     * 执行单个命令
+     * 一台设备的执行任务
      * 
-     * @param deviceId 设备ID
-     * @param device 设备对象
+     * @param deadline 等待结果的截止时间（System.nanoTime）
+     * @param timing   任务的阶段计时，请求没有计时上下文时为 null
+     */
+    private record DeviceExecution(String deviceId, long deadline, CompletableFuture<GoogleResponse.Command> result,
+                                   RequestTiming timing) {
+    }
+    
+    /**
+     * 对一台设备执行单个命令
+     * 
+     * @param device 设备
      * @param command 命令名称
      * @param params 命令参数
      * @param states 状态映射（输出）
      * @return 是否成功
      */
-    private boolean executeCommand(String deviceId, Device device, String command, 
+    private boolean executeCommand(Device device, String command, 
                                    Map<String, Object> params, Map<String, Object> states) {
         switch (command) {
             case "action.devices.commands.OnOff":
-                return handleOnOffCommand(deviceId, params, states);
+                return handleOnOffCommand(device, params, states);
                 
             case "action.devices.commands.StartStop":
-                return handleStartStopCommand(deviceId, params, states);
+                return handleStartStopCommand(device, params, states);
                 
             case "action.devices.commands.PauseUnpause":
-                return handlePauseUnpauseCommand(deviceId, params, states);
+                return handlePauseUnpauseCommand(device, params, states);
                 
             case "action.devices.commands.Dock":
-                return handleDockCommand(deviceId, states);
+                return handleDockCommand(device, states);
                 
             case "action.devices.commands.SetModes":
-                return handleSetModesCommand(deviceId, params, states);
+                return handleSetModesCommand(device, params, states);
                 
             case "action.devices.commands.Locate":
-                return handleLocateCommand(deviceId, params);
+                return handleLocateCommand(device, params);
                 
             default:
                 log.warn("不支持的命令: command={}", command);
@@ -438,18 +539,18 @@ public class GoogleFulfillmentController {
     /**
      * 处理 OnOff 命令
      */
-    private boolean handleOnOffCommand(String deviceId, Map<String, Object> params, Map<String, Object> states) {
+    private boolean handleOnOffCommand(Device device, Map<String, Object> params, Map<String, Object> states) {
         Boolean on = (Boolean) params.get("on");
         if (on) {
-            deviceService.turnOn(deviceId);
+            deviceService.updatePowerState(device, "on");
             states.put("on", true);
             states.put("isRunning", true);
-            log.info("✓ OnOff 命令执行成功: deviceId={}, on=true", deviceId);
+            log.debug("✓ OnOff 命令执行成功: deviceId={}, on=true", device.getDeviceId());
         } else {
-            deviceService.turnOff(deviceId);
+            deviceService.updatePowerState(device, "off");
             states.put("on", false);
             states.put("isRunning", false);
-            log.info("✓ OnOff 命令执行成功: deviceId={}, on=false", deviceId);
+            log.debug("✓ OnOff 命令执行成功: deviceId={}, on=false", device.getDeviceId());
         }
         return true;
     }
@@ -457,17 +558,17 @@ public class GoogleFulfillmentController {
     /**
      * 处理 StartStop 命令
      */
-    private boolean handleStartStopCommand(String deviceId, Map<String, Object> params, Map<String, Object> states) {
+    private boolean handleStartStopCommand(Device device, Map<String, Object> params, Map<String, Object> states) {
         Boolean start = (Boolean) params.get("start");
         if (start) {
-            deviceService.turnOn(deviceId);
+            deviceService.updatePowerState(device, "on");
             states.put("isRunning", true);
             states.put("isPaused", false);
-            log.info("✓ StartStop 命令执行成功: deviceId={}, start=true", deviceId);
+            log.debug("✓ StartStop 命令执行成功: deviceId={}, start=true", device.getDeviceId());
         } else {
-            deviceService.turnOff(deviceId);
+            deviceService.updatePowerState(device, "off");
             states.put("isRunning", false);
-            log.info("✓ StartStop 命令执行成功: deviceId={}, start=false", deviceId);
+            log.debug("✓ StartStop 命令执行成功: deviceId={}, start=false", device.getDeviceId());
         }
         return true;
     }
@@ -475,27 +576,27 @@ public class GoogleFulfillmentController {
     /**
      * 处理 PauseUnpause 命令
      */
-    private boolean handlePauseUnpauseCommand(String deviceId, Map<String, Object> params, Map<String, Object> states) {
+    private boolean handlePauseUnpauseCommand(Device device, Map<String, Object> params, Map<String, Object> states) {
         Boolean pause = (Boolean) params.get("pause");
         states.put("isPaused", pause);
-        log.info("✓ PauseUnpause 命令执行成功: deviceId={}, pause={}", deviceId, pause);
+        log.debug("✓ PauseUnpause 命令执行成功: deviceId={}, pause={}", device.getDeviceId(), pause);
         return true;
     }
     
     /**
      * 处理 Dock 命令
      */
-    private boolean handleDockCommand(String deviceId, Map<String, Object> states) {
+    private boolean handleDockCommand(Device device, Map<String, Object> states) {
         states.put("isDocked", true);
         states.put("isRunning", false);
-        log.info("✓ Dock 命令执行成功: deviceId={}", deviceId);
+        log.debug("✓ Dock 命令执行成功: deviceId={}", device.getDeviceId());
         return true;
     }
     
     /**
      * 处理 SetModes 命令
      */
-    private boolean handleSetModesCommand(String deviceId, Map<String, Object> params, Map<String, Object> states) {
+    private boolean handleSetModesCommand(Device device, Map<String, Object> params, Map<String, Object> states) {
         @SuppressWarnings("unchecked")
         Map<String, String> updateModeSettings = (Map<String, String>) params.get("updateModeSettings");
         
@@ -512,21 +613,21 @@ public class GoogleFulfillmentController {
             return false;
         }
         
-        deviceService.setMode(deviceId, mode);
+        deviceService.updateWorkMode(device, mode);
         Map<String, String> modeSettings = new HashMap<>();
         modeSettings.put("clean_mode", mode);
         states.put("currentModeSettings", modeSettings);
-        log.info("✓ SetModes 命令执行成功: deviceId={}, mode={}", deviceId, mode);
+        log.debug("✓ SetModes 命令执行成功: deviceId={}, mode={}", device.getDeviceId(), mode);
         return true;
     }
     
     /**
      * 处理 Locate 命令
      */
-    private boolean handleLocateCommand(String deviceId, Map<String, Object> params) {
+    private boolean handleLocateCommand(Device device, Map<String, Object> params) {
         // 定位设备（播放声音）
         Boolean silent = params != null ? (Boolean) params.get("silent") : false;
-        log.info("✓ Locate 命令执行成功: deviceId={}, silent={}", deviceId, silent);
+        log.debug("✓ Locate 命令执行成功: deviceId={}, silent={}", device.getDeviceId(), silent);
         return true;
     }
     
@@ -551,14 +652,14 @@ public class GoogleFulfillmentController {
     private ResponseEntity<?> handleDisconnect(GoogleRequest request, String token) {
         String requestId = request.getRequestId();
         
-        log.info("=== 处理账号解绑 ===");
-        log.info("RequestId: {}", requestId);
+        log.debug("=== 处理账号解绑 ===");
+        log.debug("RequestId: {}", requestId);
         
         try {
             // 这里可以添加清理逻辑，如删除 token、清理缓存等
             // TODO: 实现 token 清理逻辑
             
-            log.info("✓ 账号解绑成功: requestId={}", requestId);
+            log.debug("✓ 账号解绑成功: requestId={}", requestId);
             
             return ResponseEntity.ok(GoogleResponse.createDisconnectResponse(requestId));
             
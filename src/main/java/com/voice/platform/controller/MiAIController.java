@@ -1,9 +1,13 @@
 package com.voice.platform.controller;
 
+import com.voice.platform.capability.DeviceCapabilityRegistry;
 import com.voice.platform.dto.MiAIRequest;
 import com.voice.platform.dto.MiAIResponse;
+import com.voice.platform.dto.RawJson;
 import com.voice.platform.model.Device;
-import com.voice.platform.repository.DeviceRepository;
+import com.voice.platform.security.RequestPrincipal;
+import com.voice.platform.service.DeviceService;
+import com.voice.platform.service.DiscoveryCache;
 import com.voice.platform.service.OAuthService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -45,7 +49,16 @@ public class MiAIController {
     private OAuthService oauthService;
     
     @Autowired
-    private DeviceRepository deviceRepository;
+    private RequestPrincipal requestPrincipal;
+    
+    @Autowired
+    private DeviceService deviceService;
+    
+    @Autowired
+    private DiscoveryCache discoveryCache;
+    
+    @Autowired
+    private DeviceCapabilityRegistry capabilityRegistry;
     
     /**
      * 设备发现接口
@@ -58,30 +71,27 @@ public class MiAIController {
     public ResponseEntity<?> discovery(
             @RequestHeader("Authorization") String authorization) {
         
-        log.info("=== 收到小爱同学设备发现请求 ===");
+        log.debug("=== 收到小爱同学设备发现请求 ===");
         
         try {
             // 验证 Token
             String accessToken = extractToken(authorization);
-            if (accessToken == null || !oauthService.validateAccessToken(accessToken)) {
+            if (accessToken == null || !oauthService.authenticate(accessToken)) {
                 log.warn("Token 验证失败: token={}", accessToken != null ? "exists" : "null");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(MiAIResponse.unauthorized());
             }
             
-            // 获取用户ID（简化处理，实际应从 token 获取）
-            // TODO: 从 token 中解析真实的 userId
-            Long userId = 1L;
+            // 当前请求的用户 ID（由令牌认证解析）
+            Long userId = requestPrincipal.getUserId();
             
-            log.info("开始设备发现: userId={}", userId);
+            log.debug("开始设备发现: userId={}", userId);
             
-            // 查询用户设备
-            List<Device> devices = deviceRepository.findByUserId(userId);
+            // 设备列表（按用户缓存，未命中时查询设备并按能力模板渲染）
+            RawJson deviceList = discoveryCache.get(DiscoveryCache.Platform.MIAI, userId,
+                    () -> capabilityRegistry.render(DiscoveryCache.Platform.MIAI, deviceService.findDevicesByUserId(userId)));
             
-            // 构建设备列表
-            List<Map<String, Object>> deviceList = buildDeviceList(devices);
-            
-            log.info("✓ 设备发现完成: userId={}, deviceCount={}", userId, deviceList.size());
+            log.debug("✓ 设备发现完成: userId={}, deviceCount={}", userId, deviceList.size());
             
             return ResponseEntity.ok(MiAIResponse.discoveryResponse(deviceList));
             
@@ -92,49 +102,6 @@ public class MiAIController {
         }
     }
     
-    /**
-     * 构建设备列表
-     * 
-     * @param devices 设备实体列表
-     * @return 设备信息列表
-     */
-    private List<Map<String, Object>> buildDeviceList(List<Device> devices) {
-        List<Map<String, Object>> deviceList = new ArrayList<>();
-        
-        for (Device device : devices) {
-            Map<String, Object> deviceInfo = new HashMap<>();
-            deviceInfo.put("device_id", device.getDeviceId());
-            deviceInfo.put("device_name", device.getDeviceName());
-            
-            // 小爱的设备类型命名：使用小写+连字符
-            if ("robot_cleaner".equals(device.getDeviceType())) {
-                deviceInfo.put("device_type", "vacuum-cleaner");
-            } else {
-                deviceInfo.put("device_type", device.getDeviceType());
-            }
-            
-            deviceInfo.put("online", "online".equals(device.getStatus()));
-            deviceInfo.put("room", "客厅");
-            
-            // 设备属性
-            Map<String, Object> properties = new HashMap<>();
-            properties.put("power_state", device.getPowerState());
-            properties.put("work_mode", device.getWorkMode());
-            properties.put("battery_level", device.getBatteryLevel());
-            deviceInfo.put("properties", properties);
-            
-            // 支持的操作（小爱使用小写+连字符）
-            List<String> actions = Arrays.asList(
-                "turn-on", "turn-off", "pause", "continue", "set-mode", "query"
-            );
-            deviceInfo.put("actions", actions);
-            
-            deviceList.add(deviceInfo);
-        }
-        
-        return deviceList;
-    }
-    
     /**
      * 设备控制接口
      * POST /miai/control
@@ -152,15 +119,15 @@ public class MiAIController {
         String deviceId = request.getDeviceId();
         String requestId = request.getRequestId();
         
-        log.info("=== 收到小爱同学设备控制请求 ===");
-        log.info("RequestId: {}", requestId);
-        log.info("Intent: {}", intent);
-        log.info("DeviceId: {}", deviceId);
+        log.debug("=== 收到小爱同学设备控制请求 ===");
+        log.debug("RequestId: {}", requestId);
+        log.debug("Intent: {}", intent);
+        log.debug("DeviceId: {}", deviceId);
         
         try {
             // 验证 Token
             String accessToken = extractToken(authorization);
-            if (accessToken == null || !oauthService.validateAccessToken(accessToken)) {
+            if (accessToken == null || !oauthService.authenticate(accessToken)) {
                 log.warn("Token 验证失败: token={}", accessToken != null ? "exists" : "null");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(MiAIResponse.unauthorized());
@@ -177,17 +144,8 @@ public class MiAIController {
                 return ResponseEntity.ok(MiAIResponse.badRequest("缺少 deviceId 参数"));
             }
             
-            // 查询设备
-            Optional<Device> deviceOpt = deviceRepository.findByDeviceId(deviceId);
-            if (!deviceOpt.isPresent()) {
-                log.warn("设备不存在: deviceId={}", deviceId);
-                return ResponseEntity.ok(MiAIResponse.deviceNotFound());
-            }
-            
-            Device device = deviceOpt.get();
-            
-            // 执行控制操作
-            MiAIResponse response = executeControl(intent, device, request);
+            // 执行控制操作，设备是否存在由更新结果判断
+            MiAIResponse response = executeControl(intent, deviceId, requestPrincipal.getUserId(), request);
             
             return ResponseEntity.ok(response);
             
@@ -201,45 +159,56 @@ public class MiAIController {
     
     /**
      * 执行具体的控制操作
+     * 开关机和设置模式直接按设备 ID 更新，不预先查询设备
      * 
      * @param intent 操作意图
-     * @param device 设备对象
+     * @param deviceId 设备ID
+     * @param userId 当前请求的用户 ID
      * @param request 请求对象
      * @return 控制响应
      */
-    private MiAIResponse executeControl(String intent, Device device, MiAIRequest request) {
+    private MiAIResponse executeControl(String intent, String deviceId, Long userId, MiAIRequest request) {
         MiAIResponse response;
-        String deviceId = device.getDeviceId();
         
         switch (intent) {
             case "turn-on":
-                device.setPowerState("on");
-                deviceRepository.save(device);
+                if (!deviceService.updatePowerState(deviceId, userId, "on")) {
+                    log.warn("设备不存在: deviceId={}", deviceId);
+                    return MiAIResponse.deviceNotFound();
+                }
                 response = MiAIResponse.success();
-                log.info("✓ 设备开机成功: deviceId={}, deviceName={}", 
-                        deviceId, device.getDeviceName());
+                log.debug("✓ 设备开机成功: deviceId={}", deviceId);
                 break;
                 
             case "turn-off":
-                device.setPowerState("off");
-                deviceRepository.save(device);
+                if (!deviceService.updatePowerState(deviceId, userId, "off")) {
+                    log.warn("设备不存在: deviceId={}", deviceId);
+                    return MiAIResponse.deviceNotFound();
+                }
                 response = MiAIResponse.success();
-                log.info("✓ 设备关机成功: deviceId={}, deviceName={}", 
-                        deviceId, device.getDeviceName());
+                log.debug("✓ 设备关机成功: deviceId={}", deviceId);
                 break;
                 
             case "pause":
+                if (!deviceService.findDeviceByDeviceId(deviceId, userId).isPresent()) {
+                    log.warn("设备不存在: deviceId={}", deviceId);
+                    return MiAIResponse.deviceNotFound();
+                }
                 response = MiAIResponse.success();
-                log.info("✓ 设备暂停成功: deviceId={}", deviceId);
+                log.debug("✓ 设备暂停成功: deviceId={}", deviceId);
                 break;
                 
             case "continue":
+                if (!deviceService.findDeviceByDeviceId(deviceId, userId).isPresent()) {
+                    log.warn("设备不存在: deviceId={}", deviceId);
+                    return MiAIResponse.deviceNotFound();
+                }
                 response = MiAIResponse.success();
-                log.info("✓ 设备继续成功: deviceId={}", deviceId);
+                log.debug("✓ 设备继续成功: deviceId={}", deviceId);
                 break;
                 
             case "set-mode":
-                response = handleSetMode(device, request);
+                response = handleSetMode(deviceId, userId, request);
                 break;
                 
             default:
@@ -253,11 +222,12 @@ public class MiAIController {
     /**
      * 处理设置模式操作
      * 
-     * @param device 设备对象
+     * @param deviceId 设备ID
+     * @param userId 当前请求的用户 ID
      * @param request 请求对象
      * @return 控制响应
      */
-    private MiAIResponse handleSetMode(Device device, MiAIRequest request) {
+    private MiAIResponse handleSetMode(String deviceId, Long userId, MiAIRequest request) {
         if (request.getParams() == null || !request.getParams().containsKey("mode")) {
             log.warn("模式参数缺失");
             return MiAIResponse.badRequest("缺少 mode 参数");
@@ -271,9 +241,11 @@ public class MiAIController {
                     "。支持的模式: auto, spot, edge");
         }
         
-        device.setWorkMode(mode);
-        deviceRepository.save(device);
-        log.info("✓ 模式设置成功: deviceId={}, mode={}", device.getDeviceId(), mode);
+        if (!deviceService.updateWorkMode(deviceId, userId, mode)) {
+            log.warn("设备不存在: deviceId={}", deviceId);
+            return MiAIResponse.deviceNotFound();
+        }
+        log.debug("✓ 模式设置成功: deviceId={}, mode={}", deviceId, mode);
         
         return MiAIResponse.success();
     }
@@ -304,14 +276,14 @@ public class MiAIController {
         String deviceId = request.getDeviceId();
         String requestId = request.getRequestId();
         
-        log.info("=== 收到小爱同学设备查询请求 ===");
-        log.info("RequestId: {}", requestId);
-        log.info("DeviceId: {}", deviceId);
+        log.debug("=== 收到小爱同学设备查询请求 ===");
+        log.debug("RequestId: {}", requestId);
+        log.debug("DeviceId: {}", deviceId);
         
         try {
             // 验证 Token
             String accessToken = extractToken(authorization);
-            if (accessToken == null || !oauthService.validateAccessToken(accessToken)) {
+            if (accessToken == null || !oauthService.authenticate(accessToken)) {
                 log.warn("Token 验证失败: token={}", accessToken != null ? "exists" : "null");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(MiAIResponse.unauthorized());
@@ -324,7 +296,7 @@ public class MiAIController {
             }
             
             // 查询设备
-            Optional<Device> deviceOpt = deviceRepository.findByDeviceId(deviceId);
+            Optional<Device> deviceOpt = deviceService.findDeviceByDeviceId(deviceId, requestPrincipal.getUserId());
             if (!deviceOpt.isPresent()) {
                 log.warn("设备不存在: deviceId={}", deviceId);
                 return ResponseEntity.ok(MiAIResponse.deviceNotFound());
@@ -335,7 +307,7 @@ public class MiAIController {
             // 构建设备状态
             Map<String, Object> status = buildDeviceStatus(device);
             
-            log.info("✓ 设备查询成功: deviceId={}, powerState={}, batteryLevel={}", 
+            log.debug("✓ 设备查询成功: deviceId={}, powerState={}, batteryLevel={}", 
                     deviceId, device.getPowerState(), device.getBatteryLevel());
             
             return ResponseEntity.ok(MiAIResponse.statusResponse(status));
@@ -373,7 +345,7 @@ public class MiAIController {
      */
     @GetMapping("/health")
     public ResponseEntity<?> health() {
-        log.info("=== 收到小爱同学健康检查请求 ===");
+        log.debug("=== 收到小爱同学健康检查请求 ===");
         
         try {
             Map<String, Object> health = new HashMap<>();
@@ -381,7 +353,7 @@ public class MiAIController {
             health.put("platform", "xiaomi-miai");
             health.put("timestamp", System.currentTimeMillis());
             
-            log.info("✓ 健康检查完成: status=ok");
+            log.debug("✓ 健康检查完成: status=ok");
             
             return ResponseEntity.ok(MiAIResponse.success(health));
             
@@ -2,6 +2,7 @@ package com.voice.platform.controller;
 
 import com.voice.platform.model.OAuthClient;
 import com.voice.platform.service.OAuth2AuthorizationService;
+import com.voice.platform.util.TokenHasher;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
@@ -241,7 +242,7 @@ public class OAuth2AuthorizationController {
             redirectUrl.append("&state=").append(URLEncoder.encode(state, StandardCharsets.UTF_8));
         }
         
-        log.info("重定向到: {}", redirectUrl);
+        log.info("重定向到: {}, code={}", redirectUri, TokenHasher.fingerprint(code));
         
         return "redirect:" + redirectUrl.toString();
     }
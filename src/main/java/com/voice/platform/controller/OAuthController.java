@@ -2,6 +2,7 @@ package com.voice.platform.controller;
 
 import com.voice.platform.dto.TokenResponse;
 import com.voice.platform.service.OAuthService;
+import com.voice.platform.util.TokenHasher;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -62,7 +63,7 @@ public class OAuthController {
             String decodedUri = URLDecoder.decode(redirectUri, "UTF-8");
             String redirectUrl = decodedUri + "&code=" + code + "&state=" + state;
             
-            log.info("重定向到: {}", redirectUrl);
+            log.info("重定向到: {}, code={}", decodedUri, TokenHasher.fingerprint(code));
             response.sendRedirect(redirectUrl);
         } else {
             response.sendRedirect(redirectUri + "?error=access_denied&state=" + state);
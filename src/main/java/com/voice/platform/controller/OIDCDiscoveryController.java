@@ -1,13 +1,18 @@
 package com.voice.platform.controller;
 
 import com.voice.platform.config.JwtConfig;
+import com.voice.platform.security.JwtKeyRing;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * OIDC 发现端点控制器
@@ -20,6 +25,12 @@ public class OIDCDiscoveryController {
     @Autowired
     private JwtConfig jwtConfig;
     
+    @Autowired
+    private JwtKeyRing jwtKeyRing;
+    
+    @Value("${oauth2.jwt.signing.jwks-max-age-seconds:300}")
+    private long jwksMaxAgeSeconds;
+    
     /**
      * OIDC 发现端点
      * GET /.well-known/openid-configuration
@@ -108,26 +119,16 @@ public class OIDCDiscoveryController {
      * JWKS 端点（JSON Web Key Set）
      * GET /.well-known/jwks.json
      * 
-     * 注意：这里返回空的 JWKS，因为我们使用对称密钥（HS256）
-     * 如果使用非对称密钥（RS256），需要返回公钥
+     * 返回密钥环中全部签名公钥，下游服务按 JWT 头中的 kid 选择公钥在本地验证令牌；
+     * 响应体在密钥变化时预先渲染，携带 ETag，If-None-Match 匹配时返回 304
      */
     @GetMapping("/.well-known/jwks.json")
-    public ResponseEntity<?> jwks() {
-        log.info("JWKS 端点被访问");
-        
-        Map<String, Object> jwks = new HashMap<>();
-        jwks.put("keys", new ArrayList<>());
-        
-        // 如果使用 RS256，需要添加公钥信息
-        // 示例：
-        // {
-        //   "kty": "RSA",
-        //   "use": "sig",
-        //   "kid": "key-id",
-        //   "n": "modulus",
-        //   "e": "exponent"
-        // }
-        
-        return ResponseEntity.ok(jwks);
+    public ResponseEntity<byte[]> jwks() {
+        JwtKeyRing.JwkSet jwks = jwtKeyRing.jwks();
+        return ResponseEntity.ok()
+                .eTag(jwks.etag())
+                .cacheControl(CacheControl.maxAge(jwksMaxAgeSeconds, TimeUnit.SECONDS).cachePublic())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(jwks.body());
     }
 }
@@ -83,6 +83,17 @@ public class DuerOSResponse {
      * 创建设备发现响应
      */
     public static DuerOSResponse discoveryResponse(String messageId, List<Map<String, Object>> appliances) {
+        return discoveryResponse(messageId, (Object) appliances);
+    }
+    
+    /**
+     * 创建设备发现响应（设备列表为缓存的预序列化片段）
+     */
+    public static DuerOSResponse discoveryResponse(String messageId, RawJson appliances) {
+        return discoveryResponse(messageId, (Object) appliances);
+    }
+    
+    private static DuerOSResponse discoveryResponse(String messageId, Object appliances) {
         DuerOSResponse response = success(
             "DuerOS.ConnectedHome.Discovery",
             "DiscoverAppliancesResponse",
@@ -74,6 +74,16 @@ public class MiAIResponse {
         return success(data);
     }
     
+    /**
+     * 创建设备发现响应（设备列表为缓存的预序列化片段）
+     */
+    public static MiAIResponse discoveryResponse(RawJson devices) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("devices", devices);
+        data.put("count", devices.size());
+        return success(data);
+    }
+    
     /**
      * 创建设备状态响应
      */
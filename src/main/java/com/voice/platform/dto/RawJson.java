@@ -0,0 +1,63 @@
+package com.voice.platform.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 预序列化的 JSON 片段
+ * 序列化器以 writeRawValue 按原样拷贝渲染时的 UTF-8 字节，不再遍历对象树
+ */
+@JsonSerialize(using = RawJson.Serializer.class)
+public final class RawJson {
+
+    private final SerializedString json;
+
+    private final int size;
+
+    /**
+     * @param utf8 JSON 的 UTF-8 编码
+     * @param size 片段包含的元素个数（数组片段为数组长度）
+     */
+    public RawJson(byte[] utf8, int size) {
+        this.json = new Utf8String(utf8);
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return json.getValue();
+    }
+
+    static class Serializer extends StdSerializer<RawJson> {
+
+        Serializer() {
+            super(RawJson.class);
+        }
+
+        @Override
+        public void serialize(RawJson value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeRawValue(value.json);
+        }
+    }
+
+    /**
+     * 以渲染结果预置 UTF-8 形式的 SerializedString，写出时不再重新编码
+     */
+    private static final class Utf8String extends SerializedString {
+
+        Utf8String(byte[] utf8) {
+            super(new String(utf8, StandardCharsets.UTF_8));
+            _unquotedUTF8Ref = utf8;
+        }
+    }
+}
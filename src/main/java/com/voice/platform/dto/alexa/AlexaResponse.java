@@ -1,5 +1,6 @@
 package com.voice.platform.dto.alexa;
 
+import com.voice.platform.dto.RawJson;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -189,6 +190,17 @@ public class AlexaResponse {
      * 创建设备发现响应
      */
     public static AlexaResponse createDiscoveryResponse(String messageId, List<DiscoveredEndpoint> endpoints) {
+        return discoveryResponse(messageId, endpoints);
+    }
+    
+    /**
+     * 创建设备发现响应（设备列表为缓存的预序列化片段）
+     */
+    public static AlexaResponse createDiscoveryResponse(String messageId, RawJson endpoints) {
+        return discoveryResponse(messageId, endpoints);
+    }
+    
+    private static AlexaResponse discoveryResponse(String messageId, Object endpoints) {
         Map<String, Object> payload = new HashMap<>();
         payload.put("endpoints", endpoints);
         
@@ -5,10 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Alexa 设备发现端点
@@ -252,115 +249,4 @@ public class DiscoveredEndpoint {
          */
         private List<FriendlyName> friendlyNames;
     }
-    
-    /**
-     * 创建扫地机器人端点
-     */
-    public static DiscoveredEndpoint createVacuumEndpoint(String endpointId, String friendlyName) {
-        List<Capability> capabilities = new ArrayList<>();
-        
-        // 1. Alexa 接口（必需）
-        capabilities.add(Capability.builder()
-            .type("AlexaInterface")
-            .interfaceName("Alexa")
-            .version("3")
-            .build());
-        
-        // 2. PowerController 接口
-        capabilities.add(Capability.builder()
-            .type("AlexaInterface")
-            .interfaceName("Alexa.PowerController")
-            .version("3")
-            .properties(Properties.builder()
-                .supported(List.of(SupportedProperty.builder().name("powerState").build()))
-                .proactivelyReported(true)
-                .retrievable(true)
-                .build())
-            .build());
-        
-        // 3. ModeController 接口（清扫模式）
-        List<SupportedMode> modes = new ArrayList<>();
-        modes.add(SupportedMode.builder()
-            .value("Auto")
-            .modeResources(ModeResources.builder()
-                .friendlyNames(List.of(FriendlyName.builder()
-                    .type("text")
-                    .value(Value.builder()
-                        .text("Auto")
-                        .locale("en-US")
-                        .build())
-                    .build()))
-                .build())
-            .build());
-        modes.add(SupportedMode.builder()
-            .value("Spot")
-            .modeResources(ModeResources.builder()
-                .friendlyNames(List.of(FriendlyName.builder()
-                    .type("text")
-                    .value(Value.builder()
-                        .text("Spot")
-                        .locale("en-US")
-                        .build())
-                    .build()))
-                .build())
-            .build());
-        modes.add(SupportedMode.builder()
-            .value("Edge")
-            .modeResources(ModeResources.builder()
-                .friendlyNames(List.of(FriendlyName.builder()
-                    .type("text")
-                    .value(Value.builder()
-                        .text("Edge")
-                        .locale("en-US")
-                        .build())
-                    .build()))
-                .build())
-            .build());
-        
-        capabilities.add(Capability.builder()
-            .type("AlexaInterface")
-            .interfaceName("Alexa.ModeController")
-            .version("3")
-            .instance("VacuumMode")
-            .properties(Properties.builder()
-                .supported(List.of(SupportedProperty.builder().name("mode").build()))
-                .proactivelyReported(true)
-                .retrievable(true)
-                .build())
-            .capabilityResources(CapabilityResources.builder()
-                .friendlyNames(List.of(FriendlyName.builder()
-                    .type("text")
-                    .value(Value.builder()
-                        .text("Cleaning Mode")
-                        .locale("en-US")
-                        .build())
-                    .build()))
-                .build())
-            .configuration(Configuration.builder()
-                .ordered(false)
-                .supportedModes(modes)
-                .build())
-            .build());
-        
-        // 4. EndpointHealth 接口
-        capabilities.add(Capability.builder()
-            .type("AlexaInterface")
-            .interfaceName("Alexa.EndpointHealth")
-            .version("3")
-            .properties(Properties.builder()
-                .supported(List.of(SupportedProperty.builder().name("connectivity").build()))
-                .proactivelyReported(true)
-                .retrievable(true)
-                .build())
-            .build());
-        
-        return DiscoveredEndpoint.builder()
-            .endpointId(endpointId)
-            .manufacturerName("Smart Home Demo")
-            .friendlyName(friendlyName)
-            .description("Smart Robot Vacuum Cleaner")
-            .displayCategories(List.of("VACUUM_CLEANER"))
-            .capabilities(capabilities)
-            .build();
-    }
 }
@@ -1,5 +1,6 @@
 package com.voice.platform.dto.google;
 
+import com.voice.platform.dto.RawJson;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -46,9 +47,9 @@ public class GoogleResponse {
         
         /**
          * 设备列表（SYNC 响应使用）
-         * 包含用户的所有设备信息
+         * 包含用户的所有设备信息，为 List<GoogleDevice> 或缓存的预序列化片段 RawJson
          */
-        private List<GoogleDevice> deviceList;
+        private Object deviceList;
         
         /**
          * 设备状态映射（QUERY 响应使用）
@@ -205,6 +206,19 @@ public class GoogleResponse {
             .build();
     }
     
+    /**
+     * 创建 SYNC 响应（设备列表为缓存的预序列化片段）
+     */
+    public static GoogleResponse createSyncResponse(String requestId, String agentUserId, RawJson devices) {
+        return GoogleResponse.builder()
+            .requestId(requestId)
+            .payload(Payload.builder()
+                .agentUserId(agentUserId)
+                .deviceList(devices)
+                .build())
+            .build();
+    }
+    
     /**
      * 创建 QUERY 响应
      */
@@ -0,0 +1,20 @@
+package com.voice.platform.event;
+
+/**
+ * 设备状态变化事件
+ * 设备电源状态或工作模式被修改后发布，事务提交后由监听器异步推送到各语音平台
+ *
+ * 按设备 ID 直接更新（不预先查询设备）时不知道修改前的值，修改前的值为 null；
+ * 未修改的字段修改前后都为 null
+ *
+ * @param deviceId      设备 ID
+ * @param userId        设备所属用户 ID
+ * @param oldPowerState 修改前的电源状态
+ * @param newPowerState 修改后的电源状态
+ * @param oldWorkMode   修改前的工作模式
+ * @param newWorkMode   修改后的工作模式
+ */
+public record DeviceStateChangedEvent(String deviceId, Long userId,
+                                      String oldPowerState, String newPowerState,
+                                      String oldWorkMode, String newWorkMode) {
+}
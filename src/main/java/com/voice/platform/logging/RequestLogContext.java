@@ -0,0 +1,79 @@
+package com.voice.platform.logging;
+
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 请求日志上下文
+ * 在 MDC 中记录当前请求的用户和设备，并决定是否输出逐步骤的详细日志：
+ * 按采样率抽中的请求，或涉及标记用户、标记设备的请求，其 DEBUG 日志由 VerboseLogTurboFilter 放行
+ *
+ * 只在 Web 请求线程上生效，异步上报等后台线程调用时为空操作，避免 MDC 残留在线程池中
+ */
+@Component
+public class RequestLogContext {
+
+    public static final String MDC_VERBOSE = "verbose";
+
+    public static final String MDC_USER_ID = "userId";
+
+    public static final String MDC_DEVICE_ID = "deviceId";
+
+    @Value("${request-log.verbose.sample-rate:0}")
+    private double sampleRate;
+
+    @Value("${request-log.verbose.user-ids:}")
+    private Set<Long> flaggedUserIds;
+
+    @Value("${request-log.verbose.device-ids:}")
+    private Set<String> flaggedDeviceIds;
+
+    /**
+     * 请求开始，按采样率决定是否输出详细日志
+     */
+    public void begin() {
+        if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            MDC.put(MDC_VERBOSE, "true");
+        }
+    }
+
+    /**
+     * 请求结束，清理 MDC
+     */
+    public void clear() {
+        MDC.remove(MDC_VERBOSE);
+        MDC.remove(MDC_USER_ID);
+        MDC.remove(MDC_DEVICE_ID);
+    }
+
+    /**
+     * 记录当前请求的用户，标记用户开启详细日志
+     */
+    public void setUserId(Long userId) {
+        if (userId == null || RequestContextHolder.getRequestAttributes() == null) {
+            return;
+        }
+        MDC.put(MDC_USER_ID, userId.toString());
+        if (flaggedUserIds.contains(userId)) {
+            MDC.put(MDC_VERBOSE, "true");
+        }
+    }
+
+    /**
+     * 记录当前请求的设备，标记设备开启详细日志
+     */
+    public void setDeviceId(String deviceId) {
+        if (deviceId == null || RequestContextHolder.getRequestAttributes() == null) {
+            return;
+        }
+        MDC.put(MDC_DEVICE_ID, deviceId);
+        if (flaggedDeviceIds.contains(deviceId)) {
+            MDC.put(MDC_VERBOSE, "true");
+        }
+    }
+}
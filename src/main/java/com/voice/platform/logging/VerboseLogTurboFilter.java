@@ -0,0 +1,30 @@
+package com.voice.platform.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * 详细日志放行过滤器
+ * 当前请求被 RequestLogContext 标记为详细日志时，放行本项目的 DEBUG 日志，不受日志级别限制；
+ * 其余请求仍按配置的级别输出。在 logback-spring.xml 中注册
+ */
+public class VerboseLogTurboFilter extends TurboFilter {
+
+    private static final String BASE_PACKAGE = "com.voice.platform";
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level,
+                              String format, Object[] params, Throwable t) {
+        if (level == null || level.toInt() != Level.DEBUG_INT || !isStarted()) {
+            return FilterReply.NEUTRAL;
+        }
+        if (!logger.getName().startsWith(BASE_PACKAGE)) {
+            return FilterReply.NEUTRAL;
+        }
+        return "true".equals(MDC.get(RequestLogContext.MDC_VERBOSE)) ? FilterReply.ACCEPT : FilterReply.NEUTRAL;
+    }
+}
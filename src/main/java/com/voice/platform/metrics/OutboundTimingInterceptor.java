@@ -0,0 +1,26 @@
+package com.voice.platform.metrics;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * 出站 HTTP 调用计时拦截器
+ * 在请求线程上同步发起的出站调用计入 RequestTiming 的 OUTBOUND 阶段，异步线程上为空操作
+ */
+public class OutboundTimingInterceptor implements ClientHttpRequestInterceptor {
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+                                        ClientHttpRequestExecution execution) throws IOException {
+        long start = RequestTiming.start();
+        try {
+            return execution.execute(request, body);
+        } finally {
+            RequestTiming.stop(RequestTiming.Stage.OUTBOUND, start);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.voice.platform.metrics;
+
+import com.voice.platform.dto.AligenieRequest;
+import com.voice.platform.dto.AligenieResponse;
+import com.voice.platform.dto.DuerOSRequest;
+import com.voice.platform.dto.DuerOSResponse;
+import com.voice.platform.dto.MiAIRequest;
+import com.voice.platform.dto.MiAIResponse;
+import com.voice.platform.dto.alexa.AlexaRequest;
+import com.voice.platform.dto.alexa.AlexaResponse;
+import com.voice.platform.dto.google.GoogleRequest;
+import com.voice.platform.dto.google.GoogleResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+
+/**
+ * 语音平台指标标签提取
+ * 从各平台请求体中取命名空间与指令，从响应体中取业务错误码，写入请求属性供 PlatformMetricsInterceptor 使用
+ */
+@ControllerAdvice(basePackages = "com.voice.platform.controller")
+public class PlatformMetricsAdvice extends RequestBodyAdviceAdapter implements ResponseBodyAdvice<Object> {
+
+    private static final String ERROR_RESPONSE = "ErrorResponse";
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter,
+                                Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        HttpServletRequest request = currentRequest();
+        if (request == null) {
+            return body;
+        }
+
+        if (body instanceof AlexaRequest alexa && alexa.getDirective() != null
+                && alexa.getDirective().getHeader() != null) {
+            PlatformRequestMetrics.setOperation(request,
+                    alexa.getDirective().getHeader().getNamespace(), alexa.getDirective().getHeader().getName());
+        } else if (body instanceof GoogleRequest google && google.getInputs() != null
+                && !google.getInputs().isEmpty() && google.getInputs().get(0).getIntent() != null) {
+            String intent = google.getInputs().get(0).getIntent();
+            int dot = intent.lastIndexOf('.');
+            PlatformRequestMetrics.setOperation(request,
+                    dot > 0 ? intent.substring(0, dot) : intent, intent.substring(dot + 1));
+        } else if (body instanceof AligenieRequest aligenie && aligenie.getHeader() != null) {
+            PlatformRequestMetrics.setOperation(request,
+                    aligenie.getHeader().getNamespace(), aligenie.getHeader().getName());
+        } else if (body instanceof DuerOSRequest dueros && dueros.getHeader() != null) {
+            PlatformRequestMetrics.setOperation(request,
+                    dueros.getHeader().getNamespace(), dueros.getHeader().getName());
+        } else if (body instanceof MiAIRequest miai) {
+            PlatformRequestMetrics.setOperation(request, null, miai.getIntent());
+        }
+        return body;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (body != null && request instanceof ServletServerHttpRequest servletRequest) {
+            PlatformRequestMetrics.setErrorCode(servletRequest.getServletRequest(), errorCode(body));
+        }
+        return body;
+    }
+
+    /**
+     * 提取各平台响应中的业务错误码，成功响应返回 null
+     */
+    private String errorCode(Object body) {
+        if (body instanceof AlexaResponse alexa) {
+            if (alexa.getEvent() != null && alexa.getEvent().getHeader() != null
+                    && ERROR_RESPONSE.equals(alexa.getEvent().getHeader().getName())) {
+                return payloadValue(alexa.getEvent().getPayload(), "type");
+            }
+        } else if (body instanceof GoogleResponse google) {
+            if (google.getPayload() != null) {
+                return google.getPayload().getErrorCode();
+            }
+        } else if (body instanceof AligenieResponse aligenie) {
+            if (aligenie.getHeader() != null && ERROR_RESPONSE.equals(aligenie.getHeader().getName())) {
+                return payloadValue(aligenie.getPayload(), "errorCode");
+            }
+        } else if (body instanceof DuerOSResponse dueros) {
+            if (dueros.getHeader() != null && ERROR_RESPONSE.equals(dueros.getHeader().getName())) {
+                return payloadValue(dueros.getPayload(), "errorCode");
+            }
+        } else if (body instanceof MiAIResponse miai) {
+            if (miai.getCode() != null && miai.getCode() != 0) {
+                return String.valueOf(miai.getCode());
+            }
+        }
+        return null;
+    }
+
+    private String payloadValue(Map<String, Object> payload, String key) {
+        Object value = payload != null ? payload.get(key) : null;
+        return value != null ? value.toString() : "unknown";
+    }
+
+    private HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servletAttributes
+                ? servletAttributes.getRequest() : null;
+    }
+}
@@ -0,0 +1,65 @@
+package com.voice.platform.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * 语音平台请求计时拦截器
+ * 请求开始时记录时间，结束时按平台、指令、结果和错误码记录耗时
+ */
+@Component
+public class PlatformMetricsInterceptor implements HandlerInterceptor {
+
+    @Autowired
+    private PlatformRequestMetrics platformRequestMetrics;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(PlatformRequestMetrics.ATTR_START, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        Object start = request.getAttribute(PlatformRequestMetrics.ATTR_START);
+        if (!(start instanceof Long)) {
+            return;
+        }
+
+        String[] path = request.getRequestURI().substring(request.getContextPath().length()).split("/");
+        String platform = path.length > 1 ? path[1] : PlatformRequestMetrics.NONE;
+        String operation = path.length > 2 ? path[2] : PlatformRequestMetrics.NONE;
+
+        String namespace = attribute(request, PlatformRequestMetrics.ATTR_NAMESPACE, operation);
+        String directive = attribute(request, PlatformRequestMetrics.ATTR_DIRECTIVE, operation);
+        String errorCode = attribute(request, PlatformRequestMetrics.ATTR_ERROR_CODE, PlatformRequestMetrics.NONE);
+        if (ex != null) {
+            errorCode = ex.getClass().getSimpleName();
+        }
+
+        platformRequestMetrics.record(platform, namespace, directive,
+                outcome(response.getStatus(), errorCode, ex), errorCode, System.nanoTime() - (Long) start);
+    }
+
+    private String outcome(int status, String errorCode, Exception ex) {
+        if (ex != null || status >= 500) {
+            return "SERVER_ERROR";
+        }
+        if (status >= 400) {
+            return "CLIENT_ERROR";
+        }
+        if (!PlatformRequestMetrics.NONE.equals(errorCode)) {
+            return "ERROR";
+        }
+        return "SUCCESS";
+    }
+
+    private String attribute(HttpServletRequest request, String name, String defaultValue) {
+        Object value = request.getAttribute(name);
+        return value != null ? value.toString() : defaultValue;
+    }
+}
@@ -0,0 +1,83 @@
+package com.voice.platform.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 语音平台请求耗时指标
+ * 指标 voice.platform.requests，按 platform / namespace / directive / outcome / error_code 分组，
+ * 发布百分位直方图，可通过 /actuator/prometheus 采集
+ *
+ * namespace、directive、error_code 取自请求和响应内容，每个标签最多保留 MAX_TAG_VALUES 个取值，防止标签基数失控
+ */
+@Component
+public class PlatformRequestMetrics {
+
+    public static final String METRIC_NAME = "voice.platform.requests";
+
+    static final String ATTR_START = PlatformRequestMetrics.class.getName() + ".start";
+    static final String ATTR_NAMESPACE = PlatformRequestMetrics.class.getName() + ".namespace";
+    static final String ATTR_DIRECTIVE = PlatformRequestMetrics.class.getName() + ".directive";
+    static final String ATTR_ERROR_CODE = PlatformRequestMetrics.class.getName() + ".errorCode";
+
+    static final String NONE = "none";
+
+    private static final int MAX_TAG_VALUES = 100;
+
+    private final MeterRegistry registry;
+
+    public PlatformRequestMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        registry.config()
+                .meterFilter(MeterFilter.maximumAllowableTags(METRIC_NAME, "namespace", MAX_TAG_VALUES, MeterFilter.deny()))
+                .meterFilter(MeterFilter.maximumAllowableTags(METRIC_NAME, "directive", MAX_TAG_VALUES, MeterFilter.deny()))
+                .meterFilter(MeterFilter.maximumAllowableTags(METRIC_NAME, "error_code", MAX_TAG_VALUES, MeterFilter.deny()));
+    }
+
+    /**
+     * 记录一次平台请求
+     */
+    public void record(String platform, String namespace, String directive, String outcome,
+                       String errorCode, long durationNanos) {
+        Timer.builder(METRIC_NAME)
+                .description("语音平台请求处理耗时")
+                .tags(Tags.of(
+                        "platform", platform,
+                        "namespace", namespace,
+                        "directive", directive,
+                        "outcome", outcome,
+                        "error_code", errorCode))
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(registry)
+                .record(Duration.ofNanos(durationNanos));
+    }
+
+    /**
+     * 记录请求的命名空间与指令，供请求结束时打标签
+     */
+    public static void setOperation(HttpServletRequest request, String namespace, String directive) {
+        if (namespace != null) {
+            request.setAttribute(ATTR_NAMESPACE, namespace);
+        }
+        if (directive != null) {
+            request.setAttribute(ATTR_DIRECTIVE, directive);
+        }
+    }
+
+    /**
+     * 记录响应中的业务错误码
+     */
+    public static void setErrorCode(HttpServletRequest request, String errorCode) {
+        if (errorCode != null) {
+            request.setAttribute(ATTR_ERROR_CODE, errorCode);
+        }
+    }
+}
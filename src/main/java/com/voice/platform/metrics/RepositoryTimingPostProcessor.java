@@ -0,0 +1,32 @@
+package com.voice.platform.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+/**
+ * 仓库调用计时
+ * 为 Spring Data 仓库代理追加拦截器，仓库方法的执行时间计入 RequestTiming 的 DB 阶段
+ */
+@Component
+public class RepositoryTimingPostProcessor implements BeanPostProcessor {
+
+    private static final MethodInterceptor DB_TIMING = invocation -> {
+        long start = RequestTiming.start();
+        try {
+            return invocation.proceed();
+        } finally {
+            RequestTiming.stop(RequestTiming.Stage.DB, start);
+        }
+    };
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof Repository<?, ?> && bean instanceof Advised advised && !advised.isFrozen()) {
+            advised.addAdvice(0, DB_TIMING);
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,240 @@
+package com.voice.platform.metrics;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 请求阶段耗时上下文
+ * 由 RequestTimingFilter 在请求线程上创建，各阶段通过静态方法累加耗时；
+ * 每个阶段只做一次 nanoTime 与数组累加，热路径上不分配对象。非请求线程上调用为空操作
+ *
+ * 阶段可以嵌套（如认证中查询数据库），记录的是独占耗时：内层阶段的耗时从外层阶段中扣除
+ *
+ * <pre>
+ * long start = RequestTiming.start();
+ * try {
+ *     ...
+ * } finally {
+ *     RequestTiming.stop(RequestTiming.Stage.DB, start);
+ * }
+ * </pre>
+ */
+public final class RequestTiming {
+
+    /**
+     * 请求处理阶段
+     * BUSINESS 不单独计时，等于总耗时减去其他阶段
+     */
+    public enum Stage {
+        AUTH("auth"),
+        DB("db"),
+        BUSINESS("business"),
+        SERIALIZATION("serialization"),
+        OUTBOUND("outbound");
+
+        private final String metricName;
+
+        Stage(String metricName) {
+            this.metricName = metricName;
+        }
+
+        public String metricName() {
+            return metricName;
+        }
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private static final int MAX_DEPTH = 8;
+
+    private final long startNanos = System.nanoTime();
+
+    private final long[] stageNanos = new long[STAGES.length];
+
+    /**
+     * 各嵌套层已计入内层阶段的耗时
+     */
+    private final long[] childNanos = new long[MAX_DEPTH];
+
+    private int depth;
+
+    /**
+     * 是否以 Server-Timing 响应头返回本请求的阶段耗时
+     */
+    private final boolean serverTiming;
+
+    private RequestTiming(boolean serverTiming) {
+        this.serverTiming = serverTiming;
+    }
+
+    /**
+     * 在当前线程开始一次请求计时
+     *
+     * @param serverTiming 是否在响应序列化前写入 Server-Timing 响应头
+     */
+    static RequestTiming begin(boolean serverTiming) {
+        RequestTiming timing = new RequestTiming(serverTiming);
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    /**
+     * 结束当前线程的请求计时
+     */
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 为在其他线程中并行执行的子任务创建计时上下文，当前线程没有计时上下文时返回 null
+     * 子任务以 runWith 执行，完成后由请求线程以 joinParallel 合并
+     */
+    public static RequestTiming fork() {
+        return CURRENT.get() != null ? new RequestTiming(false) : null;
+    }
+
+    /**
+     * 在当前线程以指定的计时上下文执行任务，timing 为 null 时直接执行
+     */
+    public static <T> T runWith(RequestTiming timing, Supplier<T> task) {
+        if (timing == null) {
+            return task.get();
+        }
+        CURRENT.set(timing);
+        try {
+            return task.get();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * 把已完成的并行子任务的阶段耗时合并到当前请求
+     * 子任务同时执行，每个阶段取各子任务中的最大值，近似该阶段在请求中占用的时间，不按子任务累加
+     */
+    public static void joinParallel(List<RequestTiming> children) {
+        RequestTiming timing = CURRENT.get();
+        if (timing == null || children.isEmpty()) {
+            return;
+        }
+        long merged = 0L;
+        for (Stage stage : STAGES) {
+            if (stage == Stage.BUSINESS) {
+                continue;
+            }
+            long max = 0L;
+            for (RequestTiming child : children) {
+                max = Math.max(max, child.stageNanos[stage.ordinal()]);
+            }
+            timing.stageNanos[stage.ordinal()] += max;
+            merged += max;
+        }
+        if (timing.depth > 0 && timing.depth <= MAX_DEPTH) {
+            timing.childNanos[timing.depth - 1] += merged;
+        }
+    }
+
+    /**
+     * 阶段开始时间，当前线程没有计时上下文时返回 0
+     */
+    public static long start() {
+        RequestTiming timing = CURRENT.get();
+        if (timing == null) {
+            return 0L;
+        }
+        if (timing.depth < MAX_DEPTH) {
+            timing.childNanos[timing.depth] = 0L;
+        }
+        timing.depth++;
+        return System.nanoTime();
+    }
+
+    /**
+     * 累加阶段耗时
+     */
+    public static void stop(Stage stage, long start) {
+        if (start == 0L) {
+            return;
+        }
+        RequestTiming timing = CURRENT.get();
+        if (timing == null || timing.depth == 0) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        int level = --timing.depth;
+        long exclusive = level < MAX_DEPTH ? elapsed - timing.childNanos[level] : elapsed;
+        timing.stageNanos[stage.ordinal()] += Math.max(0L, exclusive);
+        if (level > 0 && level <= MAX_DEPTH) {
+            timing.childNanos[level - 1] += elapsed;
+        }
+    }
+
+    /**
+     * 请求总耗时（纳秒）
+     */
+    long totalNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * 阶段耗时（纳秒），BUSINESS 为总耗时减去其他阶段
+     */
+    long stageNanos(Stage stage, long totalNanos) {
+        if (stage != Stage.BUSINESS) {
+            return stageNanos[stage.ordinal()];
+        }
+        long others = 0L;
+        for (Stage s : STAGES) {
+            if (s != Stage.BUSINESS) {
+                others += stageNanos[s.ordinal()];
+            }
+        }
+        return Math.max(0L, totalNanos - others);
+    }
+
+    static Stage[] stages() {
+        return STAGES;
+    }
+
+    /**
+     * 当前请求到目前为止的 Server-Timing 响应头，未开启时返回 null
+     * 在响应序列化开始前调用，序列化阶段尚未发生，不包含在响应头中（只记录在请求摘要日志中）
+     */
+    static String currentServerTiming() {
+        RequestTiming timing = CURRENT.get();
+        if (timing == null || !timing.serverTiming) {
+            return null;
+        }
+        long totalNanos = timing.totalNanos();
+        StringBuilder header = new StringBuilder(160);
+        for (Stage stage : STAGES) {
+            if (stage == Stage.SERIALIZATION) {
+                continue;
+            }
+            header.append(stage.metricName()).append(";dur=");
+            appendMillis(header, timing.stageNanos(stage, totalNanos));
+            header.append(", ");
+        }
+        header.append("total;dur=");
+        appendMillis(header, totalNanos);
+        return header.toString();
+    }
+
+    /**
+     * 纳秒转毫秒，保留三位小数
+     */
+    static void appendMillis(StringBuilder sb, long nanos) {
+        long micros = nanos / 1_000;
+        sb.append(micros / 1_000).append('.');
+        long fraction = micros % 1_000;
+        if (fraction < 100) {
+            sb.append('0');
+        }
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        sb.append(fraction);
+    }
+}
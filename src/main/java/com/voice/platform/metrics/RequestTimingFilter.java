@@ -0,0 +1,125 @@
+package com.voice.platform.metrics;
+
+import com.voice.platform.config.WebMvcConfig;
+import com.voice.platform.logging.RequestLogContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 语音平台请求阶段计时过滤器
+ * 为平台接口建立 RequestTiming 和 RequestLogContext 上下文，请求结束后输出一行结构化的请求摘要日志
+ * （平台、指令、用户、设备、结果和各阶段耗时），替代逐步骤的 INFO 日志
+ *
+ * Server-Timing 响应头会把内部阶段耗时暴露给第三方平台，只对 server-timing-platforms 中列出的平台开启，
+ * 由 TimedJackson2HttpMessageConverter 在序列化开始前写入，响应体不经过缓冲
+ */
+@Slf4j
+@Component
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+    private static final String[] PLATFORM_PREFIXES = Arrays.stream(WebMvcConfig.PLATFORM_PATHS)
+            .map(pattern -> pattern.substring(0, pattern.length() - "/**".length()))
+            .toArray(String[]::new);
+
+    @Value("${request-timing.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 返回 Server-Timing 响应头的平台（路径前缀，不含斜杠），默认不返回
+     */
+    @Value("${request-timing.server-timing-platforms:}")
+    private Set<String> serverTimingPlatforms;
+
+    @Value("${request-log.summary.enabled:true}")
+    private boolean summaryEnabled;
+
+    @Value("${request-log.summary.sample-rate:1.0}")
+    private double summarySampleRate;
+
+    @Autowired
+    private RequestLogContext requestLogContext;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled && !summaryEnabled) {
+            return true;
+        }
+        return platformOf(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RequestTiming timing = RequestTiming.begin(enabled && serverTimingPlatforms.contains(platformOf(request)));
+        requestLogContext.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestTiming.end();
+            long totalNanos = timing.totalNanos();
+            if (summaryEnabled && (summarySampleRate >= 1.0
+                    || ThreadLocalRandom.current().nextDouble() < summarySampleRate)) {
+                logSummary(request, response.getStatus(), timing, totalNanos);
+            }
+            requestLogContext.clear();
+        }
+    }
+
+    /**
+     * 请求所属平台（路径前缀，不含斜杠），非平台接口返回 null
+     */
+    private String platformOf(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String prefix : PLATFORM_PREFIXES) {
+            if (path.startsWith(prefix)
+                    && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/')) {
+                return prefix.substring(1);
+            }
+        }
+        return null;
+    }
+
+    private void logSummary(HttpServletRequest request, int status, RequestTiming timing, long totalNanos) {
+        StringBuilder line = new StringBuilder(320);
+        line.append("request_summary method=").append(request.getMethod())
+                .append(" uri=").append(request.getRequestURI())
+                .append(" status=").append(status)
+                .append(" namespace=").append(attribute(request, PlatformRequestMetrics.ATTR_NAMESPACE))
+                .append(" directive=").append(attribute(request, PlatformRequestMetrics.ATTR_DIRECTIVE))
+                .append(" error_code=").append(attribute(request, PlatformRequestMetrics.ATTR_ERROR_CODE))
+                .append(" user_id=").append(mdc(RequestLogContext.MDC_USER_ID))
+                .append(" device_id=").append(mdc(RequestLogContext.MDC_DEVICE_ID));
+        if (enabled) {
+            for (RequestTiming.Stage stage : RequestTiming.stages()) {
+                line.append(' ').append(stage.metricName()).append("_ms=");
+                RequestTiming.appendMillis(line, timing.stageNanos(stage, totalNanos));
+            }
+        }
+        line.append(" total_ms=");
+        RequestTiming.appendMillis(line, totalNanos);
+        log.info(line.toString());
+    }
+
+    private Object attribute(HttpServletRequest request, String name) {
+        Object value = request.getAttribute(name);
+        return value != null ? value : PlatformRequestMetrics.NONE;
+    }
+
+    private String mdc(String key) {
+        String value = MDC.get(key);
+        return value != null ? value : PlatformRequestMetrics.NONE;
+    }
+}
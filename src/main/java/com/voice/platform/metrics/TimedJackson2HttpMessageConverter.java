@@ -0,0 +1,38 @@
+package com.voice.platform.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * 记录序列化耗时的 Jackson 消息转换器
+ * 响应体写出时间计入 RequestTiming 的 SERIALIZATION 阶段；
+ * 请求开启 Server-Timing 时在写出响应体（提交响应）之前追加响应头，响应体不需要缓冲
+ */
+public class TimedJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private static final String SERVER_TIMING = "Server-Timing";
+
+    public TimedJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        String serverTiming = RequestTiming.currentServerTiming();
+        if (serverTiming != null) {
+            outputMessage.getHeaders().set(SERVER_TIMING, serverTiming);
+        }
+        long start = RequestTiming.start();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            RequestTiming.stop(RequestTiming.Stage.SERIALIZATION, start);
+        }
+    }
+}
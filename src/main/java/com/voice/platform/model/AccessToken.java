@@ -1,5 +1,6 @@
 package com.voice.platform.model;
 
+import com.voice.platform.util.TokenHasher;
 import lombok.Data;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
@@ -10,7 +11,7 @@ import java.time.LocalDateTime;
  */
 @Data
 @Entity
-@Table(name = "oauth_access_tokens")
+@Table(name = "oauth_access_tokens", indexes = @Index(name = "idx_access_tokens_expires_at", columnList = "expires_at"))
 public class AccessToken {
     
     /**
@@ -21,11 +22,19 @@ public class AccessToken {
     private Long id;
     
     /**
-     * 访问令牌字符串
+     * 访问令牌的 SHA-256 摘要（32 字节）
      * 用于访问受保护的资源，有效期较短（通常1小时）
+     * 数据库只保存摘要，不保存可直接使用的令牌原文；按摘要查找令牌
      */
-    @Column(name = "access_token", nullable = false, unique = true)
-    private String token;
+    @Column(name = "token_hash", nullable = false, unique = true, columnDefinition = "BINARY(32)")
+    private byte[] tokenHash;
+    
+    /**
+     * JWT ID（jti 声明）
+     * JWT 访问令牌记录 jti，刷新令牌时据此撤销用户已签发的 JWT；Opaque 令牌为空
+     */
+    @Column(name = "jti", length = 100, unique = true)
+    private String jti;
     
     /**
      * 客户端ID
@@ -61,12 +70,15 @@ public class AccessToken {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
-    // 向后兼容的 getter
-    public String getAccessToken() {
-        return token;
+    /**
+     * 设置令牌原文，只保存其摘要
+     */
+    public void setToken(String token) {
+        this.tokenHash = TokenHasher.sha256(token);
     }
     
+    // 向后兼容的 setter
     public void setAccessToken(String token) {
-        this.token = token;
+        setToken(token);
     }
 }
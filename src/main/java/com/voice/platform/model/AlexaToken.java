@@ -11,7 +11,10 @@ import java.time.LocalDateTime;
  */
 @Data
 @Entity
-@Table(name = "alexa_tokens")
+@Table(name = "alexa_tokens", indexes = {
+    @Index(name = "idx_alexa_tokens_user_id", columnList = "user_id"),
+    @Index(name = "idx_alexa_tokens_expires_at", columnList = "expires_at")
+})
 public class AlexaToken {
     
     /**
@@ -11,7 +11,7 @@ import java.time.LocalDateTime;
  */
 @Data
 @Entity
-@Table(name = "oauth_authorization_codes")
+@Table(name = "oauth_authorization_codes", indexes = @Index(name = "idx_authorization_codes_expires_at", columnList = "expires_at"))
 public class AuthorizationCode {
     
     /**
@@ -3,6 +3,9 @@ package com.voice.platform.model;
 import java.time.LocalDateTime;
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.hibernate.annotations.DynamicUpdate;
 
 /**
  * 智能设备实体
@@ -10,7 +13,9 @@ import lombok.Data;
  */
 @Data
 @Entity
-@Table(name = "devices")
+@DynamicUpdate
+@EntityListeners(DeviceEntityListener.class)
+@Table(name = "devices", indexes = @Index(name = "idx_devices_user_id", columnList = "user_id"))
 public class Device {
     
     /**
@@ -87,4 +92,40 @@ public class Device {
      */
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+    
+    /**
+     * 状态版本号
+     * 每次通过 DeviceRepository 修改状态时加 1，用于检测多平台并发修改
+     */
+    @Column(name = "version")
+    private Long version;
+    
+    /**
+     * 加载时的所属用户 ID，由 DeviceEntityListener 在 @PostLoad 中记录，
+     * 设备换绑用户后用于同时失效原用户的设备发现缓存
+     */
+    @Transient
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Long loadedUserId;
+    
+    /**
+     * 复制设备字段，副本不受 JPA 管理，可在其他线程中独立修改
+     */
+    public Device copy() {
+        Device copy = new Device();
+        copy.setId(id);
+        copy.setDeviceId(deviceId);
+        copy.setDeviceName(deviceName);
+        copy.setDeviceType(deviceType);
+        copy.setUserId(userId);
+        copy.setStatus(status);
+        copy.setPowerState(powerState);
+        copy.setWorkMode(workMode);
+        copy.setBatteryLevel(batteryLevel);
+        copy.setCreatedAt(createdAt);
+        copy.setUpdatedAt(updatedAt);
+        copy.setVersion(version);
+        return copy;
+    }
 }
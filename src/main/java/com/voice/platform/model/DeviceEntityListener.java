@@ -0,0 +1,58 @@
+package com.voice.platform.model;
+
+import com.voice.platform.service.DeviceStateStore;
+import com.voice.platform.service.DiscoveryCache;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+import java.util.Objects;
+
+/**
+ * 设备实体监听器
+ * 设备新增、修改（改名、换绑用户等）、删除后失效该用户的设备发现缓存，并刷新 Write-Behind 内存中的设备信息；
+ * 换绑用户时同时失效原用户的缓存。
+ * 由 Hibernate 通过 Spring 容器创建，可直接注入 Bean；DeviceStateStore 依赖 DeviceRepository，延迟注入避免与 EntityManagerFactory 循环依赖
+ */
+public class DeviceEntityListener {
+
+    @Autowired
+    private DiscoveryCache discoveryCache;
+
+    @Autowired
+    @Lazy
+    private DeviceStateStore deviceStateStore;
+
+    @PostLoad
+    public void onDeviceLoaded(Device device) {
+        device.setLoadedUserId(device.getUserId());
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onDeviceChanged(Device device) {
+        discoveryCache.invalidateUser(device.getUserId());
+        Long previousUserId = device.getLoadedUserId();
+        if (previousUserId != null && !Objects.equals(previousUserId, device.getUserId())) {
+            discoveryCache.invalidateUser(previousUserId);
+        }
+        device.setLoadedUserId(device.getUserId());
+        if (deviceStateStore.isEnabled()) {
+            deviceStateStore.refresh(device);
+        }
+    }
+
+    @PostRemove
+    public void onDeviceRemoved(Device device) {
+        discoveryCache.invalidateUser(device.getUserId());
+        if (device.getLoadedUserId() != null && !Objects.equals(device.getLoadedUserId(), device.getUserId())) {
+            discoveryCache.invalidateUser(device.getLoadedUserId());
+        }
+        if (deviceStateStore.isEnabled()) {
+            deviceStateStore.remove(device.getDeviceId());
+        }
+    }
+}
@@ -12,7 +12,7 @@ import java.time.LocalDateTime;
  */
 @Data
 @Entity
-@Table(name = "oauth_authorizations")
+@Table(name = "oauth_authorizations", indexes = @Index(name = "idx_authorizations_expires_at", columnList = "expires_at"))
 public class OAuth2Authorization {
     
     /**
@@ -2,6 +2,7 @@ package com.voice.platform.model;
 
 import java.time.LocalDateTime;
 import jakarta.persistence.*;
+import com.voice.platform.util.TokenHasher;
 import lombok.Data;
 
 /**
@@ -11,7 +12,10 @@ import lombok.Data;
  */
 @Data
 @Entity
-@Table(name = "oauth_refresh_tokens")
+@Table(name = "oauth_refresh_tokens", indexes = {
+    @Index(name = "idx_refresh_tokens_expires_at", columnList = "expires_at"),
+    @Index(name = "idx_refresh_tokens_user_id", columnList = "user_id")
+})
 public class RefreshToken {
     
     /**
@@ -22,11 +26,12 @@ public class RefreshToken {
     private Long id;
     
     /**
-     * 刷新令牌字符串
+     * 刷新令牌的 SHA-256 摘要（32 字节）
      * 用于获取新的访问令牌，有效期较长（通常30天）
+     * 数据库只保存摘要，不保存可直接使用的令牌原文；按摘要查找令牌
      */
-    @Column(name = "refresh_token", nullable = false, unique = true)
-    private String token;
+    @Column(name = "token_hash", nullable = false, unique = true, columnDefinition = "BINARY(32)")
+    private byte[] tokenHash;
     
     /**
      * 客户端ID
@@ -62,12 +67,15 @@ public class RefreshToken {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
-    // 向后兼容的 getter
-    public String getRefreshToken() {
-        return token;
+    /**
+     * 设置令牌原文，只保存其摘要
+     */
+    public void setToken(String token) {
+        this.tokenHash = TokenHasher.sha256(token);
     }
     
+    // 向后兼容的 setter
     public void setRefreshToken(String token) {
-        this.token = token;
+        setToken(token);
     }
 }
@@ -0,0 +1,45 @@
+package com.voice.platform.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 已撤销的 JWT 令牌
+ * 按 jti 记录撤销，JwtRevocationList 按主键增量加载到内存，并按撤销时间补扫最近的记录；令牌过期后记录由 TokenPurgeService 清理
+ */
+@Data
+@Entity
+@Table(name = "oauth_revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_revoked_tokens_revoked_at", columnList = "revoked_at")
+})
+public class RevokedToken {
+    
+    /**
+     * 主键ID
+     * 自增，用于增量加载
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    /**
+     * JWT ID（jti 声明）
+     */
+    @Column(name = "jti", nullable = false, unique = true, length = 100)
+    private String jti;
+    
+    /**
+     * 令牌过期时间
+     * 过期后撤销记录不再需要
+     */
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    /**
+     * 撤销时间
+     */
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+}
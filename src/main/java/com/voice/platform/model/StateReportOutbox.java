@@ -0,0 +1,105 @@
+package com.voice.platform.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 状态报告发件箱
+ * 设备状态变化时与设备修改在同一事务中写入，用户已关联的每个语音平台一条；
+ * 由 StateReportOutboxWorker 分批读取并发送，发送成功后删除，失败时按指数退避重试
+ */
+@Data
+@Entity
+@Table(name = "state_report_outbox", indexes = @Index(name = "idx_state_report_outbox_status_next", columnList = "status, next_attempt_at"))
+public class StateReportOutbox {
+    
+    /**
+     * 待发送
+     */
+    public static final String STATUS_PENDING = "PENDING";
+    
+    /**
+     * 超过最大重试次数，不再发送
+     */
+    public static final String STATUS_DEAD = "DEAD";
+    
+    public static final String PLATFORM_ALEXA = "ALEXA";
+    
+    public static final String PLATFORM_GOOGLE = "GOOGLE";
+    
+    /**
+     * 主键ID
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    /**
+     * 目标平台：ALEXA / GOOGLE
+     */
+    @Column(name = "platform", nullable = false, length = 16)
+    private String platform;
+    
+    /**
+     * 设备ID
+     */
+    @Column(name = "device_id", nullable = false, length = 100)
+    private String deviceId;
+    
+    /**
+     * 设备所属用户ID
+     */
+    @Column(name = "user_id")
+    private Long userId;
+    
+    /**
+     * 修改前的电源状态
+     */
+    @Column(name = "old_power_state", length = 20)
+    private String oldPowerState;
+    
+    /**
+     * 修改后的电源状态
+     */
+    @Column(name = "new_power_state", length = 20)
+    private String newPowerState;
+    
+    /**
+     * 修改前的工作模式
+     */
+    @Column(name = "old_work_mode", length = 50)
+    private String oldWorkMode;
+    
+    /**
+     * 修改后的工作模式
+     */
+    @Column(name = "new_work_mode", length = 50)
+    private String newWorkMode;
+    
+    /**
+     * 状态：PENDING / DEAD
+     */
+    @Column(name = "status", nullable = false, length = 16)
+    private String status = STATUS_PENDING;
+    
+    /**
+     * 已尝试发送次数
+     */
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+    
+    /**
+     * 下次可发送时间
+     * 领取后设为租约到期时间，发送进程异常退出时租约到期后由其他实例重新领取
+     */
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+    
+    /**
+     * 创建时间
+     * 用于统计投递延迟
+     */
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -1,14 +1,28 @@
 package com.voice.platform.repository;
 
 import com.voice.platform.model.AccessToken;
+import com.voice.platform.util.TokenHasher;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AccessTokenRepository extends JpaRepository<AccessToken, Long> {
     
-    Optional<AccessToken> findByToken(String token);
+    Optional<AccessToken> findByTokenHash(byte[] tokenHash);
+    
+    /**
+     * 按令牌原文查找，使用其 SHA-256 摘要匹配
+     */
+    default Optional<AccessToken> findByToken(String token) {
+        return findByTokenHash(TokenHasher.sha256(token));
+    }
+    
+    /**
+     * 查找用户的 JWT 访问令牌记录
+     */
+    List<AccessToken> findByUserIdAndJtiIsNotNull(Long userId);
     
     void deleteByUserId(Long userId);
 }
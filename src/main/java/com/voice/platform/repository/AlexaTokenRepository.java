@@ -1,9 +1,12 @@
 package com.voice.platform.repository;
 
 import com.voice.platform.model.AlexaToken;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -27,4 +30,10 @@ public interface AlexaTokenRepository extends JpaRepository<AlexaToken, Long> {
      * 检查用户是否已有Token
      */
     boolean existsByUserId(Long userId);
+    
+    /**
+     * 按主键顺序分页查询过期时间在指定区间内的Token
+     */
+    List<AlexaToken> findByExpiresAtBetweenAndIdGreaterThanOrderByIdAsc(LocalDateTime from, LocalDateTime to,
+                                                                        Long id, Pageable pageable);
 }
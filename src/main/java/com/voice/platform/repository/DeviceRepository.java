@@ -2,7 +2,13 @@ package com.voice.platform.repository;
 
 import com.voice.platform.model.Device;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +18,99 @@ public interface DeviceRepository extends JpaRepository<Device, Long> {
     Optional<Device> findByDeviceId(String deviceId);
     
     List<Device> findByUserId(Long userId);
+    
+    /**
+     * 批量查找设备，一次 IN 查询
+     */
+    List<Device> findByDeviceIdIn(Collection<String> deviceIds);
+    
+    /**
+     * 查找属于指定用户的设备
+     */
+    Optional<Device> findByDeviceIdAndUserId(String deviceId, Long userId);
+    
+    /**
+     * 批量查找属于指定用户的设备，一次 IN 查询
+     */
+    List<Device> findByUserIdAndDeviceIdIn(Long userId, Collection<String> deviceIds);
+    
+    /**
+     * 修改电源状态，值未变化时不更新
+     * 
+     * @return 受影响行数，0 表示设备不存在或状态未变化
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Device d SET d.powerState = :powerState, d.version = COALESCE(d.version, 0) + 1, " +
+           "d.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE d.deviceId = :deviceId AND (d.powerState IS NULL OR d.powerState <> :powerState)")
+    int updatePowerState(@Param("deviceId") String deviceId, @Param("powerState") String powerState);
+    
+    /**
+     * 修改工作模式，值未变化时不更新
+     * 
+     * @return 受影响行数，0 表示设备不存在或模式未变化
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Device d SET d.workMode = :workMode, d.version = COALESCE(d.version, 0) + 1, " +
+           "d.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE d.deviceId = :deviceId AND (d.workMode IS NULL OR d.workMode <> :workMode)")
+    int updateWorkMode(@Param("deviceId") String deviceId, @Param("workMode") String workMode);
+    
+    /**
+     * 修改属于指定用户的设备的电源状态，值未变化时不更新
+     * 
+     * @return 受影响行数，0 表示设备不存在、不属于该用户或状态未变化
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Device d SET d.powerState = :powerState, d.version = COALESCE(d.version, 0) + 1, " +
+           "d.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE d.deviceId = :deviceId AND d.userId = :userId " +
+           "AND (d.powerState IS NULL OR d.powerState <> :powerState)")
+    int updatePowerState(@Param("deviceId") String deviceId, @Param("userId") Long userId,
+                         @Param("powerState") String powerState);
+    
+    /**
+     * 修改属于指定用户的设备的工作模式，值未变化时不更新
+     * 
+     * @return 受影响行数，0 表示设备不存在、不属于该用户或模式未变化
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Device d SET d.workMode = :workMode, d.version = COALESCE(d.version, 0) + 1, " +
+           "d.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE d.deviceId = :deviceId AND d.userId = :userId " +
+           "AND (d.workMode IS NULL OR d.workMode <> :workMode)")
+    int updateWorkMode(@Param("deviceId") String deviceId, @Param("userId") Long userId,
+                       @Param("workMode") String workMode);
+    
+    boolean existsByDeviceIdAndUserId(String deviceId, Long userId);
+    
+    /**
+     * 按版本号修改电源状态（乐观锁）
+     * 
+     * @return 受影响行数，0 表示设备已被其他请求修改
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Device d SET d.powerState = :powerState, d.version = COALESCE(d.version, 0) + 1, " +
+           "d.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE d.deviceId = :deviceId AND COALESCE(d.version, 0) = :version")
+    int updatePowerStateIfVersion(@Param("deviceId") String deviceId, @Param("powerState") String powerState,
+                                  @Param("version") long version);
+    
+    /**
+     * 按版本号修改工作模式（乐观锁）
+     * 
+     * @return 受影响行数，0 表示设备已被其他请求修改
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Device d SET d.workMode = :workMode, d.version = COALESCE(d.version, 0) + 1, " +
+           "d.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE d.deviceId = :deviceId AND COALESCE(d.version, 0) = :version")
+    int updateWorkModeIfVersion(@Param("deviceId") String deviceId, @Param("workMode") String workMode,
+                                @Param("version") long version);
 }
@@ -1,14 +1,28 @@
 package com.voice.platform.repository;
 
 import com.voice.platform.model.RefreshToken;
+import com.voice.platform.util.TokenHasher;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
     
-    Optional<RefreshToken> findByToken(String token);
+    Optional<RefreshToken> findByTokenHash(byte[] tokenHash);
+    
+    /**
+     * 按令牌原文查找，使用其 SHA-256 摘要匹配
+     */
+    default Optional<RefreshToken> findByToken(String token) {
+        return findByTokenHash(TokenHasher.sha256(token));
+    }
     
     void deleteByUserId(Long userId);
+    
+    /**
+     * 用户是否持有指定客户端未过期的刷新令牌，即是否已通过该客户端完成账号关联
+     */
+    boolean existsByClientIdAndUserIdAndExpiresAtAfter(String clientId, Long userId, LocalDateTime now);
 }
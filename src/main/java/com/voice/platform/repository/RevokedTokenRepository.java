@@ -0,0 +1,29 @@
+package com.voice.platform.repository;
+
+import com.voice.platform.model.RevokedToken;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 已撤销 JWT 令牌 Repository
+ */
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+    
+    /**
+     * 按主键顺序读取指定 ID 之后仍未过期的撤销记录，用于增量加载
+     */
+    List<RevokedToken> findByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(Long id, LocalDateTime now, Pageable pageable);
+    
+    /**
+     * 读取指定时间之后撤销且仍未过期的记录，用于补充加载乱序提交的记录
+     */
+    List<RevokedToken> findByRevokedAtGreaterThanEqualAndExpiresAtAfterOrderByIdAsc(LocalDateTime since, LocalDateTime now,
+                                                                                   Pageable pageable);
+    
+    boolean existsByJti(String jti);
+}
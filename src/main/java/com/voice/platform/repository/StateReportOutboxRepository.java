@@ -0,0 +1,29 @@
+package com.voice.platform.repository;
+
+import com.voice.platform.model.StateReportOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 状态报告发件箱 Repository
+ */
+@Repository
+public interface StateReportOutboxRepository extends JpaRepository<StateReportOutbox, Long> {
+    
+    /**
+     * 按主键顺序锁定一批到期的记录
+     * 锁超时 -2 即 SKIP LOCKED：多个实例同时领取时跳过其他实例已锁定的行，不互相等待
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<StateReportOutbox> findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(String status, LocalDateTime now,
+                                                                                  Pageable pageable);
+}
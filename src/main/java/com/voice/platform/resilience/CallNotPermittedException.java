@@ -0,0 +1,19 @@
+package com.voice.platform.resilience;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * 出站调用被熔断器或舱壁拒绝，请求未发出
+ * 继承 RestClientException，调用方按普通出站失败处理；熔断期间会大量抛出，不记录堆栈
+ */
+public class CallNotPermittedException extends RestClientException {
+
+    public CallNotPermittedException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,174 @@
+package com.voice.platform.resilience;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 熔断器
+ * 按最近 windowSize 次调用的失败率判断：失败率达到阈值后进入 OPEN，期间所有调用直接拒绝；
+ * openMs 后进入 HALF_OPEN，只放行 halfOpenCalls 个探测调用，全部成功恢复 CLOSED，任一失败重新进入 OPEN
+ *
+ * 状态变更与窗口统计在同一把锁内完成，调用本身不持锁
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+
+    private final int minimumCalls;
+
+    private final int failureRateThreshold;
+
+    private final long openNanos;
+
+    private final int halfOpenCalls;
+
+    /**
+     * 环形窗口，true 表示失败
+     */
+    private final boolean[] window;
+
+    private int windowIndex;
+
+    private int bufferedCalls;
+
+    private int failedCalls;
+
+    private State state = State.CLOSED;
+
+    private long openUntil;
+
+    private int halfOpenPermitted;
+
+    private int halfOpenSucceeded;
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, int failureRateThreshold,
+                          long openMs, int halfOpenCalls) {
+        this.name = name;
+        this.window = new boolean[Math.max(windowSize, 1)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, window.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openMs * 1_000_000L;
+        this.halfOpenCalls = Math.max(halfOpenCalls, 1);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 申请调用许可
+     *
+     * @return false 表示已熔断或半开状态的探测名额已用完
+     */
+    public synchronized boolean tryAcquirePermission() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openUntil < 0) {
+                    return false;
+                }
+                transitionTo(State.HALF_OPEN);
+                // fall through
+            case HALF_OPEN:
+            default:
+                if (halfOpenPermitted >= halfOpenCalls) {
+                    return false;
+                }
+                halfOpenPermitted++;
+                return true;
+        }
+    }
+
+    /**
+     * 归还未实际发起调用的许可（如被舱壁拒绝）
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && halfOpenPermitted > 0) {
+            halfOpenPermitted--;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSucceeded >= halfOpenCalls) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(true);
+            if (bufferedCalls >= minimumCalls && failedCalls * 100 >= failureRateThreshold * bufferedCalls) {
+                transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * 当前窗口失败率（百分比），调用数不足 minimumCalls 时返回 -1
+     */
+    public synchronized float getFailureRate() {
+        return bufferedCalls < minimumCalls ? -1 : failedCalls * 100f / bufferedCalls;
+    }
+
+    public synchronized int getBufferedCalls() {
+        return bufferedCalls;
+    }
+
+    public synchronized int getFailedCalls() {
+        return failedCalls;
+    }
+
+    private void record(boolean failure) {
+        if (bufferedCalls == window.length) {
+            if (window[windowIndex]) {
+                failedCalls--;
+            }
+        } else {
+            bufferedCalls++;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            failedCalls++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void transitionTo(State target) {
+        if (target == State.OPEN) {
+            log.warn("熔断器打开: name={}, from={}, failedCalls={}, bufferedCalls={}",
+                    name, state, failedCalls, bufferedCalls);
+        } else {
+            log.info("熔断器状态变更: name={}, {} -> {}", name, state, target);
+        }
+        state = target;
+        halfOpenPermitted = 0;
+        halfOpenSucceeded = 0;
+        if (target == State.OPEN) {
+            openUntil = System.nanoTime() + openNanos;
+        }
+        if (target == State.CLOSED) {
+            windowIndex = 0;
+            bufferedCalls = 0;
+            failedCalls = 0;
+        }
+    }
+}
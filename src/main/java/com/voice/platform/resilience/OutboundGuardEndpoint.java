@@ -0,0 +1,50 @@
+package com.voice.platform.resilience;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * /actuator/outbound：各出站目标的熔断器和舱壁状态
+ */
+@Component
+@Endpoint(id = "outbound")
+public class OutboundGuardEndpoint {
+
+    private final OutboundGuards guards;
+
+    public OutboundGuardEndpoint(OutboundGuards guards) {
+        this.guards = guards;
+    }
+
+    @ReadOperation
+    public Map<String, Object> destinations() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        guards.all().forEach((name, guard) -> result.put(name, describe(guard)));
+        return result;
+    }
+
+    @ReadOperation
+    public Map<String, Object> destination(@Selector String name) {
+        OutboundGuards.Guard guard = guards.all().get(name);
+        return guard == null ? null : describe(guard);
+    }
+
+    private static Map<String, Object> describe(OutboundGuards.Guard guard) {
+        CircuitBreaker breaker = guard.breaker();
+        Bulkhead bulkhead = guard.bulkhead();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("state", breaker.getState());
+        result.put("failureRate", breaker.getFailureRate());
+        result.put("bufferedCalls", breaker.getBufferedCalls());
+        result.put("failedCalls", breaker.getFailedCalls());
+        result.put("activeCalls", bulkhead.getActive());
+        result.put("queuedCalls", bulkhead.getQueued());
+        result.put("maxConcurrent", bulkhead.getMaxConcurrent());
+        return result;
+    }
+}
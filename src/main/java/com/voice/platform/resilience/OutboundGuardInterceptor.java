@@ -0,0 +1,124 @@
+package com.voice.platform.resilience;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 出站调用舱壁和熔断拦截器
+ * 请求发出前依次检查熔断器和舱壁，任一拒绝时抛出 CallNotPermittedException，不占用连接；
+ * 舱壁许可持有到响应关闭（响应体读取完毕）为止
+ *
+ * 连接失败、5xx、429 和超过 slow-call-ms 的调用计为失败；其他 4xx（如用户令牌失效）是单个请求的问题，计为成功
+ */
+public class OutboundGuardInterceptor implements ClientHttpRequestInterceptor {
+
+    private final OutboundGuards guards;
+
+    public OutboundGuardInterceptor(OutboundGuards guards) {
+        this.guards = guards;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+                                        ClientHttpRequestExecution execution) throws IOException {
+        OutboundGuards.Guard guard = guards.match(request.getURI());
+        if (guard == null) {
+            return execution.execute(request, body);
+        }
+
+        CircuitBreaker breaker = guard.breaker();
+        if (!breaker.tryAcquirePermission()) {
+            guard.count(OutboundGuards.OUTCOME_CIRCUIT_OPEN);
+            throw new CallNotPermittedException("出站调用已熔断: destination=" + guard.name());
+        }
+        Bulkhead bulkhead = guard.bulkhead();
+        if (!bulkhead.tryAcquire()) {
+            breaker.releasePermission();
+            guard.count(OutboundGuards.OUTCOME_BULKHEAD_FULL);
+            throw new CallNotPermittedException("出站调用并发已满: destination=" + guard.name());
+        }
+
+        long start = System.nanoTime();
+        ClientHttpResponse response = null;
+        try {
+            response = execution.execute(request, body);
+            HttpStatusCode status = response.getStatusCode();
+            if (status.is5xxServerError() || status.value() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                breaker.onFailure();
+                guard.count(OutboundGuards.OUTCOME_FAILURE);
+            } else if (System.nanoTime() - start > guard.slowCallNanos()) {
+                breaker.onFailure();
+                guard.count(OutboundGuards.OUTCOME_SLOW);
+            } else {
+                breaker.onSuccess();
+                guard.count(OutboundGuards.OUTCOME_SUCCESS);
+            }
+            return new ReleasingResponse(response, bulkhead);
+        } catch (IOException | RuntimeException e) {
+            breaker.onFailure();
+            guard.count(OutboundGuards.OUTCOME_FAILURE);
+            bulkhead.release();
+            if (response != null) {
+                response.close();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 关闭时归还舱壁许可的响应
+     */
+    private static final class ReleasingResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegate;
+
+        private final Bulkhead bulkhead;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        ReleasingResponse(ClientHttpResponse delegate, Bulkhead bulkhead) {
+            this.delegate = delegate;
+            this.bulkhead = bulkhead;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    bulkhead.release();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.voice.platform.resilience;
+
+import com.voice.platform.config.OutboundProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 出站调用目标的舱壁和熔断器
+ * 按 outbound.destinations 为每个目标创建一组 Bulkhead 和 CircuitBreaker，按请求 URL 前缀匹配目标
+ *
+ * 指标：
+ * voice.platform.outbound.breaker.state（0 CLOSED / 1 OPEN / 2 HALF_OPEN）、
+ * voice.platform.outbound.bulkhead.active、voice.platform.outbound.bulkhead.queued，按 destination 分组；
+ * voice.platform.outbound.calls 按 destination / outcome 计数
+ */
+@Slf4j
+@Component
+public class OutboundGuards {
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_FAILURE = "failure";
+    public static final String OUTCOME_SLOW = "slow";
+    public static final String OUTCOME_CIRCUIT_OPEN = "circuit_open";
+    public static final String OUTCOME_BULKHEAD_FULL = "bulkhead_full";
+
+    private final boolean enabled;
+
+    /**
+     * URL 前缀 -> 目标，按前缀长度降序，优先匹配最长前缀
+     */
+    private final List<Map.Entry<String, Guard>> routes = new ArrayList<>();
+
+    private final Map<String, Guard> guards = new ConcurrentHashMap<>();
+
+    private final MeterRegistry meterRegistry;
+
+    public OutboundGuards(OutboundProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.meterRegistry = meterRegistry.getIfAvailable();
+
+        for (Map.Entry<String, OutboundProperties.Destination> entry : properties.getDestinations().entrySet()) {
+            String name = entry.getKey();
+            OutboundProperties.Destination config = entry.getValue();
+            Guard guard = new Guard(name,
+                    new CircuitBreaker(name, config.getWindowSize(), config.getMinimumCalls(),
+                            config.getFailureRateThreshold(), config.getOpenMs(), config.getHalfOpenCalls()),
+                    new Bulkhead(name, config.getMaxConcurrent(), config.getMaxQueued(), config.getMaxWaitMs()),
+                    TimeUnit.MILLISECONDS.toNanos(config.getSlowCallMs()));
+            guards.put(name, guard);
+            for (String url : config.getUrls()) {
+                routes.add(Map.entry(url, guard));
+            }
+            registerGauges(guard);
+        }
+        routes.sort((a, b) -> Integer.compare(b.getKey().length(), a.getKey().length()));
+
+        log.info("出站调用隔离已初始化: enabled={}, destinations={}", enabled, guards.keySet());
+    }
+
+    /**
+     * 按请求 URL 匹配目标
+     *
+     * @return 未启用或不属于任何目标时返回 null
+     */
+    public Guard match(URI uri) {
+        if (!enabled) {
+            return null;
+        }
+        String url = uri.toString();
+        for (Map.Entry<String, Guard> route : routes) {
+            if (url.startsWith(route.getKey())) {
+                return route.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 所有目标，目标名 -> Guard
+     */
+    public Map<String, Guard> all() {
+        return Collections.unmodifiableMap(guards);
+    }
+
+    private void registerGauges(Guard guard) {
+        if (meterRegistry == null) {
+            return;
+        }
+        Gauge.builder("voice.platform.outbound.breaker.state", guard.breaker(), b -> b.getState().ordinal())
+                .description("出站熔断器状态：0 CLOSED / 1 OPEN / 2 HALF_OPEN")
+                .tag("destination", guard.name())
+                .register(meterRegistry);
+        Gauge.builder("voice.platform.outbound.bulkhead.active", guard.bulkhead(), Bulkhead::getActive)
+                .description("出站舱壁当前并发调用数")
+                .tag("destination", guard.name())
+                .register(meterRegistry);
+        Gauge.builder("voice.platform.outbound.bulkhead.queued", guard.bulkhead(), Bulkhead::getQueued)
+                .description("出站舱壁当前排队调用数")
+                .tag("destination", guard.name())
+                .register(meterRegistry);
+    }
+
+    /**
+     * 单个目标的熔断器和舱壁
+     */
+    public class Guard {
+
+        private final String name;
+
+        private final CircuitBreaker breaker;
+
+        private final Bulkhead bulkhead;
+
+        private final long slowCallNanos;
+
+        private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+        Guard(String name, CircuitBreaker breaker, Bulkhead bulkhead, long slowCallNanos) {
+            this.name = name;
+            this.breaker = breaker;
+            this.bulkhead = bulkhead;
+            this.slowCallNanos = slowCallNanos;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public CircuitBreaker breaker() {
+            return breaker;
+        }
+
+        public Bulkhead bulkhead() {
+            return bulkhead;
+        }
+
+        long slowCallNanos() {
+            return slowCallNanos;
+        }
+
+        void count(String outcome) {
+            if (meterRegistry == null) {
+                return;
+            }
+            counters.computeIfAbsent(outcome, o -> Counter.builder("voice.platform.outbound.calls")
+                    .description("出站调用结果")
+                    .tag("destination", name)
+                    .tag("outcome", o)
+                    .register(meterRegistry))
+                    .increment();
+        }
+    }
+}
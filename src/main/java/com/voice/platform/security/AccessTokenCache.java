@@ -0,0 +1,110 @@
+package com.voice.platform.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.voice.platform.util.TokenHasher;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * 访问令牌验证缓存
+ * 以令牌 SHA-256 摘要为键缓存已验证的令牌主体，热路径验证不访问数据库
+ *
+ * 缓存条目的存活时间取 max-ttl-seconds 与令牌剩余有效期中的较小值，
+ * 超过 max-size 时按访问频率淘汰。撤销或刷新令牌时需要立即失效。
+ */
+@Slf4j
+@Component
+public class AccessTokenCache {
+
+    private final Cache<String, TokenPrincipal> cache;
+
+    public AccessTokenCache(@Value("${oauth2.token-cache.max-size:100000}") long maxSize,
+                            @Value("${oauth2.token-cache.max-ttl-seconds:300}") long maxTtlSeconds) {
+        Duration maxTtl = Duration.ofSeconds(maxTtlSeconds);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, TokenPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(String key, TokenPrincipal principal, long currentTime) {
+                        Duration remaining = Duration.between(LocalDateTime.now(), principal.expiresAt());
+                        if (remaining.isNegative()) {
+                            return 0;
+                        }
+                        return (remaining.compareTo(maxTtl) < 0 ? remaining : maxTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, TokenPrincipal principal,
+                                                  long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, principal, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, TokenPrincipal principal,
+                                                long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        log.info("访问令牌缓存已初始化: maxSize={}, maxTtlSeconds={}", maxSize, maxTtlSeconds);
+    }
+
+    /**
+     * 获取缓存的令牌主体，不存在或已过期返回 null
+     */
+    public TokenPrincipal get(String token) {
+        TokenPrincipal principal = cache.getIfPresent(TokenHasher.hashKey(token));
+        if (principal != null && principal.isExpired()) {
+            return null;
+        }
+        return principal;
+    }
+
+    /**
+     * 缓存已验证的令牌主体
+     */
+    public void put(String token, TokenPrincipal principal) {
+        cache.put(TokenHasher.hashKey(token), principal);
+    }
+
+    /**
+     * 使单个令牌失效
+     * 立即移除，并在当前事务提交后再次移除，避免并发请求在提交前回填旧数据
+     */
+    public void invalidate(String token) {
+        String key = TokenHasher.hashKey(token);
+        cache.invalidate(key);
+        afterCommit(() -> cache.invalidate(key));
+    }
+
+    /**
+     * 使用户的所有令牌失效
+     */
+    public void invalidateUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        Runnable eviction = () -> cache.asMap().values().removeIf(p -> userId.equals(p.userId()));
+        eviction.run();
+        afterCommit(eviction);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.voice.platform.security;
+
+import com.voice.platform.util.TokenHasher;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * JWT 签名密钥环
+ * 从 PKCS12 密钥库加载非对称签名密钥，别名即 kid：EC P-256 密钥使用 ES256，RSA 密钥使用 RS256。
+ * 签发使用当前密钥，验证按 JWT 头中的 kid 选择公钥，所有公钥预先渲染为 JWKS 供下游服务本地验证。
+ * 未配置密钥库时密钥环为空，JwtUtil 继续以 HS256 共享密钥签发，JWKS 为空
+ *
+ * 当前密钥按以下顺序确定：active-kid-file 的内容、active-kid 配置、上次加载时的当前密钥，首次加载时取别名排序最后的密钥。
+ * 重新加载时不会自动切换到新加入的密钥
+ *
+ * 轮换：先将新密钥加入密钥库（各实例定时重新加载，新公钥进入 JWKS），待下游缓存的 JWKS 过期后再将新 kid 写入 active-kid-file；
+ * 旧密钥在其签发的令牌全部过期后从密钥库移除
+ */
+@Slf4j
+@Component
+public class JwtKeyRing {
+
+    @Value("${oauth2.jwt.signing.key-store:}")
+    private String keyStorePath;
+
+    @Value("${oauth2.jwt.signing.key-store-password:}")
+    private String keyStorePassword;
+
+    @Value("${oauth2.jwt.signing.active-kid:}")
+    private String activeKid;
+
+    @Value("${oauth2.jwt.signing.active-kid-file:}")
+    private String activeKidFile;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * 已加载密钥库的修改时间
+     */
+    private long loadedModified;
+
+    /**
+     * 已加载 active-kid-file 的修改时间，文件不存在时为 0
+     */
+    private long loadedKidModified;
+
+    @PostConstruct
+    public void init() {
+        if (keyStorePath.isEmpty()) {
+            snapshot = new Snapshot(null, Map.of(), render(Map.of()));
+            log.info("未配置 JWT 签名密钥库，使用 HS256 共享密钥签发令牌");
+            return;
+        }
+        reload();
+        if (snapshot == null) {
+            throw new IllegalStateException("JWT 签名密钥库加载失败: " + keyStorePath);
+        }
+    }
+
+    /**
+     * 密钥库或 active-kid-file 变化时重新加载，加载失败时保留原有密钥
+     */
+    @Scheduled(fixedDelayString = "${oauth2.jwt.signing.reload-interval-ms:60000}")
+    public synchronized void reload() {
+        if (keyStorePath.isEmpty()) {
+            return;
+        }
+        try {
+            Path path = Path.of(keyStorePath);
+            long modified = Files.getLastModifiedTime(path).toMillis();
+            long kidModified = kidFileModified();
+            if (snapshot != null && modified == loadedModified && kidModified == loadedKidModified) {
+                return;
+            }
+            snapshot = load(path);
+            loadedModified = modified;
+            loadedKidModified = kidModified;
+            log.info("JWT 签名密钥已加载: activeKid={}, kids={}", snapshot.active().kid(), snapshot.keys().keySet());
+        } catch (Exception e) {
+            log.error("JWT 签名密钥库加载失败，继续使用原有密钥: path={}", keyStorePath, e);
+        }
+    }
+
+    /**
+     * 是否配置了签名密钥库
+     */
+    public boolean isConfigured() {
+        return !keyStorePath.isEmpty();
+    }
+
+    /**
+     * 当前签发使用的密钥
+     *
+     * @return 未配置密钥库时返回 null，由调用方使用 HS256 共享密钥
+     */
+    public SigningKey active() {
+        return snapshot.active();
+    }
+
+    /**
+     * 按 kid 查找验证公钥
+     *
+     * @return 未知的 kid 返回 null
+     */
+    public PublicKey verificationKey(String kid) {
+        SigningKey key = kid == null ? null : snapshot.keys().get(kid);
+        return key == null ? null : key.publicKey();
+    }
+
+    /**
+     * 预先渲染的 JWKS
+     */
+    public JwkSet jwks() {
+        return snapshot.jwks();
+    }
+
+    private Snapshot load(Path path) throws Exception {
+        char[] password = keyStorePassword.toCharArray();
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = Files.newInputStream(path)) {
+            keyStore.load(in, password);
+        }
+
+        TreeMap<String, SigningKey> keys = new TreeMap<>();
+        for (String alias : Collections.list(keyStore.aliases())) {
+            if (!keyStore.isKeyEntry(alias)) {
+                continue;
+            }
+            Key privateKey = keyStore.getKey(alias, password);
+            PublicKey publicKey = keyStore.getCertificate(alias).getPublicKey();
+            keys.put(alias, new SigningKey(alias, (PrivateKey) privateKey, publicKey, algorithmOf(publicKey)));
+        }
+        if (keys.isEmpty()) {
+            throw new IllegalStateException("密钥库中没有签名密钥");
+        }
+
+        String kid = resolveActiveKid(keys);
+        SigningKey active = keys.get(kid);
+        if (active == null) {
+            throw new IllegalStateException("密钥库中不存在当前签名密钥: kid=" + kid);
+        }
+        return new Snapshot(active, keys, render(keys));
+    }
+
+    /**
+     * 确定当前密钥：显式指定的 kid 优先，否则沿用上次加载的当前密钥，首次加载时取别名排序最后的密钥
+     */
+    private String resolveActiveKid(TreeMap<String, SigningKey> keys) throws IOException {
+        String kid = readKidFile();
+        if (!kid.isEmpty()) {
+            return kid;
+        }
+        if (!activeKid.isEmpty()) {
+            return activeKid;
+        }
+        Snapshot current = snapshot;
+        if (current != null && current.active() != null) {
+            return current.active().kid();
+        }
+        return keys.lastKey();
+    }
+
+    private String readKidFile() throws IOException {
+        if (activeKidFile.isEmpty() || !Files.exists(Path.of(activeKidFile))) {
+            return "";
+        }
+        return Files.readString(Path.of(activeKidFile), StandardCharsets.UTF_8).trim();
+    }
+
+    private long kidFileModified() throws IOException {
+        if (activeKidFile.isEmpty() || !Files.exists(Path.of(activeKidFile))) {
+            return 0;
+        }
+        return Files.getLastModifiedTime(Path.of(activeKidFile)).toMillis();
+    }
+
+    private static SignatureAlgorithm algorithmOf(PublicKey publicKey) {
+        if (publicKey instanceof ECPublicKey ec && ec.getParams().getCurve().getField().getFieldSize() == 256) {
+            return Jwts.SIG.ES256;
+        }
+        if (publicKey instanceof RSAPublicKey) {
+            return Jwts.SIG.RS256;
+        }
+        throw new IllegalStateException("不支持的签名密钥类型，仅支持 EC P-256 和 RSA: " + publicKey.getAlgorithm());
+    }
+
+    /**
+     * 渲染 JWKS 及其 ETag，密钥变化时才重新渲染
+     */
+    private static JwkSet render(Map<String, SigningKey> keys) {
+        List<String> jwks = new ArrayList<>(keys.size());
+        for (SigningKey key : keys.values()) {
+            PublicJwk<?> jwk = Jwks.builder()
+                    .key(key.publicKey())
+                    .id(key.kid())
+                    .publicKeyUse("sig")
+                    .algorithm(key.algorithm().getId())
+                    .build();
+            jwks.add(Jwks.json(jwk));
+        }
+        String json = "{\"keys\":[" + String.join(",", jwks) + "]}";
+        return new JwkSet(json.getBytes(StandardCharsets.UTF_8), "\"" + TokenHasher.hashKey(json) + "\"");
+    }
+
+    /**
+     * 签名密钥
+     */
+    public record SigningKey(String kid, PrivateKey privateKey, PublicKey publicKey, SignatureAlgorithm algorithm) {
+    }
+
+    /**
+     * JWKS 响应体及其 ETag
+     */
+    public record JwkSet(byte[] body, String etag) {
+    }
+
+    private record Snapshot(SigningKey active, Map<String, SigningKey> keys, JwkSet jwks) {
+    }
+}
@@ -0,0 +1,176 @@
+package com.voice.platform.security;
+
+import com.voice.platform.model.RevokedToken;
+import com.voice.platform.repository.RevokedTokenRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JWT 撤销列表
+ * JWT 访问令牌只验证签名和有效期，再按 jti 检查是否已撤销，验证过程不访问数据库
+ *
+ * 撤销记录保存在 oauth_revoked_tokens，内存中用布隆过滤器加精确集合表示：
+ * 绝大多数未撤销的 jti 由布隆过滤器直接排除，可能命中时再查精确集合。
+ * 启动时全量加载，之后每 refresh-interval-ms 按主键增量加载其他实例的撤销；本实例的撤销在事务提交后生效。
+ *
+ * 自增主键在分配时递增，但事务提交顺序不一定与主键顺序一致：较小 ID 的记录可能在较大 ID 已被加载之后才提交，
+ * 单靠主键游标会永久漏掉这些记录。因此每次加载还会按 revoked_at 重新扫描最近 overlap-ms 内的撤销记录，
+ * overlap-ms 需大于撤销事务的最长耗时加上实例间的时钟偏差
+ */
+@Slf4j
+@Component
+public class JwtRevocationList {
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Value("${oauth2.jwt.revocation.expected-size:100000}")
+    private int expectedSize;
+
+    @Value("${oauth2.jwt.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${oauth2.jwt.revocation.page-size:1000}")
+    private int pageSize;
+
+    @Value("${oauth2.jwt.revocation.overlap-ms:30000}")
+    private long overlapMs;
+
+    /**
+     * 已撤销的 jti -> 令牌过期时间
+     */
+    private final Map<String, LocalDateTime> revoked = new ConcurrentHashMap<>();
+
+    private volatile JtiBloomFilter filter;
+
+    /**
+     * 已加载的最大撤销记录 ID
+     */
+    private long lastId;
+
+    @PostConstruct
+    public void init() {
+        filter = new JtiBloomFilter(expectedSize, falsePositiveRate);
+        refresh();
+        log.info("JWT 撤销列表已加载: count={}", revoked.size());
+    }
+
+    /**
+     * 检查 jti 是否已撤销
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null || !filter.mightContain(jti)) {
+            return false;
+        }
+        return revoked.containsKey(jti);
+    }
+
+    /**
+     * 撤销 JWT 令牌
+     * 写入数据库供其他实例增量加载；在事务中调用时，提交后才加入本实例的撤销列表，事务回滚则撤销不生效
+     *
+     * @param jti JWT ID
+     * @param expiresAt 令牌过期时间，已过期的令牌无需撤销
+     */
+    public void revoke(String jti, LocalDateTime expiresAt) {
+        if (jti == null || !expiresAt.isAfter(LocalDateTime.now())) {
+            return;
+        }
+        if (!revokedTokenRepository.existsByJti(jti)) {
+            RevokedToken record = new RevokedToken();
+            record.setJti(jti);
+            record.setExpiresAt(expiresAt);
+            record.setRevokedAt(LocalDateTime.now());
+            revokedTokenRepository.save(record);
+            log.info("撤销 JWT 令牌: jti={}", jti);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(jti, expiresAt);
+                }
+            });
+        } else {
+            add(jti, expiresAt);
+        }
+    }
+
+    /**
+     * 增量加载撤销记录
+     * 先按主键游标加载新记录，再按 revoked_at 重新扫描最近 overlap-ms 内的记录，补上晚于更大 ID 提交的记录
+     */
+    @Scheduled(fixedDelayString = "${oauth2.jwt.revocation.refresh-interval-ms:2000}")
+    public synchronized void refresh() {
+        LocalDateTime now = LocalDateTime.now();
+        List<RevokedToken> page;
+        do {
+            page = revokedTokenRepository.findByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(
+                    lastId, now, PageRequest.of(0, pageSize));
+            for (RevokedToken record : page) {
+                add(record.getJti(), record.getExpiresAt());
+                lastId = record.getId();
+            }
+        } while (page.size() == pageSize);
+
+        LocalDateTime since = now.minusNanos(overlapMs * 1_000_000L);
+        int pageNumber = 0;
+        int missed = 0;
+        do {
+            page = revokedTokenRepository.findByRevokedAtGreaterThanEqualAndExpiresAtAfterOrderByIdAsc(
+                    since, now, PageRequest.of(pageNumber++, pageSize));
+            for (RevokedToken record : page) {
+                if (!revoked.containsKey(record.getJti())) {
+                    add(record.getJti(), record.getExpiresAt());
+                    missed++;
+                }
+            }
+        } while (page.size() == pageSize);
+        if (missed > 0) {
+            log.info("补充加载乱序提交的 JWT 撤销记录: count={}", missed);
+        }
+    }
+
+    /**
+     * 移除已过期的撤销记录并重建布隆过滤器
+     * 元素数超过过滤器容量时按两倍容量重建，保持误判率
+     */
+    @Scheduled(fixedDelayString = "${oauth2.jwt.revocation.evict-interval-ms:60000}")
+    public synchronized void evictExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int before = revoked.size();
+        revoked.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+        if (revoked.size() == before && revoked.size() <= filter.capacity()) {
+            return;
+        }
+        rebuild();
+        log.debug("JWT 撤销列表已重建: removed={}, count={}", before - revoked.size(), revoked.size());
+    }
+
+    private synchronized void add(String jti, LocalDateTime expiresAt) {
+        revoked.put(jti, expiresAt);
+        filter.put(jti);
+        if (revoked.size() > filter.capacity()) {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        JtiBloomFilter rebuilt = new JtiBloomFilter(Math.max(expectedSize, revoked.size() * 2), falsePositiveRate);
+        revoked.keySet().forEach(rebuilt::put);
+        filter = rebuilt;
+    }
+}
@@ -0,0 +1,37 @@
+package com.voice.platform.security;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+/**
+ * 当前请求的令牌主体
+ * 由 OAuthService.authenticate 在认证成功后写入，供同一请求内的后续处理读取
+ */
+@Component
+@RequestScope
+public class RequestPrincipal {
+
+    private TokenPrincipal principal;
+
+    public TokenPrincipal get() {
+        return principal;
+    }
+
+    public void set(TokenPrincipal principal) {
+        this.principal = principal;
+    }
+
+    /**
+     * 当前请求的用户 ID，未认证时返回 null
+     */
+    public Long getUserId() {
+        return principal != null ? principal.userId() : null;
+    }
+
+    /**
+     * 当前请求是否已认证
+     */
+    public boolean isAuthenticated() {
+        return principal != null;
+    }
+}
@@ -0,0 +1,22 @@
+package com.voice.platform.security;
+
+import java.time.LocalDateTime;
+
+/**
+ * 访问令牌主体
+ * 令牌验证通过后解析出的身份信息，不可变
+ *
+ * @param userId    令牌所属用户 ID（客户端凭证模式为 null）
+ * @param clientId  颁发令牌的客户端 ID
+ * @param scope     权限范围
+ * @param expiresAt 令牌过期时间
+ */
+public record TokenPrincipal(Long userId, String clientId, String scope, LocalDateTime expiresAt) {
+
+    /**
+     * 检查令牌是否已过期
+     */
+    public boolean isExpired() {
+        return !expiresAt.isAfter(LocalDateTime.now());
+    }
+}
@@ -4,8 +4,11 @@ import com.voice.platform.dto.alexa.AlexaResponse;
 import com.voice.platform.model.Device;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.Instant;
@@ -14,6 +17,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Alexa State Reporter
@@ -30,14 +35,29 @@ public class AlexaStateReporter {
     @Autowired
     private RestTemplate restTemplate;
     
-    private static final String EVENT_GATEWAY_URL = "https://api.amazonalexa.com/v3/events";
+    @Autowired
+    @Qualifier("alexaReportExecutor")
+    private Executor alexaReportExecutor;
+    
+    @Value("${alexa.event-gateway-url:https://api.amazonalexa.com/v3/events}")
+    private String eventGatewayUrl;
     
     /**
      * 报告设备状态变化
      * 发送 ChangeReport 到 Alexa Event Gateway
+     * 
+     * @return 是否无需重试：发送成功、用户没有 Alexa Token、没有状态变化或被 Event Gateway 拒绝时返回 true
      */
-    public void reportStateChange(Device device, String oldPowerState, String newPowerState,
+    public boolean reportStateChange(Device device, String oldPowerState, String newPowerState,
                                    String oldMode, String newMode) {
+        return sendChangeReport(device, oldPowerState, newPowerState, oldMode, newMode) != StateReportOutcome.RETRY;
+    }
+    
+    /**
+     * 发送 ChangeReport 并返回发送结果，发件箱按结果删除记录或重试
+     */
+    public StateReportOutcome sendChangeReport(Device device, String oldPowerState, String newPowerState,
+                                               String oldMode, String newMode) {
         try {
             // 获取 Alexa Access Token
             String token = alexaTokenService.getAlexaAccessToken(device.getUserId());
@@ -45,14 +65,14 @@ public class AlexaStateReporter {
             if (token == null) {
                 log.warn("用户没有 Alexa Token，跳过状态报告: userId={}, deviceId={}", 
                         device.getUserId(), device.getDeviceId());
-                return;
+                return StateReportOutcome.DELIVERED;
             }
             
             // 构建变化的属性列表
             List<AlexaResponse.Property> changedProperties = new ArrayList<>();
             
             // 检查电源状态变化
-            if (oldPowerState != null && !oldPowerState.equalsIgnoreCase(newPowerState)) {
+            if (newPowerState != null && !newPowerState.equalsIgnoreCase(oldPowerState)) {
                 changedProperties.add(AlexaResponse.Property.builder()
                     .namespace("Alexa.PowerController")
                     .name("powerState")
@@ -61,11 +81,11 @@ public class AlexaStateReporter {
                     .uncertaintyInMilliseconds(500)
                     .build());
                 
-                log.info("检测到电源状态变化: {} -> {}", oldPowerState, newPowerState);
+                log.debug("检测到电源状态变化: {} -> {}", oldPowerState, newPowerState);
             }
             
             // 检查模式变化
-            if (oldMode != null && newMode != null && !oldMode.equalsIgnoreCase(newMode)) {
+            if (newMode != null && !newMode.equalsIgnoreCase(oldMode)) {
                 changedProperties.add(AlexaResponse.Property.builder()
                     .namespace("Alexa.ModeController")
                     .name("mode")
@@ -74,13 +94,13 @@ public class AlexaStateReporter {
                     .uncertaintyInMilliseconds(500)
                     .build());
                 
-                log.info("检测到模式变化: {} -> {}", oldMode, newMode);
+                log.debug("检测到模式变化: {} -> {}", oldMode, newMode);
             }
             
             // 如果没有变化，不发送报告
             if (changedProperties.isEmpty()) {
                 log.debug("没有状态变化，跳过报告: deviceId={}", device.getDeviceId());
-                return;
+                return StateReportOutcome.DELIVERED;
             }
             
             // 构建 ChangeReport
@@ -91,17 +111,37 @@ public class AlexaStateReporter {
             );
             
             // 发送到 Alexa Event Gateway
-            sendToEventGateway(changeReport, token);
+            if (!sendToEventGateway(changeReport, token)) {
+                return StateReportOutcome.RETRY;
+            }
             
-            log.info("✓ 状态报告发送成功: deviceId={}, deviceName={}, changes={}", 
+            log.debug("✓ 状态报告发送成功: deviceId={}, deviceName={}, changes={}", 
                     device.getDeviceId(), device.getDeviceName(), changedProperties.size());
+            return StateReportOutcome.DELIVERED;
             
+        } catch (HttpClientErrorException e) {
+            StateReportOutcome outcome = StateReportOutcome.ofClientError(e.getStatusCode());
+            log.warn("Event Gateway 拒绝状态报告: deviceId={}, status={}, outcome={}", 
+                    device.getDeviceId(), e.getStatusCode(), outcome);
+            return outcome;
         } catch (Exception e) {
             log.error("状态报告失败: deviceId={}, deviceName={}", 
                     device.getDeviceId(), device.getDeviceName(), e);
+            return StateReportOutcome.RETRY;
         }
     }
     
+    /**
+     * 异步报告设备状态变化
+     * 在 Alexa 出站执行器上发送，不占用调用方线程
+     */
+    public CompletableFuture<Boolean> reportStateChangeAsync(Device device, String oldPowerState, String newPowerState,
+                                                             String oldMode, String newMode) {
+        return CompletableFuture.supplyAsync(
+                () -> reportStateChange(device, oldPowerState, newPowerState, oldMode, newMode),
+                alexaReportExecutor);
+    }
+    
     /**
      * 构建 ChangeReport 消息
      */
@@ -156,7 +196,7 @@ public class AlexaStateReporter {
     /**
      * 发送到 Alexa Event Gateway
      */
-    private void sendToEventGateway(Map<String, Object> changeReport, String token) {
+    private boolean sendToEventGateway(Map<String, Object> changeReport, String token) {
         try {
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
@@ -165,18 +205,21 @@ public class AlexaStateReporter {
             HttpEntity<Map<String, Object>> request = new HttpEntity<>(changeReport, headers);
             
             ResponseEntity<String> response = restTemplate.postForEntity(
-                EVENT_GATEWAY_URL,
+                eventGatewayUrl,
                 request,
                 String.class
             );
             
             if (response.getStatusCode().is2xxSuccessful()) {
                 log.debug("Event Gateway 响应成功: status={}", response.getStatusCode());
-            } else {
-                log.warn("Event Gateway 响应异常: status={}, body={}", 
-                        response.getStatusCode(), response.getBody());
+                return true;
             }
+            log.warn("Event Gateway 响应异常: status={}, body={}", 
+                    response.getStatusCode(), response.getBody());
+            return false;
             
+        } catch (HttpClientErrorException e) {
+            throw e;
         } catch (Exception e) {
             log.error("发送到 Event Gateway 失败", e);
             throw e;
@@ -1,24 +1,45 @@
 package com.voice.platform.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.voice.platform.model.AlexaToken;
 import com.voice.platform.repository.AlexaTokenRepository;
+import com.voice.platform.util.SingleFlight;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.*;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
 /**
  * Alexa Token Service
  * 管理 Alexa Event Gateway 所需的访问令牌
  * 支持 AcceptGrant 和 Token 刷新
+ * 
+ * 同一用户的令牌刷新合并为单次请求：令牌过期时并发调用方等待同一次刷新；
+ * 令牌使用超过有效期的 refresh-at-fraction 后在后台提前刷新，调用方继续使用当前令牌
+ * 
+ * 令牌按 userId 缓存在内存中，首次使用时加载，保存和刷新时直接写入缓存，ChangeReport 不再逐次查询数据库；
+ * 没有令牌的用户缓存较短时间。后台定时按批扫描即将过期的令牌，以有限并发向令牌端点刷新
  */
 @Slf4j
 @Service
@@ -36,7 +57,81 @@ public class AlexaTokenService {
     @Value("${alexa.client-secret:}")
     private String alexaClientSecret;
     
-    private static final String TOKEN_URL = "https://api.amazon.com/auth/o2/token";
+    @Value("${alexa.token-exchange-url:https://api.amazon.com/auth/o2/token}")
+    private String tokenUrl;
+    
+    @Value("${alexa.token-refresh-at-fraction:0.75}")
+    private double refreshAtFraction;
+    
+    @Autowired
+    @Qualifier("alexaReportExecutor")
+    private Executor alexaReportExecutor;
+    
+    @Value("${alexa.token-cache.max-size:100000}")
+    private long cacheMaxSize;
+    
+    @Value("${alexa.token-cache.ttl-seconds:3600}")
+    private long cacheTtlSeconds;
+    
+    @Value("${alexa.token-cache.negative-ttl-seconds:60}")
+    private long negativeTtlSeconds;
+    
+    @Value("${alexa.token-refresh.lookahead-seconds:600}")
+    private long lookaheadSeconds;
+    
+    @Value("${alexa.token-refresh.expired-retry-minutes:60}")
+    private long expiredRetryMinutes;
+    
+    @Value("${alexa.token-refresh.batch-size:200}")
+    private int batchSize;
+    
+    @Value("${alexa.token-refresh.concurrency:8}")
+    private int refreshConcurrency;
+    
+    private final SingleFlight<Long, AlexaToken> refreshes = new SingleFlight<>();
+    
+    /**
+     * userId -> 令牌，没有令牌的用户缓存为空
+     */
+    private Cache<Long, Optional<AlexaToken>> tokenCache;
+    
+    /**
+     * 后台批量刷新执行器，并发数由 refreshConcurrency 信号量限制
+     */
+    private final ExecutorService refreshExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("alexa-token-refresh-", 0).factory());
+    
+    @PostConstruct
+    public void init() {
+        long ttlNanos = Duration.ofSeconds(cacheTtlSeconds).toNanos();
+        long negativeTtlNanos = Duration.ofSeconds(negativeTtlSeconds).toNanos();
+        tokenCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<Long, Optional<AlexaToken>>() {
+                    @Override
+                    public long expireAfterCreate(Long userId, Optional<AlexaToken> token, long currentTime) {
+                        return token.isPresent() ? ttlNanos : negativeTtlNanos;
+                    }
+                    
+                    @Override
+                    public long expireAfterUpdate(Long userId, Optional<AlexaToken> token,
+                                                  long currentTime, long currentDuration) {
+                        return expireAfterCreate(userId, token, currentTime);
+                    }
+                    
+                    @Override
+                    public long expireAfterRead(Long userId, Optional<AlexaToken> token,
+                                                long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.close();
+    }
     
     /**
      * 用授权码换取 Alexa Access Token
@@ -59,7 +154,7 @@ public class AlexaTokenService {
             
             HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(params, headers);
             
-            ResponseEntity<Map> response = restTemplate.postForEntity(TOKEN_URL, request, Map.class);
+            ResponseEntity<Map> response = restTemplate.postForEntity(tokenUrl, request, Map.class);
             
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 Map<String, Object> body = response.getBody();
@@ -104,21 +199,28 @@ public class AlexaTokenService {
             existingToken.setAccessToken(token.getAccessToken());
             existingToken.setRefreshToken(token.getRefreshToken());
             existingToken.setExpiresAt(token.getExpiresAt());
-            tokenRepository.save(existingToken);
+            tokenCache.put(token.getUserId(), Optional.of(tokenRepository.save(existingToken)));
             log.info("✓ 更新 Alexa Token: userId={}", token.getUserId());
         } else {
             // 创建新记录
-            tokenRepository.save(token);
+            tokenCache.put(token.getUserId(), Optional.of(tokenRepository.save(token)));
             log.info("✓ 保存 Alexa Token: userId={}", token.getUserId());
         }
     }
     
+    /**
+     * 用户是否已关联 Alexa（存在 Alexa Token），使用令牌缓存，不逐次查询数据库
+     */
+    public boolean hasToken(Long userId) {
+        return tokenCache.get(userId, tokenRepository::findByUserId).isPresent();
+    }
+    
     /**
      * 获取用户的 Alexa Access Token
-     * 如果过期则自动刷新
+     * 如果过期则自动刷新，接近过期时在后台提前刷新
      */
     public String getAlexaAccessToken(Long userId) {
-        Optional<AlexaToken> tokenOpt = tokenRepository.findByUserId(userId);
+        Optional<AlexaToken> tokenOpt = tokenCache.get(userId, tokenRepository::findByUserId);
         
         if (!tokenOpt.isPresent()) {
             log.warn("用户没有 Alexa Token: userId={}", userId);
@@ -130,16 +232,88 @@ public class AlexaTokenService {
         // 检查是否过期
         if (token.isExpired()) {
             log.info("Alexa Token 已过期，开始刷新: userId={}", userId);
-            refreshToken(token);
+            return refreshes.executeAndWait(userId, () -> refreshIfStale(token)).getAccessToken();
+        }
+        
+        if (shouldRefreshEarly(token)) {
+            refreshes.execute(userId, () -> refreshIfStale(token), alexaReportExecutor)
+                    .exceptionally(e -> null);
         }
         
         return token.getAccessToken();
     }
     
+    /**
+     * 令牌已使用超过有效期的 refresh-at-fraction
+     * 有效期按最近一次保存时间（updatedAt）到过期时间计算
+     */
+    private boolean shouldRefreshEarly(AlexaToken token) {
+        if (token.getUpdatedAt() == null) {
+            return false;
+        }
+        Duration lifetime = Duration.between(token.getUpdatedAt(), token.getExpiresAt());
+        LocalDateTime refreshAt = token.getUpdatedAt().plus(lifetime.multipliedBy((long) (refreshAtFraction * 100)).dividedBy(100));
+        return !LocalDateTime.now().isBefore(refreshAt);
+    }
+    
+    /**
+     * 数据库中仍是调用方读到的令牌时才刷新，调用方读取后已被其他线程刷新时直接返回新令牌
+     */
+    private AlexaToken refreshIfStale(AlexaToken seen) {
+        Optional<AlexaToken> latest = tokenRepository.findByUserId(seen.getUserId());
+        if (latest.isPresent() && latest.get().getExpiresAt().isAfter(seen.getExpiresAt())) {
+            tokenCache.put(seen.getUserId(), latest);
+            return latest.get();
+        }
+        return refreshToken(latest.orElse(seen));
+    }
+    
+    /**
+     * 后台刷新即将过期的令牌
+     * 按主键分批扫描 lookahead-seconds 内过期的令牌，最多 concurrency 个刷新同时进行；
+     * 过期超过 expired-retry-minutes 仍未刷新成功的令牌（如用户已停用 Skill）不再重试
+     */
+    @Scheduled(initialDelayString = "${alexa.token-refresh.initial-delay-ms:30000}",
+               fixedDelayString = "${alexa.token-refresh.interval-ms:60000}")
+    public void refreshExpiringTokens() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime from = now.minusMinutes(expiredRetryMinutes);
+        LocalDateTime to = now.plusSeconds(lookaheadSeconds);
+        Semaphore permits = new Semaphore(refreshConcurrency);
+        
+        long lastId = 0;
+        int total = 0;
+        List<AlexaToken> batch;
+        try {
+            do {
+                batch = tokenRepository.findByExpiresAtBetweenAndIdGreaterThanOrderByIdAsc(
+                        from, to, lastId, PageRequest.of(0, batchSize));
+                for (AlexaToken token : batch) {
+                    permits.acquire();
+                    refreshes.execute(token.getUserId(), () -> refreshIfStale(token), refreshExecutor)
+                            .whenComplete((refreshed, e) -> permits.release());
+                    lastId = token.getId();
+                }
+                total += batch.size();
+            } while (batch.size() == batchSize);
+            
+            // 等待本轮刷新全部完成
+            permits.acquire(refreshConcurrency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        
+        if (total > 0) {
+            log.info("后台刷新即将过期的 Alexa Token: count={}", total);
+        }
+    }
+    
     /**
      * 刷新 Token
+     * 刷新失败时记录日志并返回原令牌
      */
-    private void refreshToken(AlexaToken token) {
+    private AlexaToken refreshToken(AlexaToken token) {
         try {
             // 构建请求参数
             MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
@@ -154,7 +328,7 @@ public class AlexaTokenService {
             
             HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(params, headers);
             
-            ResponseEntity<Map> response = restTemplate.postForEntity(TOKEN_URL, request, Map.class);
+            ResponseEntity<Map> response = restTemplate.postForEntity(tokenUrl, request, Map.class);
             
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 Map<String, Object> body = response.getBody();
@@ -170,9 +344,11 @@ public class AlexaTokenService {
                 }
                 token.setExpiresAt(LocalDateTime.now().plusSeconds(expiresIn != null ? expiresIn : 3600));
                 
-                tokenRepository.save(token);
+                AlexaToken saved = tokenRepository.save(token);
+                tokenCache.put(saved.getUserId(), Optional.of(saved));
                 
                 log.info("✓ Alexa Token 刷新成功: userId={}", token.getUserId());
+                return saved;
             } else {
                 log.error("Alexa Token 刷新失败: status={}", response.getStatusCode());
             }
@@ -180,5 +356,6 @@ public class AlexaTokenService {
         } catch (Exception e) {
             log.error("Alexa Token 刷新异常: userId={}", token.getUserId(), e);
         }
+        return token;
     }
 }
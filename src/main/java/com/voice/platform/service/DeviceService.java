@@ -1,14 +1,22 @@
 package com.voice.platform.service;
 
+import com.voice.platform.capability.DeviceCapabilityRegistry;
 import com.voice.platform.dto.AligenieResponse;
+import com.voice.platform.dto.RawJson;
+import com.voice.platform.event.DeviceStateChangedEvent;
+import com.voice.platform.logging.RequestLogContext;
 import com.voice.platform.model.Device;
 import com.voice.platform.repository.DeviceRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 @Slf4j
 @Service
@@ -17,45 +25,43 @@ public class DeviceService {
     @Autowired
     private DeviceRepository deviceRepository;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private DeviceStateStore deviceStateStore;
+    
+    @Autowired
+    private RequestLogContext requestLogContext;
+    
+    @Autowired
+    private DiscoveryCache discoveryCache;
+    
+    @Autowired
+    private DeviceCapabilityRegistry capabilityRegistry;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${device-state.optimistic-lock:false}")
+    private boolean optimisticLock;
+    
     /**
      * 设备发现 - 返回用户的所有设备
      */
     public AligenieResponse discovery(Long userId, String messageId) {
-        List<Device> devices = deviceRepository.findByUserId(userId);
-        
         AligenieResponse response = AligenieResponse.success(
             "AliGenie.Iot.Device.Discovery",
             "DiscoveryResponse",
             messageId
         );
         
-        List<Map<String, Object>> deviceList = new ArrayList<>();
-        for (Device device : devices) {
-            Map<String, Object> deviceInfo = new HashMap<>();
-            deviceInfo.put("deviceId", device.getDeviceId());
-            deviceInfo.put("deviceName", device.getDeviceName());
-            deviceInfo.put("deviceType", device.getDeviceType());
-            deviceInfo.put("zone", "客厅");
-            deviceInfo.put("brand", "自定义品牌");
-            deviceInfo.put("model", "V1.0");
-            deviceInfo.put("icon", "https://example.com/icon.png");
-            
-            // 设备属性
-            Map<String, Object> properties = new HashMap<>();
-            properties.put("powerstate", device.getPowerState());
-            properties.put("mode", device.getWorkMode());
-            properties.put("battery", device.getBatteryLevel());
-            deviceInfo.put("properties", properties);
-            
-            // 设备支持的操作
-            List<String> actions = Arrays.asList("TurnOn", "TurnOff", "Pause", "Continue", "SetMode");
-            deviceInfo.put("actions", actions);
-            
-            deviceList.add(deviceInfo);
-        }
+        // 设备列表按用户缓存，未命中时查询设备并按能力模板渲染
+        RawJson deviceList = discoveryCache.get(DiscoveryCache.Platform.ALIGENIE, userId,
+            () -> capabilityRegistry.render(DiscoveryCache.Platform.ALIGENIE, findDevicesByUserId(userId)));
         
         response.getPayload().put("devices", deviceList);
-        log.info("设备发现: userId={}, deviceCount={}", userId, deviceList.size());
+        log.debug("设备发现: userId={}, deviceCount={}", userId, deviceList.size());
         
         return response;
     }
@@ -63,19 +69,12 @@ public class DeviceService {
     /**
      * 设备控制 - 开机
      */
-    @Transactional
-    public AligenieResponse turnOn(String deviceId, String messageId) {
-        Optional<Device> deviceOpt = deviceRepository.findByDeviceId(deviceId);
-        
-        if (!deviceOpt.isPresent()) {
+    public AligenieResponse turnOn(String deviceId, Long userId, String messageId) {
+        if (!updatePowerState(deviceId, userId, "on")) {
             return AligenieResponse.error(messageId, "DEVICE_NOT_FOUND", "设备不存在");
         }
         
-        Device device = deviceOpt.get();
-        device.setPowerState("on");
-        deviceRepository.save(device);
-        
-        log.info("设备开机: deviceId={}, deviceName={}", deviceId, device.getDeviceName());
+        log.debug("设备开机: deviceId={}", deviceId);
         
         return AligenieResponse.success(
             "AliGenie.Iot.Device.Control",
@@ -87,19 +86,12 @@ public class DeviceService {
     /**
      * 设备控制 - 关机
      */
-    @Transactional
-    public AligenieResponse turnOff(String deviceId, String messageId) {
-        Optional<Device> deviceOpt = deviceRepository.findByDeviceId(deviceId);
-        
-        if (!deviceOpt.isPresent()) {
+    public AligenieResponse turnOff(String deviceId, Long userId, String messageId) {
+        if (!updatePowerState(deviceId, userId, "off")) {
             return AligenieResponse.error(messageId, "DEVICE_NOT_FOUND", "设备不存在");
         }
         
-        Device device = deviceOpt.get();
-        device.setPowerState("off");
-        deviceRepository.save(device);
-        
-        log.info("设备关机: deviceId={}, deviceName={}", deviceId, device.getDeviceName());
+        log.debug("设备关机: deviceId={}", deviceId);
         
         return AligenieResponse.success(
             "AliGenie.Iot.Device.Control",
@@ -111,15 +103,14 @@ public class DeviceService {
     /**
      * 设备控制 - 暂停
      */
-    @Transactional
-    public AligenieResponse pause(String deviceId, String messageId) {
-        Optional<Device> deviceOpt = deviceRepository.findByDeviceId(deviceId);
+    public AligenieResponse pause(String deviceId, Long userId, String messageId) {
+        Optional<Device> deviceOpt = findDeviceByDeviceId(deviceId, userId);
         
         if (!deviceOpt.isPresent()) {
             return AligenieResponse.error(messageId, "DEVICE_NOT_FOUND", "设备不存在");
         }
         
-        log.info("设备暂停: deviceId={}", deviceId);
+        log.debug("设备暂停: deviceId={}", deviceId);
         
         return AligenieResponse.success(
             "AliGenie.Iot.Device.Control",
@@ -131,15 +122,14 @@ public class DeviceService {
     /**
      * 设备控制 - 继续
      */
-    @Transactional
-    public AligenieResponse continueWork(String deviceId, String messageId) {
-        Optional<Device> deviceOpt = deviceRepository.findByDeviceId(deviceId);
+    public AligenieResponse continueWork(String deviceId, Long userId, String messageId) {
+        Optional<Device> deviceOpt = findDeviceByDeviceId(deviceId, userId);
         
         if (!deviceOpt.isPresent()) {
             return AligenieResponse.error(messageId, "DEVICE_NOT_FOUND", "设备不存在");
         }
         
-        log.info("设备继续: deviceId={}", deviceId);
+        log.debug("设备继续: deviceId={}", deviceId);
         
         return AligenieResponse.success(
             "AliGenie.Iot.Device.Control",
@@ -151,19 +141,12 @@ public class DeviceService {
     /**
      * 设备控制 - 设置模式
      */
-    @Transactional
-    public AligenieResponse setMode(String deviceId, String mode, String messageId) {
-        Optional<Device> deviceOpt = deviceRepository.findByDeviceId(deviceId);
-        
-        if (!deviceOpt.isPresent()) {
+    public AligenieResponse setMode(String deviceId, Long userId, String mode, String messageId) {
+        if (!updateWorkMode(deviceId, userId, mode)) {
             return AligenieResponse.error(messageId, "DEVICE_NOT_FOUND", "设备不存在");
         }
         
-        Device device = deviceOpt.get();
-        device.setWorkMode(mode);
-        deviceRepository.save(device);
-        
-        log.info("设置设备模式: deviceId={}, mode={}", deviceId, mode);
+        log.debug("设置设备模式: deviceId={}, mode={}", deviceId, mode);
         
         return AligenieResponse.success(
             "AliGenie.Iot.Device.Control",
@@ -175,8 +158,8 @@ public class DeviceService {
     /**
      * 查询设备状态
      */
-    public AligenieResponse query(String deviceId, String messageId) {
-        Optional<Device> deviceOpt = deviceRepository.findByDeviceId(deviceId);
+    public AligenieResponse query(String deviceId, Long userId, String messageId) {
+        Optional<Device> deviceOpt = findDeviceByDeviceId(deviceId, userId);
         
         if (!deviceOpt.isPresent()) {
             return AligenieResponse.error(messageId, "DEVICE_NOT_FOUND", "设备不存在");
@@ -197,68 +180,262 @@ public class DeviceService {
         
         response.getPayload().put("properties", properties);
         
-        log.info("查询设备状态: deviceId={}", deviceId);
+        log.debug("查询设备状态: deviceId={}", deviceId);
         
         return response;
     }
     
     // ============================================
-    // Alexa 专用方法
+    // 设备查询（各平台通用）
     // ============================================
     
     /**
-     * 查找用户的所有设备（Alexa 使用）
+     * 查找用户的所有设备
+     * 开启 Write-Behind 时叠加内存中尚未写回的状态
      */
     public List<Device> findDevicesByUserId(Long userId) {
-        return deviceRepository.findByUserId(userId);
+        List<Device> devices = deviceRepository.findByUserId(userId);
+        return deviceStateStore.isEnabled() ? deviceStateStore.overlay(devices) : devices;
     }
     
     /**
-     * 根据设备 ID 查找设备（Alexa 使用）
+     * 根据设备 ID 查找设备
+     * 开启 Write-Behind 时直接读取内存状态。不校验设备所属用户，仅供状态报告等内部处理使用
      */
     public Optional<Device> findDeviceByDeviceId(String deviceId) {
+        requestLogContext.setDeviceId(deviceId);
+        if (deviceStateStore.isEnabled()) {
+            return deviceStateStore.find(deviceId);
+        }
         return deviceRepository.findByDeviceId(deviceId);
     }
     
     /**
-     * 开机（Alexa 使用）
+     * 查找属于指定用户的设备，语音平台请求只能访问令牌所属用户的设备
+     * 
+     * @return 设备不存在或不属于该用户时返回空
      */
-    @Transactional
-    public void turnOn(String deviceId) {
-        Optional<Device> deviceOpt = deviceRepository.findByDeviceId(deviceId);
-        if (deviceOpt.isPresent()) {
-            Device device = deviceOpt.get();
-            device.setPowerState("on");
-            deviceRepository.save(device);
-            log.info("Alexa 设备开机: deviceId={}", deviceId);
+    public Optional<Device> findDeviceByDeviceId(String deviceId, Long userId) {
+        requestLogContext.setDeviceId(deviceId);
+        if (deviceStateStore.isEnabled()) {
+            return deviceStateStore.find(deviceId).filter(device -> Objects.equals(userId, device.getUserId()));
         }
+        return deviceRepository.findByDeviceIdAndUserId(deviceId, userId);
     }
     
     /**
-     * 关机（Alexa 使用）
+     * 批量查找设备，一次 IN 查询
+     * 开启 Write-Behind 时优先读取内存状态，未命中的设备一次加载。不校验设备所属用户，仅供内部处理使用
+     * 
+     * @return deviceId -> 设备，不存在的设备不包含在结果中
      */
-    @Transactional
-    public void turnOff(String deviceId) {
-        Optional<Device> deviceOpt = deviceRepository.findByDeviceId(deviceId);
-        if (deviceOpt.isPresent()) {
-            Device device = deviceOpt.get();
-            device.setPowerState("off");
-            deviceRepository.save(device);
-            log.info("Alexa 设备关机: deviceId={}", deviceId);
+    public Map<String, Device> findDevicesByDeviceIds(Collection<String> deviceIds) {
+        if (deviceIds.isEmpty()) {
+            return new HashMap<>();
         }
+        if (deviceIds.size() == 1) {
+            requestLogContext.setDeviceId(deviceIds.iterator().next());
+        }
+        if (deviceStateStore.isEnabled()) {
+            return deviceStateStore.findAll(deviceIds);
+        }
+        Map<String, Device> devices = new HashMap<>();
+        for (Device device : deviceRepository.findByDeviceIdIn(deviceIds)) {
+            devices.put(device.getDeviceId(), device);
+        }
+        return devices;
     }
     
     /**
-     * 设置模式（Alexa 使用）
+     * 批量查找属于指定用户的设备
+     * 
+     * @return deviceId -> 设备，不存在或不属于该用户的设备不包含在结果中
      */
-    @Transactional
-    public void setMode(String deviceId, String mode) {
-        Optional<Device> deviceOpt = deviceRepository.findByDeviceId(deviceId);
-        if (deviceOpt.isPresent()) {
-            Device device = deviceOpt.get();
-            device.setWorkMode(mode);
-            deviceRepository.save(device);
-            log.info("Alexa 设置模式: deviceId={}, mode={}", deviceId, mode);
+    public Map<String, Device> findDevicesByDeviceIds(Long userId, Collection<String> deviceIds) {
+        if (deviceIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        if (deviceIds.size() == 1) {
+            requestLogContext.setDeviceId(deviceIds.iterator().next());
+        }
+        if (deviceStateStore.isEnabled()) {
+            Map<String, Device> devices = deviceStateStore.findAll(deviceIds);
+            devices.values().removeIf(device -> !Objects.equals(userId, device.getUserId()));
+            return devices;
         }
+        Map<String, Device> devices = new HashMap<>();
+        for (Device device : deviceRepository.findByUserIdAndDeviceIdIn(userId, deviceIds)) {
+            devices.put(device.getDeviceId(), device);
+        }
+        return devices;
+    }
+    
+    // ============================================
+    // 状态修改
+    // 每次修改在一个事务中执行，状态变化事件的发件箱记录随设备修改一起提交
+    // ============================================
+    
+    /**
+     * 修改设备电源状态并发布状态变化事件
+     * 开启 Write-Behind 时只修改内存状态，由 DeviceStateStore 批量写回；
+     * 否则执行单条条件 UPDATE，状态未变化时不发布事件
+     */
+    public void updatePowerState(Device device, String powerState) {
+        transactionTemplate.executeWithoutResult(status -> applyPowerState(device, powerState));
+    }
+    
+    private void applyPowerState(Device device, String powerState) {
+        String oldPowerState;
+        if (deviceStateStore.isEnabled()) {
+            Optional<Device> before = deviceStateStore.update(device.getDeviceId(), d -> d.setPowerState(powerState));
+            if (!before.isPresent()) {
+                return;
+            }
+            oldPowerState = before.get().getPowerState();
+        } else {
+            if (!persist(device, powerState, Device::getPowerState,
+                    deviceRepository::updatePowerState, deviceRepository::updatePowerStateIfVersion)) {
+                return;
+            }
+            oldPowerState = device.getPowerState();
+        }
+        
+        device.setPowerState(powerState);
+        if (Objects.equals(oldPowerState, powerState)) {
+            return;
+        }
+        eventPublisher.publishEvent(new DeviceStateChangedEvent(device.getDeviceId(), device.getUserId(),
+                oldPowerState, powerState, device.getWorkMode(), device.getWorkMode()));
+    }
+    
+    /**
+     * 修改设备工作模式并发布状态变化事件
+     * 开启 Write-Behind 时只修改内存状态，由 DeviceStateStore 批量写回；
+     * 否则执行单条条件 UPDATE，模式未变化时不发布事件
+     */
+    public void updateWorkMode(Device device, String workMode) {
+        transactionTemplate.executeWithoutResult(status -> applyWorkMode(device, workMode));
+    }
+    
+    private void applyWorkMode(Device device, String workMode) {
+        String oldWorkMode;
+        if (deviceStateStore.isEnabled()) {
+            Optional<Device> before = deviceStateStore.update(device.getDeviceId(), d -> d.setWorkMode(workMode));
+            if (!before.isPresent()) {
+                return;
+            }
+            oldWorkMode = before.get().getWorkMode();
+        } else {
+            if (!persist(device, workMode, Device::getWorkMode,
+                    deviceRepository::updateWorkMode, deviceRepository::updateWorkModeIfVersion)) {
+                return;
+            }
+            oldWorkMode = device.getWorkMode();
+        }
+        
+        device.setWorkMode(workMode);
+        if (Objects.equals(oldWorkMode, workMode)) {
+            return;
+        }
+        eventPublisher.publishEvent(new DeviceStateChangedEvent(device.getDeviceId(), device.getUserId(),
+                device.getPowerState(), device.getPowerState(), oldWorkMode, workMode));
+    }
+    
+    /**
+     * 按设备 ID 修改属于指定用户的设备的电源状态，不预先查询设备
+     * 执行一条带用户条件的条件 UPDATE，受影响行数为 0 时才确认设备是否存在（状态未变化）。
+     * 直接更新时不知道修改前的状态，事件中修改前的电源状态为 null、工作模式为 null（未修改）。
+     * 开启 Write-Behind 或乐观锁时需要设备的内存状态或版本号，先查找设备再修改
+     * 
+     * @return 设备不存在或不属于该用户时返回 false
+     */
+    public boolean updatePowerState(String deviceId, Long userId, String powerState) {
+        requestLogContext.setDeviceId(deviceId);
+        if (deviceStateStore.isEnabled() || optimisticLock) {
+            Optional<Device> device = findDeviceByDeviceId(deviceId, userId);
+            device.ifPresent(d -> updatePowerState(d, powerState));
+            return device.isPresent();
+        }
+        
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (deviceRepository.updatePowerState(deviceId, userId, powerState) == 0) {
+                return deviceRepository.existsByDeviceIdAndUserId(deviceId, userId);
+            }
+            eventPublisher.publishEvent(new DeviceStateChangedEvent(deviceId, userId,
+                    null, powerState, null, null));
+            return true;
+        }));
+    }
+    
+    /**
+     * 按设备 ID 修改属于指定用户的设备的工作模式，不预先查询设备
+     * 与 updatePowerState(String, Long, String) 相同，事件中修改前的工作模式为 null、电源状态为 null（未修改）
+     * 
+     * @return 设备不存在或不属于该用户时返回 false
+     */
+    public boolean updateWorkMode(String deviceId, Long userId, String workMode) {
+        requestLogContext.setDeviceId(deviceId);
+        if (deviceStateStore.isEnabled() || optimisticLock) {
+            Optional<Device> device = findDeviceByDeviceId(deviceId, userId);
+            device.ifPresent(d -> updateWorkMode(d, workMode));
+            return device.isPresent();
+        }
+        
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (deviceRepository.updateWorkMode(deviceId, userId, workMode) == 0) {
+                return deviceRepository.existsByDeviceIdAndUserId(deviceId, userId);
+            }
+            eventPublisher.publishEvent(new DeviceStateChangedEvent(deviceId, userId,
+                    null, null, null, workMode));
+            return true;
+        }));
+    }
+    
+    /**
+     * 将状态修改写入数据库
+     * 开启乐观锁时按版本号更新，版本冲突则重新加载设备后重试一次；
+     * 返回 true 时 device 中保存的是本次修改前的状态
+     * 
+     * @return 是否有行被更新
+     */
+    private boolean persist(Device device, String value, Function<Device, String> currentValue,
+                            BiFunction<String, String, Integer> update, VersionedUpdate versionedUpdate) {
+        String deviceId = device.getDeviceId();
+        if (!optimisticLock) {
+            return update.apply(deviceId, value) > 0;
+        }
+        
+        for (int attempt = 0; attempt < 2; attempt++) {
+            long version = device.getVersion() != null ? device.getVersion() : 0L;
+            if (versionedUpdate.apply(deviceId, value, version) > 0) {
+                device.setVersion(version + 1);
+                return true;
+            }
+            
+            Optional<Device> latest = deviceRepository.findByDeviceId(deviceId);
+            if (!latest.isPresent()) {
+                return false;
+            }
+            log.warn("检测到设备并发修改: deviceId={}, expectedVersion={}, currentVersion={}",
+                    deviceId, version, latest.get().getVersion());
+            device.setPowerState(latest.get().getPowerState());
+            device.setWorkMode(latest.get().getWorkMode());
+            device.setBatteryLevel(latest.get().getBatteryLevel());
+            device.setVersion(latest.get().getVersion());
+            if (Objects.equals(value, currentValue.apply(device))) {
+                return false;
+            }
+        }
+        
+        log.warn("设备并发修改重试失败，放弃本次修改: deviceId={}", deviceId);
+        return false;
+    }
+    
+    /**
+     * 按版本号更新的仓库方法
+     */
+    @FunctionalInterface
+    private interface VersionedUpdate {
+        int apply(String deviceId, String value, long version);
     }
 }
@@ -0,0 +1,130 @@
+package com.voice.platform.service;
+
+import com.voice.platform.event.DeviceStateChangedEvent;
+import com.voice.platform.model.Device;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 设备状态推送监听器
+ * 事务提交后在各平台独立的线程池中调用状态报告器，语音指令的响应时间不包含对外 HTTPS 调用
+ * 
+ * 开启发件箱（state-report.outbox.enabled）时，状态变化在设备修改的事务中写入发件箱，
+ * 提交后由 StateReportOutboxWorker 投递并在失败时重试，直接推送的监听方法不执行；开启设备状态写回时仍直接推送
+ */
+@Slf4j
+@Component
+public class DeviceStateReportListener {
+    
+    @Autowired
+    private DeviceService deviceService;
+    
+    @Autowired
+    private AlexaStateReporter alexaStateReporter;
+    
+    @Autowired
+    private GoogleStateReporter googleStateReporter;
+    
+    @Autowired
+    private GoogleReportStateBatcher googleReportStateBatcher;
+    
+    @Autowired
+    private StateReportOutboxWorker outboxWorker;
+    
+    @Autowired
+    @Qualifier("alexaReportExecutor")
+    private Executor alexaReportExecutor;
+    
+    @Autowired
+    @Qualifier("googleReportExecutor")
+    private Executor googleReportExecutor;
+    
+    @Value("${google.homegraph.report-batch.enabled:true}")
+    private boolean googleBatchEnabled;
+    
+    /**
+     * 写入发件箱
+     * 同步执行，与设备修改在同一事务中提交或回滚
+     */
+    @EventListener
+    public void writeOutbox(DeviceStateChangedEvent event) {
+        if (outboxWorker.isEnabled()) {
+            outboxWorker.enqueue(event);
+        }
+    }
+    
+    /**
+     * 事务提交后立即投递发件箱，不等待下次定时投递
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void drainOutbox(DeviceStateChangedEvent event) {
+        outboxWorker.drainSoon();
+    }
+    
+    /**
+     * 推送到 Alexa Event Gateway
+     * 发件箱开启时不注册执行（condition），状态变化只经发件箱投递
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true,
+            condition = "!@stateReportOutboxWorker.isEnabled()")
+    public void reportToAlexa(DeviceStateChangedEvent event) {
+        dispatch(alexaReportExecutor, "alexa", event, () -> loadDevice(event).ifPresent(device ->
+                alexaStateReporter.reportStateChange(device,
+                        event.oldPowerState(), event.newPowerState(),
+                        event.oldWorkMode(), event.newWorkMode())));
+    }
+    
+    /**
+     * 推送到 Google HomeGraph
+     * 开启批量合并时交给 GoogleReportStateBatcher 按用户合并发送；发件箱开启时不执行
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true,
+            condition = "!@stateReportOutboxWorker.isEnabled()")
+    public void reportToGoogle(DeviceStateChangedEvent event) {
+        if (!googleBatchEnabled) {
+            dispatch(googleReportExecutor, "google", event, () -> loadDevice(event).ifPresent(device ->
+                    googleStateReporter.reportStateChange(device,
+                            event.oldPowerState(), event.newPowerState(),
+                            event.oldWorkMode(), event.newWorkMode())));
+            return;
+        }
+        
+        if (googleStateReporter.hasStateChange(event.oldPowerState(), event.newPowerState(),
+                event.oldWorkMode(), event.newWorkMode())) {
+            dispatch(googleReportExecutor, "google", event,
+                    () -> loadDevice(event).ifPresent(googleReportStateBatcher::submit));
+        }
+    }
+    
+    /**
+     * 提交到平台执行器，执行器饱和时放弃本次推送，不把拒绝异常抛回提交事务的请求线程
+     */
+    private void dispatch(Executor executor, String platform, DeviceStateChangedEvent event, Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("状态推送执行器已满，放弃本次推送: platform={}, deviceId={}", platform, event.deviceId());
+        }
+    }
+    
+    /**
+     * 加载设备最新状态
+     */
+    private Optional<Device> loadDevice(DeviceStateChangedEvent event) {
+        Optional<Device> device = deviceService.findDeviceByDeviceId(event.deviceId());
+        if (!device.isPresent()) {
+            log.warn("设备已不存在，跳过状态推送: deviceId={}", event.deviceId());
+        }
+        return device;
+    }
+}
@@ -0,0 +1,339 @@
+package com.voice.platform.service;
+
+import com.voice.platform.model.Device;
+import com.voice.platform.repository.DeviceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+/**
+ * 设备状态内存存储（Write-Behind）
+ * 以 deviceId 为键保存设备状态，控制指令只修改内存，
+ * powerState / workMode 的变更由定时任务批量写回数据库，正常停机时同步写回剩余变更。
+ * 电量由设备上报直接写库，不经过本存储写回，以数据库为准
+ * 
+ * 内存中的状态是权威值，仅适用于单实例部署，默认关闭。
+ * 进程崩溃时，最近一个写回周期内的变更（以及写回失败、等待重试的变更）会丢失，@PreDestroy 只覆盖正常停机
+ * 
+ * 没有待写回变更的设备在空闲超过 idle-ttl-seconds 或总数超过 max-size 时移出内存，下次访问重新从数据库加载；
+ * 通过 JPA 修改或删除设备（改名、换绑用户等）时由 DeviceEntityListener 刷新内存中的设备信息
+ */
+@Slf4j
+@Component
+public class DeviceStateStore {
+    
+    private static final String FLUSH_SQL =
+        "UPDATE devices SET power_state = ?, work_mode = ?, updated_at = ?, " +
+        "version = COALESCE(version, 0) + 1 WHERE device_id = ?";
+    
+    @Autowired
+    private DeviceRepository deviceRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Value("${device-state.write-behind.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${device-state.write-behind.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${device-state.write-behind.max-size:100000}")
+    private int maxSize;
+    
+    @Value("${device-state.write-behind.idle-ttl-seconds:600}")
+    private long idleTtlSeconds;
+    
+    /**
+     * 设备状态: deviceId -> 设备，只在 compute 系列方法中修改
+     */
+    private final Map<String, Entry> states = new ConcurrentHashMap<>();
+    
+    /**
+     * 有未写回变更的设备 ID，只在对应设备的 compute 中标记，移出内存时据此跳过未写回的设备
+     */
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * 读取设备状态，首次访问时从数据库加载
+     * 副本在 compute 中生成，与 update 互斥，不会读到修改了一半的状态
+     * 
+     * @return 设备状态副本
+     */
+    public Optional<Device> find(String deviceId) {
+        Device snapshot = snapshot(deviceId);
+        if (snapshot != null) {
+            return Optional.of(snapshot);
+        }
+        Optional<Device> loaded = deviceRepository.findByDeviceId(deviceId);
+        return loaded.map(this::snapshotOrLoad);
+    }
+    
+    /**
+     * 批量读取设备状态，内存中未命中的设备用一次 IN 查询加载
+     * 
+     * @return deviceId -> 设备状态副本，不存在的设备不包含在结果中
+     */
+    public Map<String, Device> findAll(Collection<String> deviceIds) {
+        Map<String, Device> result = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String deviceId : deviceIds) {
+            Device snapshot = snapshot(deviceId);
+            if (snapshot != null) {
+                result.put(deviceId, snapshot);
+            } else {
+                misses.add(deviceId);
+            }
+        }
+        
+        if (!misses.isEmpty()) {
+            for (Device loaded : deviceRepository.findByDeviceIdIn(misses)) {
+                result.put(loaded.getDeviceId(), snapshotOrLoad(loaded));
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * 用内存中的最新状态覆盖数据库查询结果
+     * 用于设备发现等直接查库的场景，保证未写回的电源状态和工作模式可见
+     */
+    public List<Device> overlay(List<Device> devices) {
+        for (Device device : devices) {
+            states.computeIfPresent(device.getDeviceId(), (key, entry) -> {
+                device.setPowerState(entry.device.getPowerState());
+                device.setWorkMode(entry.device.getWorkMode());
+                return entry;
+            });
+        }
+        return devices;
+    }
+    
+    /**
+     * 在 compute 中复制内存中的设备状态，不在内存中时返回 null
+     */
+    private Device snapshot(String deviceId) {
+        Device[] copy = new Device[1];
+        states.computeIfPresent(deviceId, (key, entry) -> {
+            entry.touch();
+            copy[0] = entry.device.copy();
+            return entry;
+        });
+        return copy[0];
+    }
+    
+    /**
+     * 把数据库加载的设备放入内存（已被并发加载时保留内存中的状态），返回内存状态的副本
+     */
+    private Device snapshotOrLoad(Device loaded) {
+        Device[] copy = new Device[1];
+        states.compute(loaded.getDeviceId(), (key, entry) -> {
+            Entry current = entry != null ? entry : new Entry(loaded.copy());
+            current.touch();
+            copy[0] = current.device.copy();
+            return current;
+        });
+        return copy[0];
+    }
+    
+    /**
+     * 修改设备状态并标记为待写回
+     * 
+     * @param deviceId 设备 ID
+     * @param mutation 对设备状态的修改
+     * @return 修改前的设备状态副本，设备不存在时返回空
+     */
+    public Optional<Device> update(String deviceId, Consumer<Device> mutation) {
+        Device[] before = new Device[1];
+        // 加载与修改之间设备可能被移出内存，此时重新加载
+        while (before[0] == null) {
+            if (!find(deviceId).isPresent()) {
+                return Optional.empty();
+            }
+            states.computeIfPresent(deviceId, (key, entry) -> {
+                before[0] = entry.device.copy();
+                mutation.accept(entry.device);
+                entry.touch();
+                dirty.add(key);
+                return entry;
+            });
+        }
+        return Optional.of(before[0]);
+    }
+    
+    /**
+     * 设备经 JPA 修改后刷新内存中的设备信息
+     * 没有待写回变更时直接移出内存，下次访问重新加载；有待写回变更时保留内存中的电源状态和工作模式，更新其余字段
+     */
+    public void refresh(Device changed) {
+        states.computeIfPresent(changed.getDeviceId(), (key, entry) -> {
+            if (!dirty.contains(key)) {
+                return null;
+            }
+            Device device = entry.device;
+            device.setDeviceName(changed.getDeviceName());
+            device.setDeviceType(changed.getDeviceType());
+            device.setUserId(changed.getUserId());
+            device.setStatus(changed.getStatus());
+            device.setBatteryLevel(changed.getBatteryLevel());
+            return entry;
+        });
+    }
+    
+    /**
+     * 设备删除后移出内存，丢弃未写回的变更
+     */
+    public void remove(String deviceId) {
+        states.computeIfPresent(deviceId, (key, entry) -> {
+            dirty.remove(key);
+            return null;
+        });
+    }
+    
+    /**
+     * 定时批量写回变更
+     */
+    @Scheduled(fixedDelayString = "${device-state.write-behind.flush-interval-ms:500}")
+    public synchronized void flush() {
+        if (!enabled || dirty.isEmpty()) {
+            return;
+        }
+        
+        List<String> deviceIds = new ArrayList<>(dirty);
+        for (int from = 0; from < deviceIds.size(); from += batchSize) {
+            flushBatch(deviceIds.subList(from, Math.min(from + batchSize, deviceIds.size())));
+        }
+    }
+    
+    /**
+     * 移出空闲设备，超过 max-size 时再按最近访问时间移出最久未访问的设备
+     * 有待写回变更的设备不移出；与 flush 互斥，写回失败重新标记前设备不会被移出
+     */
+    @Scheduled(fixedDelayString = "${device-state.write-behind.evict-interval-ms:10000}")
+    public synchronized void evictIdle() {
+        if (!enabled || states.isEmpty()) {
+            return;
+        }
+        
+        long idleBefore = System.nanoTime() - TimeUnit.SECONDS.toNanos(idleTtlSeconds);
+        int evicted = 0;
+        for (String deviceId : states.keySet()) {
+            if (removeIfClean(deviceId, lastAccess -> lastAccess - idleBefore < 0)) {
+                evicted++;
+            }
+        }
+        
+        int excess = states.size() - maxSize;
+        if (excess > 0) {
+            // 先取访问时间快照再排序，避免排序过程中访问时间变化
+            List<Map.Entry<String, Long>> candidates = new ArrayList<>(states.size());
+            states.forEach((deviceId, entry) -> {
+                if (!dirty.contains(deviceId)) {
+                    candidates.add(Map.entry(deviceId, entry.lastAccess));
+                }
+            });
+            candidates.sort(Map.Entry.comparingByValue(Comparator.naturalOrder()));
+            for (int i = 0; i < Math.min(excess, candidates.size()); i++) {
+                if (removeIfClean(candidates.get(i).getKey(), lastAccess -> true)) {
+                    evicted++;
+                }
+            }
+        }
+        
+        if (evicted > 0) {
+            log.debug("设备状态移出内存: evicted={}, remaining={}", evicted, states.size());
+        }
+    }
+    
+    /**
+     * 停机前写回全部变更
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (!dirty.isEmpty()) {
+            log.info("停机写回设备状态: pendingCount={}", dirty.size());
+            flush();
+        }
+    }
+    
+    private void flushBatch(List<String> deviceIds) {
+        List<Object[]> args = new ArrayList<>(deviceIds.size());
+        List<String> flushed = new ArrayList<>(deviceIds.size());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        
+        // 清除待写回标记与读取快照在同一 compute 中完成，之后的修改会重新标记，在下一轮写回
+        for (String deviceId : deviceIds) {
+            Entry entry = states.computeIfPresent(deviceId, (key, current) -> {
+                dirty.remove(key);
+                args.add(new Object[]{current.device.getPowerState(), current.device.getWorkMode(), now, deviceId});
+                flushed.add(key);
+                return current;
+            });
+            if (entry == null) {
+                // 设备已删除
+                dirty.remove(deviceId);
+            }
+        }
+        
+        try {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, args);
+            log.debug("设备状态写回完成: count={}", args.size());
+        } catch (Exception e) {
+            dirty.addAll(flushed);
+            log.error("设备状态写回失败，等待下次重试: count={}", flushed.size(), e);
+        }
+    }
+    
+    private boolean removeIfClean(String deviceId, LongPredicate evictable) {
+        boolean[] removed = new boolean[1];
+        states.computeIfPresent(deviceId, (key, entry) -> {
+            if (dirty.contains(key) || !evictable.test(entry.lastAccess)) {
+                return entry;
+            }
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+    
+    /**
+     * 内存中的设备状态及最近访问时间
+     */
+    private static final class Entry {
+        
+        private final Device device;
+        
+        private volatile long lastAccess = System.nanoTime();
+        
+        private Entry(Device device) {
+            this.device = device;
+        }
+        
+        private void touch() {
+            lastAccess = System.nanoTime();
+        }
+    }
+}
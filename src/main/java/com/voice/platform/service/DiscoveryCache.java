@@ -0,0 +1,119 @@
+package com.voice.platform.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.voice.platform.capability.DeviceCapabilityRegistry;
+import com.voice.platform.dto.RawJson;
+import com.voice.platform.event.DeviceStateChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * 设备发现响应缓存
+ * 按平台和用户缓存已序列化的设备列表片段，重复的设备发现只需一次缓存查找和一次字节拷贝，
+ * 响应外层（messageId 等请求相关字段）仍按请求构建
+ *
+ * 设备新增、改名、删除时由 DeviceEntityListener 失效该用户的所有平台；
+ * 能力模板引用设备状态的平台（天猫精灵、小度、小爱）在设备状态变化时同时失效。
+ * 直接修改数据库的变更由 ttl-seconds 兜底
+ */
+@Slf4j
+@Component
+public class DiscoveryCache {
+
+    /**
+     * 设备发现平台
+     */
+    public enum Platform {
+        ALEXA,
+        GOOGLE,
+        ALIGENIE,
+        DUEROS,
+        MIAI
+    }
+
+    private record Key(Platform platform, Long userId) {
+    }
+
+    private final Cache<Key, RawJson> cache;
+
+    private final DeviceCapabilityRegistry capabilityRegistry;
+
+    private final boolean enabled;
+
+    public DiscoveryCache(DeviceCapabilityRegistry capabilityRegistry,
+                          @Value("${discovery-cache.enabled:true}") boolean enabled,
+                          @Value("${discovery-cache.max-size:100000}") long maxSize,
+                          @Value("${discovery-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.capabilityRegistry = capabilityRegistry;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+        log.info("设备发现缓存已初始化: enabled={}, maxSize={}, ttlSeconds={}", enabled, maxSize, ttlSeconds);
+    }
+
+    /**
+     * 获取用户在指定平台的设备列表片段，未命中时构建
+     *
+     * @param builder 查询设备并渲染设备列表（未命中时调用）
+     */
+    public RawJson get(Platform platform, Long userId, Supplier<RawJson> builder) {
+        if (!enabled) {
+            return builder.get();
+        }
+        return cache.get(new Key(platform, userId), key -> builder.get());
+    }
+
+    /**
+     * 使用户在所有平台的缓存失效
+     * 立即移除，并在当前事务提交后再次移除，避免并发请求在提交前回填旧数据
+     */
+    public void invalidateUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        evictNowAndAfterCommit(() -> {
+            for (Platform platform : Platform.values()) {
+                cache.invalidate(new Key(platform, userId));
+            }
+        });
+    }
+
+    /**
+     * 设备状态变化时失效包含状态的平台片段，与 invalidateUser 相同在事务提交后再次移除
+     */
+    @EventListener
+    public void onDeviceStateChanged(DeviceStateChangedEvent event) {
+        if (event.userId() == null) {
+            return;
+        }
+        evictNowAndAfterCommit(() -> {
+            for (Platform platform : Platform.values()) {
+                if (capabilityRegistry.includesState(platform)) {
+                    cache.invalidate(new Key(platform, event.userId()));
+                }
+            }
+        });
+    }
+
+    private static void evictNowAndAfterCommit(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.voice.platform.service;
+
+import com.voice.platform.model.Device;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Google Report State 批量合并器
+ * 按 agentUserId 缓冲设备状态变化，窗口期内同一设备只保留最新状态，
+ * 窗口结束或达到批量上限时通过 reportStateBatchAsync 一次性发送
+ */
+@Slf4j
+@Component
+public class GoogleReportStateBatcher {
+    
+    @Autowired
+    private GoogleStateReporter googleStateReporter;
+    
+    @Value("${google.homegraph.report-batch.window-ms:200}")
+    private long windowMs;
+    
+    @Value("${google.homegraph.report-batch.max-devices:500}")
+    private int maxDevices;
+    
+    /**
+     * 待发送的设备状态: userId -> (deviceId -> 最新设备状态)
+     * 内层 Map 只在 compute/remove 中访问
+     */
+    private final Map<Long, Map<String, Device>> pending = new ConcurrentHashMap<>();
+    
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "google-report-batcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /**
+     * 提交设备状态，窗口结束后合并发送
+     */
+    public void submit(Device device) {
+        Long userId = device.getUserId();
+        boolean[] newBatch = new boolean[1];
+        int[] batchSize = new int[1];
+        
+        pending.compute(userId, (key, batch) -> {
+            if (batch == null) {
+                batch = new LinkedHashMap<>();
+                newBatch[0] = true;
+            }
+            batch.put(device.getDeviceId(), device);
+            batchSize[0] = batch.size();
+            return batch;
+        });
+        
+        if (batchSize[0] >= maxDevices) {
+            flush(userId);
+        } else if (newBatch[0]) {
+            scheduler.schedule(() -> flush(userId), windowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * 发送用户当前缓冲的全部设备状态
+     */
+    private void flush(Long userId) {
+        Map<String, Device> batch = pending.remove(userId);
+        if (batch == null || batch.isEmpty()) {
+            return;
+        }
+        
+        List<Device> devices = new ArrayList<>(batch.values());
+        log.debug("合并发送 Google Report State: userId={}, deviceCount={}", userId, devices.size());
+        try {
+            googleStateReporter.reportStateBatchAsync(devices, userId);
+        } catch (RejectedExecutionException e) {
+            log.warn("Google 出站执行器已饱和，丢弃批量状态: userId={}, deviceCount={}", userId, devices.size());
+        }
+    }
+    
+    /**
+     * 停机前发送剩余的缓冲状态
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        for (Long userId : new ArrayList<>(pending.keySet())) {
+            flush(userId);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.voice.platform.service;
 
+import com.voice.platform.util.SingleFlight;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
@@ -10,12 +13,16 @@ import java.time.Instant;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Google Service Account Service
  * 管理 Google Service Account 认证
  * 用于调用 HomeGraph API (Request Sync, Report State)
  * 
+ * 令牌刷新合并为单次请求：令牌过期时并发调用方等待同一次刷新；
+ * 令牌使用超过有效期的 refresh-at-fraction 后在后台提前刷新，调用方继续使用当前令牌
+ * 
  * @author Voice Platform Team
  * @version 1.0
  */
@@ -34,17 +41,39 @@ public class GoogleServiceAccountService {
     @Value("${google.project-id:}")
     private String projectId;
     
-    private static final String TOKEN_URL = "https://oauth2.googleapis.com/token";
+    @Value("${google.service-account.token-url:https://oauth2.googleapis.com/token}")
+    private String tokenUrl;
+    
+    @Value("${google.service-account.refresh-at-fraction:0.75}")
+    private double refreshAtFraction;
+    
+    @Autowired
+    @Qualifier("googleReportExecutor")
+    private Executor googleReportExecutor;
+    
     private static final String SCOPE = "https://www.googleapis.com/auth/homegraph";
     
+    /**
+     * 过期前 60 秒视为已过期，必须同步刷新
+     */
+    private static final long EXPIRY_SKEW_SECONDS = 60;
+    
     // Token 缓存
-    private String cachedAccessToken;
-    private Instant tokenExpiresAt;
+    private volatile CachedToken cachedToken;
+    
+    private final SingleFlight<String, CachedToken> refreshes = new SingleFlight<>();
     
     public GoogleServiceAccountService(RestTemplate restTemplate) {
         this.restTemplate = restTemplate;
     }
     
+    /**
+     * 是否配置了 Service Account，未配置时不向 HomeGraph 报告状态
+     */
+    public boolean isConfigured() {
+        return !clientEmail.isEmpty() && !privateKey.isEmpty();
+    }
+    
     /**
      * 获取 Google Service Account Access Token
      * 使用 JWT 方式认证
@@ -52,13 +81,37 @@ public class GoogleServiceAccountService {
      * @return Access Token
      */
     public String getAccessToken() {
+        CachedToken current = cachedToken;
+        Instant now = Instant.now();
+        
         // 检查缓存的 Token 是否有效
-        if (cachedAccessToken != null && tokenExpiresAt != null && 
-            Instant.now().isBefore(tokenExpiresAt.minusSeconds(60))) {
+        if (current != null && now.isBefore(current.expiresAt().minusSeconds(EXPIRY_SKEW_SECONDS))) {
+            if (!now.isBefore(current.refreshAt())) {
+                refreshes.execute(SCOPE, () -> refreshIfStale(current), googleReportExecutor)
+                        .exceptionally(e -> null);
+            }
             log.debug("使用缓存的 Google Access Token");
-            return cachedAccessToken;
+            return current.accessToken();
         }
         
+        return refreshes.executeAndWait(SCOPE, () -> refreshIfStale(current)).accessToken();
+    }
+    
+    /**
+     * 缓存仍是调用方读到的令牌时才刷新，调用方读取后已被其他线程刷新时直接返回新令牌
+     */
+    private CachedToken refreshIfStale(CachedToken seen) {
+        CachedToken latest = cachedToken;
+        if (latest != null && latest != seen) {
+            return latest;
+        }
+        return fetchAccessToken();
+    }
+    
+    /**
+     * 向 Google OAuth 端点换取新的 Access Token 并更新缓存
+     */
+    private CachedToken fetchAccessToken() {
         log.info("开始获取 Google Service Account Access Token");
         
         try {
@@ -76,21 +129,24 @@ public class GoogleServiceAccountService {
             
             HttpEntity<Map<String, String>> request = new HttpEntity<>(params, headers);
             
-            ResponseEntity<Map> response = restTemplate.postForEntity(TOKEN_URL, request, Map.class);
+            ResponseEntity<Map> response = restTemplate.postForEntity(tokenUrl, request, Map.class);
             
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 Map<String, Object> body = response.getBody();
                 
-                cachedAccessToken = (String) body.get("access_token");
+                String accessToken = (String) body.get("access_token");
                 Integer expiresIn = (Integer) body.get("expires_in");
+                long lifetime = expiresIn != null ? expiresIn : 3600;
                 
-                if (expiresIn != null) {
-                    tokenExpiresAt = Instant.now().plusSeconds(expiresIn);
-                }
+                Instant issuedAt = Instant.now();
+                CachedToken token = new CachedToken(accessToken,
+                        issuedAt.plusSeconds((long) (lifetime * refreshAtFraction)),
+                        issuedAt.plusSeconds(lifetime));
+                cachedToken = token;
                 
                 log.info("✓ Google Access Token 获取成功: expiresIn={}秒", expiresIn);
                 
-                return cachedAccessToken;
+                return token;
             } else {
                 log.error("Google Access Token 获取失败: status={}", response.getStatusCode());
                 throw new RuntimeException("获取 Google Access Token 失败");
@@ -122,7 +178,7 @@ public class GoogleServiceAccountService {
             Map<String, Object> payload = new HashMap<>();
             payload.put("iss", clientEmail);
             payload.put("scope", SCOPE);
-            payload.put("aud", TOKEN_URL);
+            payload.put("aud", tokenUrl);
             payload.put("exp", exp);
             payload.put("iat", now);
             
@@ -180,8 +236,16 @@ public class GoogleServiceAccountService {
      * 清除缓存的 Token
      */
     public void clearCache() {
-        cachedAccessToken = null;
-        tokenExpiresAt = null;
+        cachedToken = null;
         log.info("Google Access Token 缓存已清除");
     }
+    
+    /**
+     * 缓存的 Access Token
+     * 
+     * @param refreshAt 开始后台提前刷新的时间
+     * @param expiresAt 过期时间
+     */
+    private record CachedToken(String accessToken, Instant refreshAt, Instant expiresAt) {
+    }
 }
@@ -3,14 +3,19 @@ package com.voice.platform.service;
 import com.voice.platform.model.Device;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Google State Reporter
@@ -30,8 +35,12 @@ public class GoogleStateReporter {
     @Autowired
     private RestTemplate restTemplate;
     
-    private static final String REPORT_STATE_URL = 
-        "https://homegraph.googleapis.com/v1/devices:reportStateAndNotification";
+    @Autowired
+    @Qualifier("googleReportExecutor")
+    private Executor googleReportExecutor;
+    
+    @Value("${google.homegraph.report-state-url:https://homegraph.googleapis.com/v1/devices:reportStateAndNotification}")
+    private String reportStateUrl;
     
     /**
      * 报告设备状态变化
@@ -45,8 +54,8 @@ public class GoogleStateReporter {
      */
     public boolean reportStateChange(Device device, String oldPowerState, String newPowerState,
                                      String oldMode, String newMode) {
-        log.info("=== 开始 Google Report State ===");
-        log.info("DeviceId: {}, DeviceName: {}", device.getDeviceId(), device.getDeviceName());
+        log.debug("=== 开始 Google Report State ===");
+        log.debug("DeviceId: {}, DeviceName: {}", device.getDeviceId(), device.getDeviceName());
         
         try {
             // 获取 Service Account Access Token
@@ -58,17 +67,7 @@ public class GoogleStateReporter {
             }
             
             // 检查是否有状态变化
-            boolean hasChange = false;
-            if (oldPowerState != null && !oldPowerState.equalsIgnoreCase(newPowerState)) {
-                hasChange = true;
-                log.info("检测到电源状态变化: {} -> {}", oldPowerState, newPowerState);
-            }
-            if (oldMode != null && newMode != null && !oldMode.equalsIgnoreCase(newMode)) {
-                hasChange = true;
-                log.info("检测到模式变化: {} -> {}", oldMode, newMode);
-            }
-            
-            if (!hasChange) {
+            if (!hasStateChange(oldPowerState, newPowerState, oldMode, newMode)) {
                 log.debug("没有状态变化，跳过报告");
                 return true;
             }
@@ -85,13 +84,13 @@ public class GoogleStateReporter {
             
             // 发送请求
             ResponseEntity<String> response = restTemplate.postForEntity(
-                REPORT_STATE_URL,
+                reportStateUrl,
                 request,
                 String.class
             );
             
             if (response.getStatusCode().is2xxSuccessful()) {
-                log.info("✓ Google Report State 成功: deviceId={}, deviceName={}", 
+                log.debug("✓ Google Report State 成功: deviceId={}, deviceName={}", 
                         device.getDeviceId(), device.getDeviceName());
                 return true;
             } else {
@@ -107,6 +106,34 @@ public class GoogleStateReporter {
         }
     }
     
+    /**
+     * 异步报告设备状态变化
+     * 在 Google 出站执行器上发送，不占用调用方线程
+     */
+    public CompletableFuture<Boolean> reportStateChangeAsync(Device device, String oldPowerState, String newPowerState,
+                                                             String oldMode, String newMode) {
+        return CompletableFuture.supplyAsync(
+                () -> reportStateChange(device, oldPowerState, newPowerState, oldMode, newMode),
+                googleReportExecutor);
+    }
+    
+    /**
+     * 检查是否有需要报告的状态变化
+     */
+    public boolean hasStateChange(String oldPowerState, String newPowerState,
+                                  String oldMode, String newMode) {
+        boolean hasChange = false;
+        if (newPowerState != null && !newPowerState.equalsIgnoreCase(oldPowerState)) {
+            hasChange = true;
+            log.debug("检测到电源状态变化: {} -> {}", oldPowerState, newPowerState);
+        }
+        if (newMode != null && !newMode.equalsIgnoreCase(oldMode)) {
+            hasChange = true;
+            log.debug("检测到模式变化: {} -> {}", oldMode, newMode);
+        }
+        return hasChange;
+    }
+    
     /**
      * 构建 Report State 请求体
      */
@@ -184,8 +211,15 @@ public class GoogleStateReporter {
      * @return 是否成功
      */
     public boolean reportStateBatch(List<Device> devices, Long userId) {
-        log.info("=== 批量 Google Report State ===");
-        log.info("UserId: {}, DeviceCount: {}", userId, devices.size());
+        return sendReportStateBatch(devices, userId) == StateReportOutcome.DELIVERED;
+    }
+    
+    /**
+     * 批量报告设备状态并返回发送结果，发件箱按结果删除记录或重试
+     */
+    public StateReportOutcome sendReportStateBatch(List<Device> devices, Long userId) {
+        log.debug("=== 批量 Google Report State ===");
+        log.debug("UserId: {}, DeviceCount: {}", userId, devices.size());
         
         try {
             // 获取 Service Account Access Token
@@ -193,7 +227,7 @@ public class GoogleStateReporter {
             
             if (token == null || token.isEmpty()) {
                 log.error("无法获取 Google Access Token");
-                return false;
+                return StateReportOutcome.RETRY;
             }
             
             // 构建请求体
@@ -222,24 +256,36 @@ public class GoogleStateReporter {
             
             // 发送请求
             ResponseEntity<String> response = restTemplate.postForEntity(
-                REPORT_STATE_URL,
+                reportStateUrl,
                 httpRequest,
                 String.class
             );
             
             if (response.getStatusCode().is2xxSuccessful()) {
-                log.info("✓ 批量 Google Report State 成功: userId={}, deviceCount={}", 
+                log.debug("✓ 批量 Google Report State 成功: userId={}, deviceCount={}", 
                         userId, devices.size());
-                return true;
+                return StateReportOutcome.DELIVERED;
             } else {
                 log.warn("批量 Google Report State 失败: status={}, body={}", 
                         response.getStatusCode(), response.getBody());
-                return false;
+                return StateReportOutcome.RETRY;
             }
             
+        } catch (HttpClientErrorException e) {
+            StateReportOutcome outcome = StateReportOutcome.ofClientError(e.getStatusCode());
+            log.warn("HomeGraph 拒绝批量 Report State: userId={}, status={}, outcome={}", 
+                    userId, e.getStatusCode(), outcome);
+            return outcome;
         } catch (Exception e) {
             log.error("批量 Google Report State 异常: userId={}", userId, e);
-            return false;
+            return StateReportOutcome.RETRY;
         }
     }
+    
+    /**
+     * 异步批量报告设备状态
+     */
+    public CompletableFuture<Boolean> reportStateBatchAsync(List<Device> devices, Long userId) {
+        return CompletableFuture.supplyAsync(() -> reportStateBatch(devices, userId), googleReportExecutor);
+    }
 }
@@ -2,12 +2,16 @@ package com.voice.platform.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Google Sync Service
@@ -27,8 +31,12 @@ public class GoogleSyncService {
     @Autowired
     private RestTemplate restTemplate;
     
-    private static final String HOMEGRAPH_API_URL = 
-        "https://homegraph.googleapis.com/v1/devices:requestSync";
+    @Autowired
+    @Qualifier("googleReportExecutor")
+    private Executor googleReportExecutor;
+    
+    @Value("${google.homegraph.request-sync-url:https://homegraph.googleapis.com/v1/devices:requestSync}")
+    private String requestSyncUrl;
     
     /**
      * 请求 Google 同步设备列表
@@ -64,7 +72,7 @@ public class GoogleSyncService {
             
             // 发送请求
             ResponseEntity<String> response = restTemplate.postForEntity(
-                HOMEGRAPH_API_URL,
+                requestSyncUrl,
                 request,
                 String.class
             );
@@ -85,20 +93,36 @@ public class GoogleSyncService {
         }
     }
     
+    /**
+     * 异步请求 Google 同步设备列表
+     * 在 Google 出站执行器上发送，不占用调用方线程
+     * 
+     * @param userId 用户ID
+     * @return 完成时给出是否成功
+     */
+    public CompletableFuture<Boolean> requestSyncAsync(Long userId) {
+        return CompletableFuture.supplyAsync(() -> requestSync(userId), googleReportExecutor);
+    }
+    
     /**
      * 批量请求同步
+     * 各用户的请求并发发送，全部结束后返回
      * 
      * @param userIds 用户ID列表
      */
     public void requestSyncBatch(Long... userIds) {
         log.info("批量 Request Sync: userCount={}", userIds.length);
         
-        for (Long userId : userIds) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[userIds.length];
+        for (int i = 0; i < userIds.length; i++) {
+            Long userId = userIds[i];
             try {
-                requestSync(userId);
+                futures[i] = requestSyncAsync(userId);
             } catch (Exception e) {
                 log.error("批量 Request Sync 失败: userId={}", userId, e);
+                futures[i] = CompletableFuture.completedFuture(false);
             }
         }
+        CompletableFuture.allOf(futures).join();
     }
 }
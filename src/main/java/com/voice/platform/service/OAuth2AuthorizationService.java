@@ -6,6 +6,7 @@ import com.voice.platform.model.OAuthClient;
 import com.voice.platform.repository.OAuth2AuthorizationRepository;
 import com.voice.platform.repository.OAuthClientRepository;
 import com.voice.platform.util.TokenGenerator;
+import com.voice.platform.util.TokenHasher;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -63,7 +64,7 @@ public class OAuth2AuthorizationService {
         
         authorizationRepository.save(authorization);
         
-        log.info("生成授权码: code={}, clientId={}, userId={}", code, clientId, userId);
+        log.info("生成授权码: code={}, clientId={}, userId={}", TokenHasher.fingerprint(code), clientId, userId);
         
         return code;
     }
@@ -77,7 +78,7 @@ public class OAuth2AuthorizationService {
         Optional<OAuth2Authorization> authOpt = authorizationRepository.findByAuthorizationCode(code);
         
         if (!authOpt.isPresent()) {
-            log.warn("授权码不存在: code={}", code);
+            log.warn("授权码不存在: code={}", TokenHasher.fingerprint(code));
             return null;
         }
         
@@ -85,13 +86,13 @@ public class OAuth2AuthorizationService {
         
         // 检查是否已使用
         if (authorization.isUsed()) {
-            log.warn("授权码已使用: code={}", code);
+            log.warn("授权码已使用: code={}", TokenHasher.fingerprint(code));
             return null;
         }
         
         // 检查是否过期
         if (authorization.isExpired()) {
-            log.warn("授权码已过期: code={}", code);
+            log.warn("授权码已过期: code={}", TokenHasher.fingerprint(code));
             return null;
         }
         
@@ -125,7 +126,7 @@ public class OAuth2AuthorizationService {
         authorization.markAsUsed();
         authorizationRepository.save(authorization);
         
-        log.info("授权码验证成功: code={}, clientId={}", code, clientId);
+        log.info("授权码验证成功: code={}, clientId={}", TokenHasher.fingerprint(code), clientId);
         
         return authorization;
     }
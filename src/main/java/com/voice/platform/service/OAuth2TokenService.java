@@ -7,14 +7,20 @@ import com.voice.platform.model.OAuthClient;
 import com.voice.platform.model.RefreshToken;
 import com.voice.platform.repository.AccessTokenRepository;
 import com.voice.platform.repository.RefreshTokenRepository;
+import com.voice.platform.security.AccessTokenCache;
+import com.voice.platform.security.JwtRevocationList;
 import com.voice.platform.util.JwtUtil;
 import com.voice.platform.util.TokenGenerator;
+import com.voice.platform.util.TokenHasher;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Optional;
 
 /**
@@ -36,6 +42,12 @@ public class OAuth2TokenService {
     @Autowired
     private JwtUtil jwtUtil;
     
+    @Autowired
+    private AccessTokenCache accessTokenCache;
+    
+    @Autowired
+    private JwtRevocationList jwtRevocationList;
+    
     /**
      * 授权码换取 Token
      */
@@ -53,7 +65,7 @@ public class OAuth2TokenService {
                 code, clientId, redirectUri, codeVerifier);
         
         if (authorization == null) {
-            log.warn("授权码验证失败: code={}", code);
+            log.warn("授权码验证失败: code={}", TokenHasher.fingerprint(code));
             return null;
         }
         
@@ -86,7 +98,7 @@ public class OAuth2TokenService {
         Optional<RefreshToken> refreshTokenOpt = refreshTokenRepository.findByToken(refreshTokenValue);
         
         if (!refreshTokenOpt.isPresent()) {
-            log.warn("刷新令牌不存在: token={}", refreshTokenValue);
+            log.warn("刷新令牌不存在: token={}", TokenHasher.fingerprint(refreshTokenValue));
             return null;
         }
         
@@ -94,7 +106,7 @@ public class OAuth2TokenService {
         
         // 检查是否过期
         if (refreshToken.getExpiresAt().isBefore(LocalDateTime.now())) {
-            log.warn("刷新令牌已过期: token={}", refreshTokenValue);
+            log.warn("刷新令牌已过期: token={}", TokenHasher.fingerprint(refreshTokenValue));
             refreshTokenRepository.delete(refreshToken);
             return null;
         }
@@ -115,8 +127,12 @@ public class OAuth2TokenService {
         String userId = String.valueOf(refreshToken.getUserId());
         String scope = refreshToken.getScope();
         
-        // 删除旧的访问令牌
+        // 删除旧的访问令牌，已签发的 JWT 访问令牌按 jti 撤销
+        for (AccessToken issued : accessTokenRepository.findByUserIdAndJtiIsNotNull(refreshToken.getUserId())) {
+            jwtRevocationList.revoke(issued.getJti(), issued.getExpiresAt());
+        }
         accessTokenRepository.deleteByUserId(refreshToken.getUserId());
+        accessTokenCache.invalidateUser(refreshToken.getUserId());
         
         // 生成新的 Token
         return generateTokens(userId, clientId, scope, client);
@@ -242,6 +258,9 @@ public class OAuth2TokenService {
     private void saveAccessToken(String token, Long userId, String clientId, String scope, Integer validity) {
         AccessToken accessToken = new AccessToken();
         accessToken.setToken(token);
+        if (token.contains(".")) {
+            accessToken.setJti(jwtUtil.getClaimsFromToken(token).getId());
+        }
         accessToken.setUserId(userId);
         accessToken.setClientId(clientId);
         accessToken.setScope(scope);
@@ -268,9 +287,10 @@ public class OAuth2TokenService {
      * 验证访问令牌
      */
     public boolean validateAccessToken(String token) {
-        // 如果是 JWT，直接验证
+        // 如果是 JWT，验证签名、有效期并检查撤销列表
         if (token.contains(".")) {
-            return jwtUtil.validateToken(token);
+            return jwtUtil.validateToken(token)
+                    && !jwtRevocationList.isRevoked(jwtUtil.getClaimsFromToken(token).getId());
         }
         
         // 如果是 Opaque Token，查询数据库
@@ -288,10 +308,26 @@ public class OAuth2TokenService {
      */
     @Transactional
     public boolean revokeAccessToken(String token) {
+        // JWT 按 jti 加入撤销列表，验证时不再查询令牌记录
+        if (token.contains(".")) {
+            try {
+                Claims claims = jwtUtil.getClaimsFromToken(token);
+                jwtRevocationList.revoke(claims.getId(),
+                        LocalDateTime.ofInstant(claims.getExpiration().toInstant(), ZoneId.systemDefault()));
+            } catch (JwtException | IllegalArgumentException e) {
+                log.warn("撤销的 JWT 无效或已过期");
+                return false;
+            }
+            accessTokenRepository.findByToken(token).ifPresent(accessTokenRepository::delete);
+            accessTokenCache.invalidate(token);
+            return true;
+        }
+        
         Optional<AccessToken> tokenOpt = accessTokenRepository.findByToken(token);
         if (tokenOpt.isPresent()) {
             accessTokenRepository.delete(tokenOpt.get());
-            log.info("撤销访问令牌: token={}", token);
+            accessTokenCache.invalidate(token);
+            log.info("撤销访问令牌: token={}", TokenHasher.fingerprint(token));
             return true;
         }
         return false;
@@ -305,7 +341,7 @@ public class OAuth2TokenService {
         Optional<RefreshToken> tokenOpt = refreshTokenRepository.findByToken(token);
         if (tokenOpt.isPresent()) {
             refreshTokenRepository.delete(tokenOpt.get());
-            log.info("撤销刷新令牌: token={}", token);
+            log.info("撤销刷新令牌: token={}", TokenHasher.fingerprint(token));
             return true;
         }
         return false;
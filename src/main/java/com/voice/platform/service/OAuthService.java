@@ -1,6 +1,8 @@
 package com.voice.platform.service;
 
 import com.voice.platform.dto.TokenResponse;
+import com.voice.platform.logging.RequestLogContext;
+import com.voice.platform.metrics.RequestTiming;
 import com.voice.platform.model.AccessToken;
 import com.voice.platform.model.AuthorizationCode;
 import com.voice.platform.model.OAuthClient;
@@ -9,7 +11,15 @@ import com.voice.platform.repository.AccessTokenRepository;
 import com.voice.platform.repository.AuthorizationCodeRepository;
 import com.voice.platform.repository.OAuthClientRepository;
 import com.voice.platform.repository.RefreshTokenRepository;
+import com.voice.platform.security.AccessTokenCache;
+import com.voice.platform.security.JwtRevocationList;
+import com.voice.platform.security.RequestPrincipal;
+import com.voice.platform.security.TokenPrincipal;
+import com.voice.platform.util.JwtUtil;
 import com.voice.platform.util.TokenGenerator;
+import com.voice.platform.util.TokenHasher;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -17,6 +27,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Optional;
 
 @Slf4j
@@ -35,6 +46,21 @@ public class OAuthService {
     @Autowired
     private RefreshTokenRepository refreshTokenRepository;
     
+    @Autowired
+    private AccessTokenCache accessTokenCache;
+    
+    @Autowired
+    private RequestPrincipal requestPrincipal;
+    
+    @Autowired
+    private RequestLogContext requestLogContext;
+    
+    @Autowired
+    private JwtUtil jwtUtil;
+    
+    @Autowired
+    private JwtRevocationList jwtRevocationList;
+    
     @Value("${oauth2.code-expire-seconds}")
     private Long codeExpireSeconds;
     
@@ -67,7 +93,7 @@ public class OAuthService {
         authCode.setCreatedAt(LocalDateTime.now());
         
         codeRepository.save(authCode);
-        log.info("生成授权码: clientId={}, code={}", clientId, code);
+        log.info("生成授权码: clientId={}, code={}", clientId, TokenHasher.fingerprint(code));
         
         return code;
     }
@@ -80,7 +106,7 @@ public class OAuthService {
         Optional<AuthorizationCode> authCodeOpt = codeRepository.findByAuthorizationCode(code);
         
         if (!authCodeOpt.isPresent()) {
-            log.error("授权码不存在: code={}", code);
+            log.error("授权码不存在: code={}", TokenHasher.fingerprint(code));
             return null;
         }
         
@@ -88,13 +114,22 @@ public class OAuthService {
         
         // 验证授权码是否过期
         if (authCode.getExpiresAt().isBefore(LocalDateTime.now())) {
-            log.error("授权码已过期: code={}", code);
+            log.error("授权码已过期: code={}", TokenHasher.fingerprint(code));
             return null;
         }
         
         // 验证客户端ID
         if (!authCode.getClientId().equals(clientId)) {
-            log.error("客户端ID不匹配: code={}, clientId={}", code, clientId);
+            log.error("客户端ID不匹配: code={}, clientId={}", TokenHasher.fingerprint(code), clientId);
+            return null;
+        }
+        
+        // 旧授权流程没有用户登录，令牌归属客户端绑定的用户，签发时写入令牌记录
+        Long userId = clientRepository.findByClientId(clientId)
+                .map(OAuthClient::getUserId)
+                .orElse(null);
+        if (userId == null) {
+            log.error("客户端未绑定用户，无法签发令牌: clientId={}", clientId);
             return null;
         }
         
@@ -103,6 +138,7 @@ public class OAuthService {
         AccessToken token = new AccessToken();
         token.setAccessToken(accessToken);
         token.setClientId(clientId);
+        token.setUserId(userId);
         token.setExpiresAt(LocalDateTime.now().plusSeconds(accessTokenExpireSeconds));
         token.setCreatedAt(LocalDateTime.now());
         accessTokenRepository.save(token);
@@ -112,11 +148,12 @@ public class OAuthService {
         RefreshToken refresh = new RefreshToken();
         refresh.setRefreshToken(refreshToken);
         refresh.setClientId(clientId);
+        refresh.setUserId(userId);
         refresh.setExpiresAt(LocalDateTime.now().plusSeconds(refreshTokenExpireSeconds));
         refresh.setCreatedAt(LocalDateTime.now());
         refreshTokenRepository.save(refresh);
         
-        log.info("生成Token: clientId={}, accessToken={}", clientId, accessToken);
+        log.info("生成Token: clientId={}, accessToken={}", clientId, TokenHasher.fingerprint(accessToken));
         
         return new TokenResponse(accessToken, accessTokenExpireSeconds, refreshToken);
     }
@@ -129,7 +166,7 @@ public class OAuthService {
         Optional<RefreshToken> refreshOpt = refreshTokenRepository.findByToken(refreshToken);
         
         if (!refreshOpt.isPresent()) {
-            log.error("刷新令牌不存在: refreshToken={}", refreshToken);
+            log.error("刷新令牌不存在: refreshToken={}", TokenHasher.fingerprint(refreshToken));
             return null;
         }
         
@@ -137,13 +174,13 @@ public class OAuthService {
         
         // 验证刷新令牌是否过期
         if (refresh.getExpiresAt().isBefore(LocalDateTime.now())) {
-            log.error("刷新令牌已过期: refreshToken={}", refreshToken);
+            log.error("刷新令牌已过期: refreshToken={}", TokenHasher.fingerprint(refreshToken));
             return null;
         }
         
         // 验证客户端ID
         if (!refresh.getClientId().equals(clientId)) {
-            log.error("客户端ID不匹配: refreshToken={}, clientId={}", refreshToken, clientId);
+            log.error("客户端ID不匹配: refreshToken={}, clientId={}", TokenHasher.fingerprint(refreshToken), clientId);
             return null;
         }
         
@@ -152,11 +189,12 @@ public class OAuthService {
         AccessToken token = new AccessToken();
         token.setAccessToken(newAccessToken);
         token.setClientId(clientId);
+        token.setUserId(refresh.getUserId());
         token.setExpiresAt(LocalDateTime.now().plusSeconds(accessTokenExpireSeconds));
         token.setCreatedAt(LocalDateTime.now());
         accessTokenRepository.save(token);
         
-        log.info("刷新Token: clientId={}, newAccessToken={}", clientId, newAccessToken);
+        log.info("刷新Token: clientId={}, newAccessToken={}", clientId, TokenHasher.fingerprint(newAccessToken));
         
         return new TokenResponse(newAccessToken, accessTokenExpireSeconds, refreshToken);
     }
@@ -165,21 +203,102 @@ public class OAuthService {
      * 验证访问令牌
      */
     public boolean validateAccessToken(String accessToken) {
+        return resolveAccessToken(accessToken).isPresent();
+    }
+    
+    /**
+     * 认证访问令牌
+     * 验证通过后将令牌主体写入当前请求的 RequestPrincipal，后续处理直接读取用户 ID
+     * 
+     * @return 令牌有效且能确定所属用户时返回 true
+     */
+    public boolean authenticate(String accessToken) {
+        if (accessToken == null) {
+            return false;
+        }
+        
+        long start = RequestTiming.start();
+        try {
+            Optional<TokenPrincipal> principal = resolveAccessToken(accessToken);
+            if (!principal.isPresent() || principal.get().userId() == null) {
+                return false;
+            }
+            
+            requestPrincipal.set(principal.get());
+            requestLogContext.setUserId(principal.get().userId());
+            return true;
+        } finally {
+            RequestTiming.stop(RequestTiming.Stage.AUTH, start);
+        }
+    }
+    
+    /**
+     * 解析访问令牌
+     * JWT 只验证签名、有效期和撤销列表，不访问数据库；
+     * Opaque 令牌优先读取令牌缓存，未命中时查询数据库并回填缓存
+     * 
+     * @return 令牌有效时返回令牌主体，否则返回空
+     */
+    public Optional<TokenPrincipal> resolveAccessToken(String accessToken) {
+        if (accessToken.indexOf('.') > 0) {
+            return resolveJwtAccessToken(accessToken);
+        }
+        
+        TokenPrincipal cached = accessTokenCache.get(accessToken);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        
         Optional<AccessToken> tokenOpt = accessTokenRepository.findByToken(accessToken);
         
         if (!tokenOpt.isPresent()) {
-            return false;
+            return Optional.empty();
         }
         
         AccessToken token = tokenOpt.get();
-        return token.getExpiresAt().isAfter(LocalDateTime.now());
+        if (!token.getExpiresAt().isAfter(LocalDateTime.now())) {
+            return Optional.empty();
+        }
+        
+        TokenPrincipal principal = new TokenPrincipal(
+                token.getUserId(), token.getClientId(), token.getScope(), token.getExpiresAt());
+        
+        accessTokenCache.put(accessToken, principal);
+        return Optional.of(principal);
+    }
+    
+    /**
+     * 无状态验证 JWT 访问令牌
+     * 只接受 subject 为用户 ID 的访问令牌（token_type=access_token），刷新令牌和客户端凭证令牌不能访问设备接口
+     */
+    private Optional<TokenPrincipal> resolveJwtAccessToken(String accessToken) {
+        Claims claims;
+        try {
+            claims = jwtUtil.getClaimsFromToken(accessToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("JWT 访问令牌验证失败: {}", e.getMessage());
+            return Optional.empty();
+        }
+        
+        if (!"access_token".equals(claims.get("token_type", String.class))
+                || jwtRevocationList.isRevoked(claims.getId())) {
+            return Optional.empty();
+        }
+        
+        String subject = claims.getSubject();
+        if (subject == null || subject.isEmpty() || !subject.chars().allMatch(Character::isDigit)) {
+            return Optional.empty();
+        }
+        
+        LocalDateTime expiresAt = LocalDateTime.ofInstant(claims.getExpiration().toInstant(), ZoneId.systemDefault());
+        return Optional.of(new TokenPrincipal(Long.valueOf(subject),
+                claims.get("client_id", String.class), claims.get("scope", String.class), expiresAt));
     }
     
     /**
      * 根据访问令牌获取客户端ID
      */
     public String getClientIdByAccessToken(String accessToken) {
-        Optional<AccessToken> tokenOpt = accessTokenRepository.findByToken(accessToken);
-        return tokenOpt.map(AccessToken::getClientId).orElse(null);
+        return resolveAccessToken(accessToken).map(TokenPrincipal::clientId).orElse(null);
     }
 }
@@ -0,0 +1,428 @@
+package com.voice.platform.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.voice.platform.event.DeviceStateChangedEvent;
+import com.voice.platform.model.Device;
+import com.voice.platform.model.StateReportOutbox;
+import com.voice.platform.repository.RefreshTokenRepository;
+import com.voice.platform.repository.StateReportOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 状态报告发件箱投递
+ * 设备状态变化事件在设备修改的事务中写入 state_report_outbox，本组件分批领取到期记录并发送：
+ * Alexa 按设备合并为一条 ChangeReport，Google 按用户合并为一次 Report State，
+ * 两个平台分别在各自的出站执行器上并发发送，一个平台变慢不影响另一个平台
+ *
+ * 只为用户已关联的平台写入：Alexa 要求用户有 Alexa Token；Google 要求配置了 Service Account，
+ * 且配置账号关联客户端（google.account-linking.client-id）时用户持有该客户端未过期的刷新令牌
+ *
+ * 领取时锁定记录（SKIP LOCKED）并把下次可发送时间推迟 lease-seconds，多个实例不会重复领取，
+ * 实例在发送中退出时租约到期后由其他实例重新领取。发送成功或被平台拒绝（不可重试的 4xx）后删除记录；
+ * 暂时失败时按指数退避加随机抖动重试，超过 max-attempts 后标记为 DEAD，由 TokenPurgeService 在保留期后清理
+ *
+ * 开启设备状态写回时不写入发件箱（见 isEnabled），已有记录继续投递
+ */
+@Slf4j
+@Component
+public class StateReportOutboxWorker {
+
+    @Autowired
+    private StateReportOutboxRepository outboxRepository;
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private AlexaStateReporter alexaStateReporter;
+
+    @Autowired
+    private GoogleStateReporter googleStateReporter;
+
+    @Autowired
+    private AlexaTokenService alexaTokenService;
+
+    @Autowired
+    private GoogleServiceAccountService googleServiceAccountService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private DeviceStateStore deviceStateStore;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("alexaReportExecutor")
+    private Executor alexaReportExecutor;
+
+    @Autowired
+    @Qualifier("googleReportExecutor")
+    private Executor googleReportExecutor;
+
+    @Value("${state-report.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${state-report.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${state-report.outbox.lease-seconds:60}")
+    private long leaseSeconds;
+
+    @Value("${state-report.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${state-report.outbox.initial-backoff-ms:1000}")
+    private long initialBackoffMs;
+
+    @Value("${state-report.outbox.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    @Value("${state-report.outbox.linked-cache-ttl-seconds:300}")
+    private long linkedCacheTtlSeconds;
+
+    @Value("${state-report.outbox.linked-cache-max-size:100000}")
+    private long linkedCacheMaxSize;
+
+    @Value("${google.account-linking.client-id:}")
+    private String googleLinkingClientId;
+
+    /**
+     * userId -> 是否持有 Google 账号关联客户端未过期的刷新令牌
+     */
+    private Cache<Long, Boolean> googleLinked;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * 投递进行中有新记录提交，本轮结束前再领取一次
+     */
+    private final AtomicBoolean wakeUp = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        googleLinked = Caffeine.newBuilder()
+                .maximumSize(linkedCacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(linkedCacheTtlSeconds))
+                .build();
+        if (enabled && deviceStateStore.isEnabled()) {
+            log.info("已开启设备状态写回，状态变化不写入发件箱，改为事务提交后直接推送");
+        }
+    }
+
+    /**
+     * 是否通过发件箱投递状态报告
+     * 写回模式下控制指令不访问数据库，每次状态变化插入发件箱会重新引入同步写入，因此不使用发件箱
+     */
+    public boolean isEnabled() {
+        return enabled && !deviceStateStore.isEnabled();
+    }
+
+    /**
+     * 写入发件箱，用户已关联的每个平台一条
+     * 在发布事件的线程中执行，调用方处于事务中时随设备修改一起提交
+     */
+    public void enqueue(DeviceStateChangedEvent event) {
+        List<String> platforms = linkedPlatforms(event.userId());
+        if (platforms.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<StateReportOutbox> entries = new ArrayList<>(platforms.size());
+        for (String platform : platforms) {
+            entries.add(newEntry(platform, event, now));
+        }
+        outboxRepository.saveAll(entries);
+    }
+
+    /**
+     * 用户已关联的平台，未关联的平台不写入发件箱，避免注定失败的记录反复重试
+     */
+    private List<String> linkedPlatforms(Long userId) {
+        if (userId == null) {
+            return List.of();
+        }
+        List<String> platforms = new ArrayList<>(2);
+        if (alexaTokenService.hasToken(userId)) {
+            platforms.add(StateReportOutbox.PLATFORM_ALEXA);
+        }
+        if (googleServiceAccountService.isConfigured() && isGoogleLinked(userId)) {
+            platforms.add(StateReportOutbox.PLATFORM_GOOGLE);
+        }
+        return platforms;
+    }
+
+    /**
+     * 未配置账号关联客户端时无法判断，视为已关联
+     */
+    private boolean isGoogleLinked(Long userId) {
+        if (googleLinkingClientId.isEmpty()) {
+            return true;
+        }
+        return googleLinked.get(userId, id -> refreshTokenRepository.existsByClientIdAndUserIdAndExpiresAtAfter(
+                googleLinkingClientId, id, LocalDateTime.now()));
+    }
+
+    private static StateReportOutbox newEntry(String platform, DeviceStateChangedEvent event, LocalDateTime now) {
+        StateReportOutbox entry = new StateReportOutbox();
+        entry.setPlatform(platform);
+        entry.setDeviceId(event.deviceId());
+        entry.setUserId(event.userId());
+        entry.setOldPowerState(event.oldPowerState());
+        entry.setNewPowerState(event.newPowerState());
+        entry.setOldWorkMode(event.oldWorkMode());
+        entry.setNewWorkMode(event.newWorkMode());
+        entry.setNextAttemptAt(now);
+        entry.setCreatedAt(now);
+        return entry;
+    }
+
+    /**
+     * 立即投递一轮，事务提交后调用以降低投递延迟
+     * 已有投递在进行时只做标记，由其继续领取新记录
+     */
+    public void drainSoon() {
+        if (!enabled) {
+            return;
+        }
+        wakeUp.set(true);
+        if (draining.get()) {
+            return;
+        }
+        Thread.ofVirtual().name("state-report-outbox").start(this::drain);
+    }
+
+    /**
+     * 定时投递，领取到的记录不足一批且期间没有新记录提交时结束本轮
+     * 写回模式下也继续投递，发出切换前写入的记录
+     */
+    @Scheduled(initialDelayString = "${state-report.outbox.initial-delay-ms:5000}",
+               fixedDelayString = "${state-report.outbox.poll-interval-ms:1000}")
+    public void drain() {
+        if (!enabled || !draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<StateReportOutbox> batch;
+            do {
+                wakeUp.set(false);
+                batch = claim();
+                if (!batch.isEmpty()) {
+                    dispatch(batch);
+                }
+            } while (batch.size() == batchSize || wakeUp.get());
+        } catch (Exception e) {
+            log.error("状态报告发件箱投递失败，等待下次执行", e);
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    /**
+     * 领取一批到期记录：锁定后把下次可发送时间推迟到租约到期，尝试次数加一
+     */
+    private List<StateReportOutbox> claim() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<StateReportOutbox> batch = outboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                    StateReportOutbox.STATUS_PENDING, now, PageRequest.of(0, batchSize));
+            for (StateReportOutbox entry : batch) {
+                entry.setAttempts(entry.getAttempts() + 1);
+                entry.setNextAttemptAt(now.plusSeconds(leaseSeconds));
+            }
+            return outboxRepository.saveAll(batch);
+        });
+    }
+
+    /**
+     * 按平台分组并发发送，等待本批全部完成后统一删除成功和被拒绝的记录、安排失败记录重试
+     */
+    private void dispatch(List<StateReportOutbox> batch) {
+        Set<String> deviceIds = new LinkedHashSet<>();
+        for (StateReportOutbox entry : batch) {
+            deviceIds.add(entry.getDeviceId());
+        }
+        Map<String, Device> devices = deviceService.findDevicesByDeviceIds(deviceIds);
+
+        // Alexa 按设备分组，Google 按用户分组，组内记录一起成功或失败
+        Map<String, List<StateReportOutbox>> alexaGroups = new LinkedHashMap<>();
+        Map<Long, List<StateReportOutbox>> googleGroups = new LinkedHashMap<>();
+        List<StateReportOutbox> orphaned = new ArrayList<>();
+        for (StateReportOutbox entry : batch) {
+            if (!devices.containsKey(entry.getDeviceId())) {
+                orphaned.add(entry);
+            } else if (StateReportOutbox.PLATFORM_ALEXA.equals(entry.getPlatform())) {
+                alexaGroups.computeIfAbsent(entry.getDeviceId(), k -> new ArrayList<>()).add(entry);
+            } else {
+                googleGroups.computeIfAbsent(entry.getUserId(), k -> new ArrayList<>()).add(entry);
+            }
+        }
+
+        List<GroupDelivery> deliveries = new ArrayList<>(alexaGroups.size() + googleGroups.size());
+        for (List<StateReportOutbox> entries : alexaGroups.values()) {
+            deliveries.add(new GroupDelivery(StateReportOutbox.PLATFORM_ALEXA, entries,
+                    submit(() -> deliverToAlexa(devices.get(entries.get(0).getDeviceId()), entries), alexaReportExecutor)));
+        }
+        for (Map.Entry<Long, List<StateReportOutbox>> group : googleGroups.entrySet()) {
+            Map<String, Device> userDevices = new LinkedHashMap<>();
+            for (StateReportOutbox entry : group.getValue()) {
+                userDevices.put(entry.getDeviceId(), devices.get(entry.getDeviceId()));
+            }
+            List<Device> deviceList = new ArrayList<>(userDevices.values());
+            deliveries.add(new GroupDelivery(StateReportOutbox.PLATFORM_GOOGLE, group.getValue(),
+                    submit(() -> googleStateReporter.sendReportStateBatch(deviceList, group.getKey()), googleReportExecutor)));
+        }
+
+        // 被拒绝的记录与成功记录一起删除，不再重试
+        List<StateReportOutbox> delivered = new ArrayList<>(orphaned);
+        List<StateReportOutbox> failed = new ArrayList<>();
+        for (GroupDelivery delivery : deliveries) {
+            switch (delivery.result().join()) {
+                case DELIVERED -> {
+                    recordDelivered(delivery.platform(), delivery.entries());
+                    delivered.addAll(delivery.entries());
+                }
+                case REJECTED -> {
+                    count(delivery.platform(), "rejected", delivery.entries().size());
+                    delivered.addAll(delivery.entries());
+                }
+                default -> failed.addAll(delivery.entries());
+            }
+        }
+
+        if (!orphaned.isEmpty()) {
+            log.warn("设备已不存在，丢弃状态报告: count={}", orphaned.size());
+        }
+        complete(delivered, failed);
+    }
+
+    /**
+     * 同一设备的多条变化合并为一条 ChangeReport：修改前状态取最早一条，修改后状态取设备当前状态，只上报这些记录修改过的字段
+     */
+    private StateReportOutcome deliverToAlexa(Device device, List<StateReportOutbox> entries) {
+        StateReportOutbox first = entries.get(0);
+        boolean powerChanged = entries.stream().anyMatch(entry -> entry.getNewPowerState() != null);
+        boolean modeChanged = entries.stream().anyMatch(entry -> entry.getNewWorkMode() != null);
+        return alexaStateReporter.sendChangeReport(device,
+                first.getOldPowerState(), powerChanged ? device.getPowerState() : null,
+                first.getOldWorkMode(), modeChanged ? device.getWorkMode() : null);
+    }
+
+    /**
+     * 提交到平台执行器，执行器饱和时视为发送失败，稍后重试
+     */
+    private static CompletableFuture<StateReportOutcome> submit(Supplier<StateReportOutcome> task, Executor executor) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor).exceptionally(e -> StateReportOutcome.RETRY);
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(StateReportOutcome.RETRY);
+        }
+    }
+
+    /**
+     * 删除已投递和被拒绝的记录，失败记录按退避时间重新排期或标记为 DEAD
+     */
+    private void complete(List<StateReportOutbox> delivered, List<StateReportOutbox> failed) {
+        LocalDateTime now = LocalDateTime.now();
+        for (StateReportOutbox entry : failed) {
+            if (entry.getAttempts() >= maxAttempts) {
+                entry.setStatus(StateReportOutbox.STATUS_DEAD);
+                log.warn("状态报告超过最大重试次数，不再发送: platform={}, deviceId={}, attempts={}",
+                        entry.getPlatform(), entry.getDeviceId(), entry.getAttempts());
+                count(entry.getPlatform(), "dead");
+            } else {
+                entry.setNextAttemptAt(now.plus(backoff(entry.getAttempts())));
+                count(entry.getPlatform(), "retry");
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!delivered.isEmpty()) {
+                outboxRepository.deleteAllInBatch(delivered);
+            }
+            if (!failed.isEmpty()) {
+                outboxRepository.saveAll(failed);
+            }
+        });
+
+        if (!failed.isEmpty()) {
+            log.info("状态报告发送失败，等待重试: delivered={}, failed={}", delivered.size(), failed.size());
+        }
+    }
+
+    /**
+     * 第 n 次失败后的等待时间：initial-backoff-ms * 2^(n-1)，不超过 max-backoff-ms，
+     * 在 [一半, 全部] 之间随机取值，避免大量失败记录在同一时刻重试
+     */
+    private Duration backoff(int attempts) {
+        long delay = initialBackoffMs << Math.min(attempts - 1, 30);
+        if (delay <= 0 || delay > maxBackoffMs) {
+            delay = maxBackoffMs;
+        }
+        long half = delay / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+
+    private void recordDelivered(String platform, List<StateReportOutbox> entries) {
+        Timer latency = Timer.builder("voice.platform.state.report.delivery.latency")
+                .description("状态变化到投递成功的延迟")
+                .tag("platform", platform)
+                .register(meterRegistry);
+        LocalDateTime now = LocalDateTime.now();
+        for (StateReportOutbox entry : entries) {
+            latency.record(Duration.between(entry.getCreatedAt(), now));
+        }
+        count(platform, "delivered", entries.size());
+    }
+
+    private void count(String platform, String outcome) {
+        count(platform, outcome, 1);
+    }
+
+    private void count(String platform, String outcome, int amount) {
+        Counter.builder("voice.platform.state.report.outbox")
+                .description("状态报告发件箱投递结果")
+                .tag("platform", platform)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment(amount);
+    }
+
+    /**
+     * 一组记录的发送结果
+     */
+    private record GroupDelivery(String platform, List<StateReportOutbox> entries,
+                                 CompletableFuture<StateReportOutcome> result) {
+    }
+}
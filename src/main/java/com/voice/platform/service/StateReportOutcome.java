@@ -0,0 +1,38 @@
+package com.voice.platform.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+
+/**
+ * 状态报告发送结果
+ * 发件箱按结果决定删除记录还是稍后重试
+ */
+public enum StateReportOutcome {
+
+    /**
+     * 发送成功，或无需发送（没有状态变化、用户没有平台令牌）
+     */
+    DELIVERED,
+
+    /**
+     * 暂时失败（网络错误、5xx、限流、被熔断或舱壁拒绝），稍后重试
+     */
+    RETRY,
+
+    /**
+     * 平台拒绝且重试不会成功（如 HomeGraph 不认识 agentUserId、用户已停用 Skill），不再重试
+     */
+    REJECTED;
+
+    /**
+     * 按 4xx 状态码判断：401（令牌失效，刷新后可恢复）、408、429 可重试，其余视为拒绝
+     */
+    public static StateReportOutcome ofClientError(HttpStatusCode status) {
+        if (status.isSameCodeAs(HttpStatus.UNAUTHORIZED)
+                || status.isSameCodeAs(HttpStatus.REQUEST_TIMEOUT)
+                || status.isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)) {
+            return RETRY;
+        }
+        return REJECTED;
+    }
+}
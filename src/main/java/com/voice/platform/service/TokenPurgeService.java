@@ -0,0 +1,284 @@
+package com.voice.platform.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 过期令牌与授权码清理
+ * 定时删除 oauth_access_tokens、oauth_refresh_tokens、oauth_authorizations、oauth_revoked_tokens
+ * 与旧版 oauth_authorization_codes 中的过期记录，以及 state_report_outbox 中超过保留时间的 DEAD 记录
+ *
+ * 每张表按主键顺序分块删除：先按主键取一批过期记录的 id，再按 id 删除，
+ * 每块是一条独立的短事务，块之间暂停 pause-ms，单次运行最多删除 max-chunks-per-run 块，避免长时间持有行锁
+ *
+ * 令牌表按天分区（db/migration/optional/token_tables_partitioned.sql）时，
+ * 将表名加入 token-purge.partitioned-tables，清理改为删除全部记录已过期的分区并预建后续分区
+ */
+@Slf4j
+@Component
+public class TokenPurgeService {
+
+    /**
+     * 待清理的表及其过期条件，条件中的参数由 Cutoff 决定
+     */
+    private static final List<PurgeTarget> TARGETS = List.of(
+        new PurgeTarget("oauth_access_tokens", "expires_at < ?", Cutoff.NOW),
+        new PurgeTarget("oauth_refresh_tokens", "expires_at < ?", Cutoff.NOW),
+        new PurgeTarget("oauth_authorizations", "(expires_at < ? OR (used = TRUE AND used_at < ?))",
+            Cutoff.NOW_AND_USED_CODE_RETENTION),
+        new PurgeTarget("oauth_authorization_codes", "expires_at < ?", Cutoff.NOW),
+        new PurgeTarget("oauth_revoked_tokens", "expires_at < ?", Cutoff.NOW),
+        // 标记为 DEAD 时 next_attempt_at 为最后一次领取的租约到期时间
+        new PurgeTarget("state_report_outbox", "status = 'DEAD' AND next_attempt_at < ?", Cutoff.DEAD_REPORT_RETENTION)
+    );
+
+    /**
+     * 分区名格式：p20260218 存放 expires_at 早于 2026-02-19 的记录
+     */
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+
+    /**
+     * MySQL TO_DAYS('1970-01-01')
+     */
+    private static final long TO_DAYS_EPOCH = 719528L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${token-purge.enabled:true}")
+    private boolean enabled;
+
+    @Value("${token-purge.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${token-purge.pause-ms:50}")
+    private long pauseMs;
+
+    @Value("${token-purge.max-chunks-per-run:200}")
+    private int maxChunksPerRun;
+
+    @Value("${token-purge.used-code-retention-hours:24}")
+    private long usedCodeRetentionHours;
+
+    @Value("${token-purge.dead-report-retention-hours:168}")
+    private long deadReportRetentionHours;
+
+    @Value("${token-purge.partitioned-tables:}")
+    private Set<String> partitionedTables = Collections.emptySet();
+
+    @Value("${token-purge.partitions-ahead-days:3}")
+    private int partitionsAheadDays;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * 配置为分区表但实际未分区的表，只告警一次
+     */
+    private final Set<String> notPartitioned = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 定时清理
+     */
+    @Scheduled(initialDelayString = "${token-purge.initial-delay-ms:60000}",
+               fixedDelayString = "${token-purge.interval-ms:300000}")
+    public void purge() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            for (PurgeTarget target : TARGETS) {
+                try {
+                    purge(target, now);
+                } catch (Exception e) {
+                    log.error("过期记录清理失败，等待下次执行: table={}", target.table(), e);
+                }
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void purge(PurgeTarget target, LocalDateTime now) throws InterruptedException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        int deleted;
+        if (partitionedTables.contains(target.table()) && dropExpiredPartitions(target.table(), now.toLocalDate())) {
+            deleted = 0;
+        } else {
+            deleted = purgeInChunks(target, now);
+        }
+        sample.stop(Timer.builder("voice.platform.token.purge.duration")
+                .description("过期令牌清理耗时")
+                .tag("table", target.table())
+                .register(meterRegistry));
+
+        if (deleted > 0) {
+            log.info("清理过期记录: table={}, count={}", target.table(), deleted);
+        }
+    }
+
+    /**
+     * 按主键顺序分块删除过期记录
+     *
+     * @return 删除的记录数
+     */
+    private int purgeInChunks(PurgeTarget target, LocalDateTime now) throws InterruptedException {
+        Timestamp nowTs = Timestamp.valueOf(now);
+        Object[] conditionArgs = switch (target.cutoff()) {
+            case NOW -> new Object[]{nowTs};
+            case NOW_AND_USED_CODE_RETENTION ->
+                new Object[]{nowTs, Timestamp.valueOf(now.minusHours(usedCodeRetentionHours))};
+            case DEAD_REPORT_RETENTION -> new Object[]{Timestamp.valueOf(now.minusHours(deadReportRetentionHours))};
+        };
+
+        String selectSql = "SELECT id FROM " + target.table() + " WHERE id > ? AND " + target.condition()
+            + " ORDER BY id LIMIT " + chunkSize;
+        Counter deletedCounter = Counter.builder("voice.platform.token.purge.deleted")
+                .description("清理的过期令牌记录数")
+                .tag("table", target.table())
+                .register(meterRegistry);
+
+        long lastId = 0;
+        int total = 0;
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            Object[] args = new Object[conditionArgs.length + 1];
+            args[0] = lastId;
+            System.arraycopy(conditionArgs, 0, args, 1, conditionArgs.length);
+
+            List<Long> ids = jdbcTemplate.queryForList(selectSql, Long.class, args);
+            if (ids.isEmpty()) {
+                return total;
+            }
+
+            int count = jdbcTemplate.update("DELETE FROM " + target.table() + " WHERE id IN ("
+                + String.join(",", Collections.nCopies(ids.size(), "?")) + ")", ids.toArray());
+            total += count;
+            deletedCounter.increment(count);
+            lastId = ids.get(ids.size() - 1);
+
+            if (ids.size() < chunkSize) {
+                return total;
+            }
+            if (pauseMs > 0) {
+                Thread.sleep(pauseMs);
+            }
+        }
+
+        log.info("单次清理达到分块上限，剩余记录下次继续: table={}, chunks={}, deleted={}",
+                target.table(), maxChunksPerRun, total);
+        return total;
+    }
+
+    /**
+     * 删除全部记录已过期的日分区，并预建后续 partitions-ahead-days 天的分区
+     *
+     * @return 表已按天分区时返回 true；否则返回 false，由调用方改为分块删除
+     */
+    private boolean dropExpiredPartitions(String table, LocalDate today) {
+        List<Map<String, Object>> partitions;
+        try {
+            partitions = jdbcTemplate.queryForList(
+                "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL " +
+                "ORDER BY PARTITION_ORDINAL_POSITION", table);
+        } catch (DataAccessException e) {
+            // 数据库不支持分区元数据查询
+            partitions = Collections.emptyList();
+        }
+        if (partitions.isEmpty()) {
+            if (notPartitioned.add(table)) {
+                log.warn("表未分区，改为分块删除: table={}", table);
+            }
+            return false;
+        }
+
+        // 分区上界 <= TO_DAYS(today) 时，分区内记录的 expires_at 均早于今天零点
+        long todayDays = today.toEpochDay() + TO_DAYS_EPOCH;
+        List<String> expired = new ArrayList<>();
+        long maxBound = Long.MIN_VALUE;
+        for (Map<String, Object> partition : partitions) {
+            String description = String.valueOf(partition.get("PARTITION_DESCRIPTION"));
+            if ("MAXVALUE".equalsIgnoreCase(description)) {
+                continue;
+            }
+            long bound = Long.parseLong(description.trim());
+            maxBound = Math.max(maxBound, bound);
+            if (bound <= todayDays) {
+                expired.add(String.valueOf(partition.get("PARTITION_NAME")));
+            }
+        }
+
+        if (!expired.isEmpty()) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP PARTITION " + String.join(",", expired));
+            log.info("删除过期分区: table={}, partitions={}", table, expired);
+        }
+
+        // 在 pmax 前拆出后续日期的分区，新写入的令牌落在按天分区中
+        List<String> definitions = new ArrayList<>();
+        for (int i = 0; i <= partitionsAheadDays; i++) {
+            LocalDate day = today.plusDays(i);
+            long bound = day.plusDays(1).toEpochDay() + TO_DAYS_EPOCH;
+            if (bound > maxBound) {
+                definitions.add("PARTITION " + day.format(PARTITION_NAME) + " VALUES LESS THAN (" + bound + ")");
+            }
+        }
+        if (!definitions.isEmpty()) {
+            definitions.add("PARTITION pmax VALUES LESS THAN MAXVALUE");
+            jdbcTemplate.execute("ALTER TABLE " + table + " REORGANIZE PARTITION pmax INTO ("
+                + String.join(", ", definitions) + ")");
+            log.info("预建分区: table={}, count={}", table, definitions.size() - 1);
+        }
+        return true;
+    }
+
+    /**
+     * 清理目标
+     *
+     * @param table 表名
+     * @param condition 过期条件
+     * @param cutoff 条件中的时间参数
+     */
+    private record PurgeTarget(String table, String condition, Cutoff cutoff) {
+    }
+
+    /**
+     * 过期条件的时间参数
+     */
+    private enum Cutoff {
+        /**
+         * 当前时间
+         */
+        NOW,
+        /**
+         * 当前时间、已使用授权码的保留截止时间
+         */
+        NOW_AND_USED_CODE_RETENTION,
+        /**
+         * DEAD 状态报告的保留截止时间
+         */
+        DEAD_REPORT_RETENTION
+    }
+}
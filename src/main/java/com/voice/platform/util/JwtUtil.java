@@ -1,14 +1,21 @@
 package com.voice.platform.util;
 
 import com.voice.platform.config.JwtConfig;
+import com.voice.platform.security.JwtKeyRing;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -16,13 +23,59 @@ import java.util.UUID;
 
 /**
  * JWT 工具类
+ * 配置了密钥库时使用密钥环的当前密钥签发（ES256/RS256，头中携带 kid），按 kid 选择公钥验证；
+ * 未配置时以 HS256 共享密钥签发和验证（不带 kid）。解析器在启动时构建一次，已验证的声明在当前请求内缓存
  */
 @Slf4j
 @Component
 public class JwtUtil {
     
-    @Autowired
-    private JwtConfig jwtConfig;
+    /**
+     * 请求属性名：当前请求中已验证的声明（token -> Claims）
+     */
+    private static final String CLAIMS_ATTRIBUTE = JwtUtil.class.getName() + ".claims";
+    
+    private final JwtConfig jwtConfig;
+    
+    private final JwtKeyRing keyRing;
+    
+    /**
+     * HS256 共享密钥：未配置密钥库时用于签发和验证；配置密钥库后仅在 accept-hs256-until 之前用于验证切换前签发的令牌
+     */
+    private final SecretKey sharedSecretKey;
+    
+    /**
+     * 配置密钥库后继续接受 HS256 令牌的截止时间，null 表示不接受
+     */
+    private final Instant hs256AcceptedUntil;
+    
+    private final JwtParser parser;
+    
+    /**
+     * @param acceptHs256Until 配置密钥库后继续接受 HS256 令牌的截止时间（ISO-8601），为空时不接受
+     */
+    public JwtUtil(JwtConfig jwtConfig, JwtKeyRing keyRing,
+                   @Value("${oauth2.jwt.signing.accept-hs256-until:}") String acceptHs256Until) {
+        this.jwtConfig = jwtConfig;
+        this.keyRing = keyRing;
+        this.hs256AcceptedUntil = keyRing.isConfigured() && StringUtils.hasText(acceptHs256Until)
+                ? Instant.parse(acceptHs256Until.trim())
+                : null;
+        this.sharedSecretKey = !keyRing.isConfigured() || hs256AcceptedUntil != null
+                ? Keys.hmacShaKeyFor(jwtConfig.getSecret().getBytes(StandardCharsets.UTF_8))
+                : null;
+        if (hs256AcceptedUntil != null) {
+            log.warn("已配置 JWT 签名密钥库，{} 之前仍接受 HS256 共享密钥签发的令牌", hs256AcceptedUntil);
+        }
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        return verificationKey(header);
+                    }
+                })
+                .build();
+    }
     
     /**
      * 生成访问令牌
@@ -36,16 +89,14 @@ public class JwtUtil {
         claims.put("client_id", clientId);
         claims.put("token_type", "access_token");
         
-        return Jwts.builder()
+        return sign(Jwts.builder()
                 .setSubject(userId)
                 .setIssuer(jwtConfig.getIssuer())
                 .setAudience(clientId)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
                 .setId(UUID.randomUUID().toString())
-                .addClaims(claims)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                .compact();
+                .addClaims(claims));
     }
     
     /**
@@ -60,15 +111,27 @@ public class JwtUtil {
         claims.put("client_id", clientId);
         claims.put("token_type", "refresh_token");
         
-        return Jwts.builder()
+        return sign(Jwts.builder()
                 .setSubject(userId)
                 .setIssuer(jwtConfig.getIssuer())
                 .setAudience(clientId)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
                 .setId(UUID.randomUUID().toString())
-                .addClaims(claims)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .addClaims(claims));
+    }
+    
+    /**
+     * 使用当前密钥签名，未配置密钥库时使用 HS256 共享密钥
+     */
+    private String sign(JwtBuilder builder) {
+        JwtKeyRing.SigningKey signingKey = keyRing.active();
+        if (signingKey == null) {
+            return builder.signWith(sharedSecretKey, Jwts.SIG.HS256).compact();
+        }
+        return builder
+                .header().keyId(signingKey.kid()).and()
+                .signWith(signingKey.privateKey(), signingKey.algorithm())
                 .compact();
     }
     
@@ -77,10 +140,7 @@ public class JwtUtil {
      */
     public boolean validateToken(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
+            getClaimsFromToken(token);
             return true;
         } catch (SecurityException ex) {
             log.error("Invalid JWT signature");
@@ -100,50 +160,74 @@ public class JwtUtil {
      * 从 Token 中获取用户 ID
      */
     public String getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        
-        return claims.getSubject();
+        return getClaimsFromToken(token).getSubject();
     }
     
     /**
      * 从 Token 中获取客户端 ID
      */
     public String getClientIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        
-        return claims.get("client_id", String.class);
+        return getClaimsFromToken(token).get("client_id", String.class);
     }
     
     /**
      * 从 Token 中获取权限范围
      */
     public String getScopeFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        
-        return claims.get("scope", String.class);
+        return getClaimsFromToken(token).get("scope", String.class);
     }
     
     /**
      * 从 Token 中获取所有声明
+     * 同一请求内每个 Token 只解析和验签一次，验证失败时抛出 JwtException
      */
     public Claims getClaimsFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return parseClaims(token);
+        }
+        
+        @SuppressWarnings("unchecked")
+        Map<String, Claims> verified = (Map<String, Claims>) attributes.getAttribute(
+                CLAIMS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (verified == null) {
+            verified = new HashMap<>(2);
+            attributes.setAttribute(CLAIMS_ATTRIBUTE, verified, RequestAttributes.SCOPE_REQUEST);
+        }
+        
+        Claims claims = verified.get(token);
+        if (claims == null) {
+            claims = parseClaims(token);
+            verified.put(token, claims);
+        }
+        return claims;
+    }
+    
+    /**
+     * 解析并验证 Token
+     */
+    private Claims parseClaims(String token) {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+    
+    /**
+     * 按 JWT 头选择验证密钥
+     * 带 kid 的令牌使用密钥环中的公钥；不带 kid 的 HS256 令牌在未配置密钥库、或未超过 accept-hs256-until 时使用共享密钥
+     */
+    private Key verificationKey(JwsHeader header) {
+        String kid = header.getKeyId();
+        if (kid != null) {
+            Key key = keyRing.verificationKey(kid);
+            if (key == null) {
+                throw new UnsupportedJwtException("未知的签名密钥: kid=" + kid);
+            }
+            return key;
+        }
+        if (sharedSecretKey != null && "HS256".equals(header.getAlgorithm())
+                && (hs256AcceptedUntil == null || Instant.now().isBefore(hs256AcceptedUntil))) {
+            return sharedSecretKey;
+        }
+        throw new UnsupportedJwtException("JWT 缺少 kid");
     }
     
     /**
@@ -157,12 +241,4 @@ public class JwtUtil {
             return true;
         }
     }
-    
-    /**
-     * 获取签名密钥
-     */
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtConfig.getSecret().getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
 }
@@ -0,0 +1,64 @@
+package com.voice.platform.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * 按键合并并发调用
+ * 同一键同时只执行一次加载，执行期间到达的调用共享同一个结果，用于令牌刷新等代价较高的外部调用
+ *
+ * @param <K> 键类型，如用户 ID 或凭证标识
+ * @param <V> 结果类型
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 执行加载，同一键已有加载在执行时直接返回其结果
+     *
+     * @param executor 执行加载的执行器；传入 Runnable::run 时由发起调用的线程执行
+     */
+    public CompletableFuture<V> execute(K key, Supplier<V> loader, Executor executor) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    created.complete(loader.get());
+                } catch (Throwable e) {
+                    created.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(key, created);
+                }
+            });
+        } catch (RuntimeException e) {
+            // 执行器拒绝任务
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    /**
+     * 同步执行加载并等待结果，加载抛出的运行时异常原样抛出
+     */
+    public V executeAndWait(K key, Supplier<V> loader) {
+        CompletableFuture<V> future = execute(key, loader, Runnable::run);
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+}
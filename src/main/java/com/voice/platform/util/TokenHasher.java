@@ -0,0 +1,42 @@
+package com.voice.platform.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Token 摘要工具类
+ * 使用 SHA-256 计算令牌的定长摘要，用于缓存键和索引
+ */
+public class TokenHasher {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    /**
+     * 计算令牌的 SHA-256 摘要（32 字节）
+     */
+    public static byte[] sha256(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return digest.digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 算法不可用", e);
+        }
+    }
+
+    /**
+     * 计算令牌摘要的 Base64URL 字符串（43 字符）
+     */
+    public static String hashKey(String token) {
+        return ENCODER.encodeToString(sha256(token));
+    }
+
+    /**
+     * 日志中代替令牌原文的标识：摘要的前 8 个字符
+     * 可用于关联同一令牌的多条日志，无法还原出令牌本身
+     */
+    public static String fingerprint(String token) {
+        return token == null ? "null" : hashKey(token).substring(0, 8);
+    }
+}
@@ -0,0 +1,6 @@
+-- ----------------------------
+-- devices 表增加状态版本号
+-- 用于 device-state.optimistic-lock 开启时检测多平台并发修改；
+-- 允许为空，已有记录无需回填，条件 UPDATE 按 COALESCE(version, 0) 比较和递增
+-- ----------------------------
+ALTER TABLE `devices` ADD COLUMN `version` bigint NULL DEFAULT NULL;
@@ -0,0 +1,5 @@
+-- ----------------------------
+-- devices 表增加 user_id 索引
+-- 设备发现按用户查询设备列表（findByUserId），避免全表扫描
+-- ----------------------------
+ALTER TABLE `devices` ADD INDEX `idx_devices_user_id` (`user_id`);
@@ -0,0 +1,12 @@
+-- ----------------------------
+-- 过期令牌清理（TokenPurgeService）
+-- expires_at 索引用于按过期时间查找待删除记录；
+-- 应用内的分块清理取代数据库事件 cleanup_expired_data 及其调用的存储过程（整表 DELETE 会长时间持有行锁）
+-- ----------------------------
+ALTER TABLE `oauth_access_tokens` ADD INDEX `idx_access_tokens_expires_at` (`expires_at`);
+ALTER TABLE `oauth_refresh_tokens` ADD INDEX `idx_refresh_tokens_expires_at` (`expires_at`);
+ALTER TABLE `oauth_authorizations` ADD INDEX `idx_authorizations_expires_at` (`expires_at`);
+ALTER TABLE `oauth_authorization_codes` ADD INDEX `idx_authorization_codes_expires_at` (`expires_at`);
+
+DROP EVENT IF EXISTS `cleanup_expired_data`;
+DROP PROCEDURE IF EXISTS `cleanup_expired_authorizations`;
@@ -0,0 +1,20 @@
+-- ----------------------------
+-- 令牌表改为保存 SHA-256 摘要
+-- token_hash 为定长 BINARY(32)，唯一索引比原令牌字符串（JWT 可达数百字节）小数倍；
+-- 数据库不再保存可直接使用的令牌原文，已有记录按原文回填摘要后删除原文列
+-- ----------------------------
+ALTER TABLE `oauth_access_tokens` ADD COLUMN `token_hash` binary(32) NULL;
+UPDATE `oauth_access_tokens` SET `token_hash` = UNHEX(SHA2(`access_token`, 256));
+ALTER TABLE `oauth_access_tokens`
+    MODIFY `token_hash` binary(32) NOT NULL,
+    ADD UNIQUE INDEX `uk_access_tokens_token_hash` (`token_hash`),
+    DROP INDEX `UK_s5lwm83s1hucehj885b6s3lbg`,
+    DROP COLUMN `access_token`;
+
+ALTER TABLE `oauth_refresh_tokens` ADD COLUMN `token_hash` binary(32) NULL;
+UPDATE `oauth_refresh_tokens` SET `token_hash` = UNHEX(SHA2(`refresh_token`, 256));
+ALTER TABLE `oauth_refresh_tokens`
+    MODIFY `token_hash` binary(32) NOT NULL,
+    ADD UNIQUE INDEX `uk_refresh_tokens_token_hash` (`token_hash`),
+    DROP INDEX `UK_j7s0aq4hgkbx6kxf7k0262dcf`,
+    DROP COLUMN `refresh_token`;
@@ -0,0 +1,16 @@
+-- ----------------------------
+-- JWT 撤销记录
+-- JWT 访问令牌验证不再查询 oauth_access_tokens，撤销后的 jti 写入本表，各实例按主键增量加载到内存撤销列表，
+-- 并按 revoked_at 补扫最近的记录（主键顺序与提交顺序可能不一致）；
+-- 记录保留到令牌过期，由 TokenPurgeService 定期清理。oauth_access_tokens.jti 列已存在于 smarthomedb.sql
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS `oauth_revoked_tokens` (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `jti` varchar(100) NOT NULL COMMENT 'JWT ID',
+  `expires_at` datetime(6) NOT NULL COMMENT '令牌过期时间',
+  `revoked_at` datetime(6) NOT NULL COMMENT '撤销时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_revoked_tokens_jti` (`jti`),
+  KEY `idx_revoked_tokens_expires_at` (`expires_at`),
+  KEY `idx_revoked_tokens_revoked_at` (`revoked_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
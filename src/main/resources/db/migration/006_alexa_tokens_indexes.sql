@@ -0,0 +1,7 @@
+-- ----------------------------
+-- alexa_tokens 表增加 user_id、expires_at 索引
+-- 未命中内存缓存时按用户加载令牌（findByUserId）；后台刷新按过期时间扫描即将过期的令牌
+-- ----------------------------
+ALTER TABLE `alexa_tokens`
+  ADD INDEX `idx_alexa_tokens_user_id` (`user_id`),
+  ADD INDEX `idx_alexa_tokens_expires_at` (`expires_at`);
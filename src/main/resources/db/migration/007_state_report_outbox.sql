@@ -0,0 +1,29 @@
+-- ----------------------------
+-- 状态报告发件箱
+-- 设备状态变化与设备修改在同一事务中写入，用户已关联的每个语音平台一条；StateReportOutboxWorker 投递成功后删除，
+-- 被平台拒绝（不可重试的 4xx）后删除，暂时失败时按指数退避更新 next_attempt_at 重试，
+-- 超过最大重试次数后 status 置为 DEAD，保留 token-purge.dead-report-retention-hours 后由 TokenPurgeService 删除
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS `state_report_outbox` (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `platform` varchar(16) NOT NULL COMMENT '目标平台：ALEXA / GOOGLE',
+  `device_id` varchar(100) NOT NULL COMMENT '设备ID',
+  `user_id` bigint NULL DEFAULT NULL COMMENT '设备所属用户ID',
+  `old_power_state` varchar(20) NULL DEFAULT NULL,
+  `new_power_state` varchar(20) NULL DEFAULT NULL,
+  `old_work_mode` varchar(50) NULL DEFAULT NULL,
+  `new_work_mode` varchar(50) NULL DEFAULT NULL,
+  `status` varchar(16) NOT NULL COMMENT 'PENDING / DEAD',
+  `attempts` int NOT NULL DEFAULT 0 COMMENT '已尝试发送次数',
+  `next_attempt_at` datetime(6) NOT NULL COMMENT '下次可发送时间（领取后为租约到期时间）',
+  `created_at` datetime(6) NOT NULL,
+  PRIMARY KEY (`id`),
+  KEY `idx_state_report_outbox_status_next` (`status`, `next_attempt_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- ----------------------------
+-- oauth_refresh_tokens 表增加 user_id 索引
+-- 写入发件箱前按用户和账号关联客户端检查是否持有未过期的刷新令牌（是否已关联 Google）
+-- ----------------------------
+ALTER TABLE `oauth_refresh_tokens`
+  ADD INDEX `idx_refresh_tokens_user_id` (`user_id`);
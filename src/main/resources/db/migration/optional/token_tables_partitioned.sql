@@ -0,0 +1,27 @@
+-- ----------------------------
+-- 令牌表按天分区（可选）
+-- 按 expires_at 的日期做 RANGE 分区，过期令牌的清理变为 DROP PARTITION，不再逐行删除
+-- 执行后将表名加入 token-purge.partitioned-tables，TokenPurgeService 会删除过期分区并预建后续分区
+--
+-- 需在 004_token_hash.sql 之后执行
+-- 注意：MySQL 要求分区键包含在每个唯一索引中，
+-- 主键与令牌摘要唯一索引需加入 expires_at，令牌唯一性由随机生成保证
+-- 初始分区只建 pmax，首次清理时按当前日期拆分
+-- ----------------------------
+ALTER TABLE `oauth_access_tokens`
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (`id`, `expires_at`),
+    DROP INDEX `uk_access_tokens_token_hash`,
+    ADD UNIQUE INDEX `uk_access_tokens_token_hash_expires_at` (`token_hash`, `expires_at`),
+    DROP INDEX `jti`,
+    ADD UNIQUE INDEX `uk_jti_expires_at` (`jti`, `expires_at`);
+ALTER TABLE `oauth_access_tokens`
+    PARTITION BY RANGE (TO_DAYS(`expires_at`)) (PARTITION pmax VALUES LESS THAN MAXVALUE);
+
+ALTER TABLE `oauth_refresh_tokens`
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (`id`, `expires_at`),
+    DROP INDEX `uk_refresh_tokens_token_hash`,
+    ADD UNIQUE INDEX `uk_refresh_tokens_token_hash_expires_at` (`token_hash`, `expires_at`);
+ALTER TABLE `oauth_refresh_tokens`
+    PARTITION BY RANGE (TO_DAYS(`expires_at`)) (PARTITION pmax VALUES LESS THAN MAXVALUE);
@@ -17,6 +17,29 @@
 SET NAMES utf8mb4;
 SET FOREIGN_KEY_CHECKS = 0;
 
+-- ----------------------------
+-- Table structure for alexa_tokens
+-- ----------------------------
+DROP TABLE IF EXISTS `alexa_tokens`;
+CREATE TABLE `alexa_tokens`  (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `access_token` varchar(1000) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL,
+  `created_at` datetime(6) NULL DEFAULT NULL,
+  `expires_at` datetime(6) NOT NULL,
+  `grantee_token` varchar(500) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL,
+  `refresh_token` varchar(1000) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL,
+  `updated_at` datetime(6) NULL DEFAULT NULL,
+  `user_id` bigint NOT NULL,
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `UK_ta69exltn7c2n8cbv1qwq8yn7`(`grantee_token` ASC) USING BTREE,
+  INDEX `idx_alexa_tokens_user_id`(`user_id` ASC) USING BTREE,
+  INDEX `idx_alexa_tokens_expires_at`(`expires_at` ASC) USING BTREE
+) ENGINE = InnoDB AUTO_INCREMENT = 1 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Records of alexa_tokens
+-- ----------------------------
+
 -- ----------------------------
 -- Table structure for devices
 -- ----------------------------
@@ -33,28 +56,30 @@ CREATE TABLE `devices`  (
   `updated_at` datetime(6) NULL DEFAULT NULL,
   `user_id` bigint NOT NULL,
   `work_mode` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL,
+  `version` bigint NULL DEFAULT NULL,
   PRIMARY KEY (`id`) USING BTREE,
-  UNIQUE INDEX `UK_kl1viut5wsyxgnd1t3wqf9hbu`(`device_id` ASC) USING BTREE
+  UNIQUE INDEX `UK_kl1viut5wsyxgnd1t3wqf9hbu`(`device_id` ASC) USING BTREE,
+  INDEX `idx_devices_user_id`(`user_id` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 23 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci ROW_FORMAT = Dynamic;
 
 -- ----------------------------
 -- Records of devices
 -- ----------------------------
-INSERT INTO `devices` VALUES (8, 85, NULL, 'robot_001', '客厅扫地机器人', 'robot_cleaner', 'on', 'online', NULL, 1, 'auto');
-INSERT INTO `devices` VALUES (9, 100, NULL, 'robot_002', '卧室扫地机器人', 'robot_cleaner', 'off', 'online', NULL, 1, 'auto');
-INSERT INTO `devices` VALUES (10, 15, NULL, 'robot_003', '书房扫地机器人', 'robot_cleaner', 'on', 'online', NULL, 1, 'spot');
-INSERT INTO `devices` VALUES (11, 0, NULL, 'robot_004', '厨房扫地机器人', 'robot_cleaner', 'off', 'offline', NULL, 1, 'auto');
-INSERT INTO `devices` VALUES (12, 60, NULL, 'robot_005', '客厅扫地机器人', 'robot_cleaner', 'on', 'online', NULL, 2, 'edge');
-INSERT INTO `devices` VALUES (13, 95, NULL, 'robot_006', '卧室扫地机器人', 'robot_cleaner', 'off', 'online', NULL, 2, 'auto');
-INSERT INTO `devices` VALUES (14, 75, NULL, 'robot_007', '全屋扫地机器人', 'robot_cleaner', 'on', 'online', NULL, 3, 'auto');
-INSERT INTO `devices` VALUES (15, 50, NULL, 'robot_008', '阳台扫地机器人', 'robot_cleaner', 'on', 'online', NULL, 1, 'edge');
-INSERT INTO `devices` VALUES (16, 88, NULL, 'robot_009', '餐厅扫地机器人', 'robot_cleaner', 'off', 'online', NULL, 1, 'auto');
-INSERT INTO `devices` VALUES (17, 70, NULL, 'robot_010', '玄关扫地机器人', 'robot_cleaner', 'on', 'online', NULL, 1, 'spot');
-INSERT INTO `devices` VALUES (18, 100, NULL, 'robot_011', '主卧扫地机器人', 'robot_cleaner', 'off', 'online', NULL, 2, 'auto');
-INSERT INTO `devices` VALUES (19, 45, NULL, 'robot_012', '次卧扫地机器人', 'robot_cleaner', 'on', 'online', NULL, 2, 'auto');
-INSERT INTO `devices` VALUES (20, 10, NULL, 'robot_013', '儿童房扫地机器人', 'robot_cleaner', 'on', 'online', NULL, 3, 'spot');
-INSERT INTO `devices` VALUES (21, 80, NULL, 'robot_014', '老人房扫地机器人', 'robot_cleaner', 'on', 'online', NULL, 3, 'edge');
-INSERT INTO `devices` VALUES (22, 5, NULL, 'robot_015', '地下室扫地机器人', 'robot_cleaner', 'off', 'offline', NULL, 1, 'auto');
+INSERT INTO `devices` VALUES (8, 85, NULL, 'robot_001', '客厅扫地机器人', 'robot_cleaner', 'on', 'online', NULL, 1, 'auto', NULL);
+INSERT INTO `devices` VALUES (9, 100, NULL, 'robot_002', '卧室扫地机器人', 'robot_cleaner', 'off', 'online', NULL, 1, 'auto', NULL);
+INSERT INTO `devices` VALUES (10, 15, NULL, 'robot_003', '书房扫地机器人', 'robot_cleaner', 'on', 'online', NULL, 1, 'spot', NULL);
+INSERT INTO `devices` VALUES (11, 0, NULL, 'robot_004', '厨房扫地机器人', 'robot_cleaner', 'off', 'offline', NULL, 1, 'auto', NULL);
+INSERT INTO `devices` VALUES (12, 60, NULL, 'robot_005', '客厅扫地机器人', 'robot_cleaner', 'on', 'online', NULL, 2, 'edge', NULL);
+INSERT INTO `devices` VALUES (13, 95, NULL, 'robot_006', '卧室扫地机器人', 'robot_cleaner', 'off', 'online', NULL, 2, 'auto', NULL);
+INSERT INTO `devices` VALUES (14, 75, NULL, 'robot_007', '全屋扫地机器人', 'robot_cleaner', 'on', 'online', NULL, 3, 'auto', NULL);
+INSERT INTO `devices` VALUES (15, 50, NULL, 'robot_008', '阳台扫地机器人', 'robot_cleaner', 'on', 'online', NULL, 1, 'edge', NULL);
+INSERT INTO `devices` VALUES (16, 88, NULL, 'robot_009', '餐厅扫地机器人', 'robot_cleaner', 'off', 'online', NULL, 1, 'auto', NULL);
+INSERT INTO `devices` VALUES (17, 70, NULL, 'robot_010', '玄关扫地机器人', 'robot_cleaner', 'on', 'online', NULL, 1, 'spot', NULL);
+INSERT INTO `devices` VALUES (18, 100, NULL, 'robot_011', '主卧扫地机器人', 'robot_cleaner', 'off', 'online', NULL, 2, 'auto', NULL);
+INSERT INTO `devices` VALUES (19, 45, NULL, 'robot_012', '次卧扫地机器人', 'robot_cleaner', 'on', 'online', NULL, 2, 'auto', NULL);
+INSERT INTO `devices` VALUES (20, 10, NULL, 'robot_013', '儿童房扫地机器人', 'robot_cleaner', 'on', 'online', NULL, 3, 'spot', NULL);
+INSERT INTO `devices` VALUES (21, 80, NULL, 'robot_014', '老人房扫地机器人', 'robot_cleaner', 'on', 'online', NULL, 3, 'edge', NULL);
+INSERT INTO `devices` VALUES (22, 5, NULL, 'robot_015', '地下室扫地机器人', 'robot_cleaner', 'off', 'offline', NULL, 1, 'auto', NULL);
 
 -- ----------------------------
 -- Table structure for oauth_access_tokens
@@ -62,16 +87,17 @@ INSERT INTO `devices` VALUES (22, 5, NULL, 'robot_015', '地下室扫地机器
 DROP TABLE IF EXISTS `oauth_access_tokens`;
 CREATE TABLE `oauth_access_tokens`  (
   `id` bigint NOT NULL AUTO_INCREMENT,
-  `access_token` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL,
   `client_id` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL,
   `created_at` datetime(6) NULL DEFAULT NULL,
   `expires_at` datetime(6) NOT NULL,
   `scope` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL,
   `user_id` bigint NULL DEFAULT NULL,
   `jti` varchar(100) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT 'JWT Token ID',
+  `token_hash` binary(32) NOT NULL COMMENT '访问令牌的 SHA-256 摘要',
   PRIMARY KEY (`id`) USING BTREE,
-  UNIQUE INDEX `UK_s5lwm83s1hucehj885b6s3lbg`(`access_token` ASC) USING BTREE,
-  UNIQUE INDEX `jti`(`jti` ASC) USING BTREE
+  UNIQUE INDEX `uk_access_tokens_token_hash`(`token_hash` ASC) USING BTREE,
+  UNIQUE INDEX `jti`(`jti` ASC) USING BTREE,
+  INDEX `idx_access_tokens_expires_at`(`expires_at` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 1 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci ROW_FORMAT = Dynamic;
 
 -- ----------------------------
@@ -90,7 +116,8 @@ CREATE TABLE `oauth_authorization_codes`  (
   `expires_at` datetime(6) NOT NULL,
   `redirect_uri` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL,
   PRIMARY KEY (`id`) USING BTREE,
-  UNIQUE INDEX `UK_fc0cw2xkiehsjiv9x9efw74ql`(`authorization_code` ASC) USING BTREE
+  UNIQUE INDEX `UK_fc0cw2xkiehsjiv9x9efw74ql`(`authorization_code` ASC) USING BTREE,
+  INDEX `idx_authorization_codes_expires_at`(`expires_at` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 1 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci ROW_FORMAT = Dynamic;
 
 -- ----------------------------
@@ -116,7 +143,8 @@ CREATE TABLE `oauth_authorizations`  (
   `used_at` datetime(6) NULL DEFAULT NULL,
   `user_id` bigint NOT NULL,
   PRIMARY KEY (`id`) USING BTREE,
-  UNIQUE INDEX `UK_mi8w9i4jo2lwd0u047nwxh6df`(`authorization_code` ASC) USING BTREE
+  UNIQUE INDEX `UK_mi8w9i4jo2lwd0u047nwxh6df`(`authorization_code` ASC) USING BTREE,
+  INDEX `idx_authorizations_expires_at`(`expires_at` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 1 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci ROW_FORMAT = Dynamic;
 
 -- ----------------------------
@@ -165,17 +193,55 @@ CREATE TABLE `oauth_refresh_tokens`  (
   `client_id` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL,
   `created_at` datetime(6) NULL DEFAULT NULL,
   `expires_at` datetime(6) NOT NULL,
-  `refresh_token` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL,
   `scope` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL,
   `user_id` bigint NULL DEFAULT NULL,
+  `token_hash` binary(32) NOT NULL COMMENT '刷新令牌的 SHA-256 摘要',
   PRIMARY KEY (`id`) USING BTREE,
-  UNIQUE INDEX `UK_j7s0aq4hgkbx6kxf7k0262dcf`(`refresh_token` ASC) USING BTREE
+  UNIQUE INDEX `uk_refresh_tokens_token_hash`(`token_hash` ASC) USING BTREE,
+  INDEX `idx_refresh_tokens_expires_at`(`expires_at` ASC) USING BTREE,
+  INDEX `idx_refresh_tokens_user_id`(`user_id` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 1 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci ROW_FORMAT = Dynamic;
 
 -- ----------------------------
 -- Records of oauth_refresh_tokens
 -- ----------------------------
 
+-- ----------------------------
+-- Table structure for oauth_revoked_tokens
+-- ----------------------------
+DROP TABLE IF EXISTS `oauth_revoked_tokens`;
+CREATE TABLE `oauth_revoked_tokens`  (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `jti` varchar(100) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL COMMENT 'JWT ID',
+  `expires_at` datetime(6) NOT NULL COMMENT '令牌过期时间',
+  `revoked_at` datetime(6) NOT NULL COMMENT '撤销时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `uk_revoked_tokens_jti`(`jti` ASC) USING BTREE,
+  INDEX `idx_revoked_tokens_expires_at`(`expires_at` ASC) USING BTREE,
+  INDEX `idx_revoked_tokens_revoked_at`(`revoked_at` ASC) USING BTREE
+) ENGINE = InnoDB AUTO_INCREMENT = 1 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Table structure for state_report_outbox
+-- ----------------------------
+DROP TABLE IF EXISTS `state_report_outbox`;
+CREATE TABLE `state_report_outbox`  (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `platform` varchar(16) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL COMMENT '目标平台：ALEXA / GOOGLE',
+  `device_id` varchar(100) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL COMMENT '设备ID',
+  `user_id` bigint NULL DEFAULT NULL COMMENT '设备所属用户ID',
+  `old_power_state` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL,
+  `new_power_state` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL,
+  `old_work_mode` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL,
+  `new_work_mode` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL,
+  `status` varchar(16) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL COMMENT 'PENDING / DEAD',
+  `attempts` int NOT NULL DEFAULT 0 COMMENT '已尝试发送次数',
+  `next_attempt_at` datetime(6) NOT NULL COMMENT '下次可发送时间（领取后为租约到期时间）',
+  `created_at` datetime(6) NOT NULL,
+  PRIMARY KEY (`id`) USING BTREE,
+  INDEX `idx_state_report_outbox_status_next`(`status` ASC, `next_attempt_at` ASC) USING BTREE
+) ENGINE = InnoDB AUTO_INCREMENT = 1 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci ROW_FORMAT = Dynamic;
+
 -- ----------------------------
 -- Table structure for user_roles
 -- ----------------------------
@@ -223,43 +289,4 @@ INSERT INTO `users` VALUES (7, 'user1', '$2a$10$xy0BO5FcQDgfsDElXtAcMulqFNALZRAj
 INSERT INTO `users` VALUES (8, 'user2', '$2a$10$A/5oXwzNANH3bW80ShAzHOSD.sCaBsfucKRy.mLtlbNs7cYo67vW2', 'user2@example.com', '2026-02-25 09:20:09', '2026-02-25 09:20:09', b'1', b'1', b'1', b'1');
 INSERT INTO `users` VALUES (9, 'testuser', '$2a$10$HAqcLYGRkM1Rv.REg8qkReKXkEI.wjdDoAGEsTFEPuMHat8SvgX56', 'testuser@example.com', '2026-02-25 09:20:09', '2026-02-25 09:20:09', b'1', b'1', b'1', b'1');
 
--- ----------------------------
--- Procedure structure for cleanup_expired_authorizations
--- ----------------------------
-DROP PROCEDURE IF EXISTS `cleanup_expired_authorizations`;
-delimiter ;;
-CREATE PROCEDURE `cleanup_expired_authorizations`()
-BEGIN
-    -- 删除过期的授权码（超过 10 分钟）
-    DELETE FROM oauth_authorizations 
-    WHERE expires_at < NOW() 
-    OR (used = TRUE AND used_at < DATE_SUB(NOW(), INTERVAL 1 DAY));
-    
-    -- 删除过期的访问令牌
-    DELETE FROM oauth_access_tokens 
-    WHERE expires_at < NOW();
-    
-    -- 删除过期的刷新令牌
-    DELETE FROM oauth_refresh_tokens 
-    WHERE expires_at < NOW();
-    
-    SELECT 
-        'Cleanup completed' AS status,
-        ROW_COUNT() AS rows_affected;
-END
-;;
-delimiter ;
-
--- ----------------------------
--- Event structure for cleanup_expired_data
--- ----------------------------
-DROP EVENT IF EXISTS `cleanup_expired_data`;
-delimiter ;;
-CREATE EVENT `cleanup_expired_data`
-ON SCHEDULE
-EVERY '1' HOUR STARTS '2026-02-24 19:00:30'
-DO CALL cleanup_expired_authorizations()
-;;
-delimiter ;
-
 SET FOREIGN_KEY_CHECKS = 1;
@@ -0,0 +1,204 @@
+package com.voice.platform.capability;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.voice.platform.dto.RawJson;
+import com.voice.platform.dto.google.GoogleDevice;
+import com.voice.platform.model.Device;
+import com.voice.platform.service.DiscoveryCache.Platform;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 设备能力模板测试
+ * 模板渲染结果与原各平台构建代码的输出一致（字段顺序除外，原代码使用 HashMap），
+ * 没有模板的设备类型在设备发现中跳过
+ */
+class DeviceCapabilityRegistryTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final DeviceCapabilityRegistry registry =
+            new DeviceCapabilityRegistry(objectMapper, new ClassPathResource("device-capabilities.json"));
+
+    @Test
+    void aligenieMatchesPreviousDeviceList() throws Exception {
+        Device device = robot("robot_001", "客厅扫地机", "online", "on", "auto", 85);
+
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("powerstate", "on");
+        properties.put("mode", "auto");
+        properties.put("battery", 85);
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("deviceId", "robot_001");
+        expected.put("deviceName", "客厅扫地机");
+        expected.put("deviceType", "robot_cleaner");
+        expected.put("zone", "客厅");
+        expected.put("brand", "自定义品牌");
+        expected.put("model", "V1.0");
+        expected.put("icon", "https://example.com/icon.png");
+        expected.put("properties", properties);
+        expected.put("actions", List.of("TurnOn", "TurnOff", "Pause", "Continue", "SetMode"));
+
+        assertThat(render(Platform.ALIGENIE, device)).isEqualTo(objectMapper.valueToTree(List.of(expected)));
+    }
+
+    @Test
+    void duerosMatchesPreviousApplianceInfo() throws Exception {
+        Device device = robot("robot_001", "扫地机", "offline", null, null, null);
+
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("powerState", null);
+        details.put("workMode", null);
+        details.put("batteryLevel", null);
+        details.put("status", "offline");
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("applianceId", "robot_001");
+        expected.put("manufacturerName", "Smart Home Demo");
+        expected.put("modelName", "智能扫地机器人");
+        expected.put("version", "1.0");
+        expected.put("friendlyName", "扫地机");
+        expected.put("friendlyDescription", "智能扫地机器人，支持语音控制");
+        expected.put("isReachable", false);
+        expected.put("applianceTypes", List.of("ROBOT_CLEANER"));
+        expected.put("actions", List.of("turnOn", "turnOff", "pause", "continue", "setMode", "getState"));
+        expected.put("additionalApplianceDetails", details);
+
+        assertThat(render(Platform.DUEROS, device)).isEqualTo(objectMapper.valueToTree(List.of(expected)));
+    }
+
+    @Test
+    void miaiMatchesPreviousDeviceList() throws Exception {
+        Device device = robot("robot_001", "扫地机", "online", "off", "spot", 40);
+
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("power_state", "off");
+        properties.put("work_mode", "spot");
+        properties.put("battery_level", 40);
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("device_id", "robot_001");
+        expected.put("device_name", "扫地机");
+        expected.put("device_type", "vacuum-cleaner");
+        expected.put("online", true);
+        expected.put("room", "客厅");
+        expected.put("properties", properties);
+        expected.put("actions", List.of("turn-on", "turn-off", "pause", "continue", "set-mode", "query"));
+
+        assertThat(render(Platform.MIAI, device)).isEqualTo(objectMapper.valueToTree(List.of(expected)));
+    }
+
+    @Test
+    void googleMatchesPreviousVacuumDevice() throws Exception {
+        Device device = robot("robot_001", "Vacuum", "online", "on", "auto", 85);
+
+        GoogleDevice expected = GoogleDevice.builder()
+                .id("robot_001")
+                .type("action.devices.types.VACUUM")
+                .traits(List.of("action.devices.traits.StartStop", "action.devices.traits.OnOff",
+                        "action.devices.traits.Dock", "action.devices.traits.Modes",
+                        "action.devices.traits.Locator", "action.devices.traits.EnergyStorage"))
+                .name(GoogleDevice.DeviceName.builder()
+                        .defaultNames(List.of("Smart Vacuum"))
+                        .name("Vacuum")
+                        .nicknames(List.of("vacuum", "robot"))
+                        .build())
+                .willReportState(true)
+                .roomHint("Living Room")
+                .deviceInfo(GoogleDevice.DeviceInfo.builder()
+                        .manufacturer("Smart Home Demo")
+                        .model("V1.0")
+                        .hwVersion("1.0")
+                        .swVersion("1.0.0")
+                        .build())
+                .build();
+        JsonNode rendered = render(Platform.GOOGLE, device).get(0);
+        JsonNode expectedNode = objectMapper.valueToTree(expected);
+
+        expectedNode.fieldNames().forEachRemaining(field -> {
+            if (!expectedNode.get(field).isNull()) {
+                assertThat(rendered.get(field)).as(field).isEqualTo(expectedNode.get(field));
+            }
+        });
+        JsonNode attributes = rendered.get("attributes");
+        assertThat(attributes.get("pausable").asBoolean()).isTrue();
+        assertThat(attributes.get("isRechargeable").asBoolean()).isTrue();
+        assertThat(attributes.get("availableModes").get(0).get("settings")).hasSize(3);
+    }
+
+    @Test
+    void renderedOutputIsByteIdenticalToJacksonSerialization() throws Exception {
+        Device device = robot("robot_\"1\"", "名称\\带\n转义", "online", "on", "auto", 85);
+
+        RawJson json = registry.render(Platform.ALIGENIE, List.of(device));
+        JsonNode tree = objectMapper.readTree(json.toString());
+
+        assertThat(tree.get(0).get("deviceId").asText()).isEqualTo("robot_\"1\"");
+        assertThat(tree.get(0).get("deviceName").asText()).isEqualTo("名称\\带\n转义");
+        assertThat(json.toString()).isEqualTo(objectMapper.writeValueAsString(tree));
+    }
+
+    @Test
+    void unknownDeviceTypeIsSkipped() throws Exception {
+        Device unknown = robot("fan_001", "风扇", "online", "on", null, null);
+        unknown.setDeviceType("fan");
+        Device robot = robot("robot_001", "扫地机", "online", "on", "auto", 85);
+
+        for (Platform platform : List.of(Platform.ALIGENIE, Platform.DUEROS, Platform.MIAI,
+                Platform.ALEXA, Platform.GOOGLE)) {
+            RawJson json = registry.render(platform, List.of(unknown, robot));
+            assertThat(json.size()).as(platform.name()).isEqualTo(1);
+            assertThat(objectMapper.readTree(json.toString())).as(platform.name()).hasSize(1);
+            assertThat(json.toString()).as(platform.name()).doesNotContain("fan_001");
+        }
+        assertThat(registry.find("fan", Platform.MIAI)).isNull();
+    }
+
+    @Test
+    void emptyDeviceListRendersEmptyArray() {
+        RawJson json = registry.render(Platform.ALEXA, List.of());
+
+        assertThat(json.toString()).isEqualTo("[]");
+        assertThat(json.size()).isZero();
+    }
+
+    @Test
+    void stateReferencingPlatformsAreDetected() {
+        assertThat(registry.includesState(Platform.ALIGENIE)).isTrue();
+        assertThat(registry.includesState(Platform.DUEROS)).isTrue();
+        assertThat(registry.includesState(Platform.MIAI)).isTrue();
+        assertThat(registry.includesState(Platform.ALEXA)).isFalse();
+        assertThat(registry.includesState(Platform.GOOGLE)).isFalse();
+    }
+
+    @Test
+    void unknownPlaceholderIsRejected() {
+        assertThatThrownBy(() -> CapabilityTemplate.compile("{\"id\":\"${serial}\"}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("${serial}");
+    }
+
+    private JsonNode render(Platform platform, Device device) throws Exception {
+        return objectMapper.readTree(registry.render(platform, List.of(device)).toString());
+    }
+
+    private static Device robot(String deviceId, String deviceName, String status,
+                                String powerState, String workMode, Integer batteryLevel) {
+        Device device = new Device();
+        device.setDeviceId(deviceId);
+        device.setDeviceName(deviceName);
+        device.setDeviceType("robot_cleaner");
+        device.setUserId(1L);
+        device.setStatus(status);
+        device.setPowerState(powerState);
+        device.setWorkMode(workMode);
+        device.setBatteryLevel(batteryLevel);
+        return device;
+    }
+}
@@ -0,0 +1,90 @@
+package com.voice.platform.repository;
+
+import com.voice.platform.model.AccessToken;
+import com.voice.platform.model.RefreshToken;
+import com.voice.platform.util.TokenHasher;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 令牌摘要存储与查找测试
+ * 数据库只保存令牌的 SHA-256 摘要，按令牌原文查找时先计算摘要再匹配
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+class TokenHashLookupTest {
+
+    @Autowired
+    private AccessTokenRepository accessTokenRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void accessTokenIsStoredAsDigestAndFoundByRawToken() {
+        accessTokenRepository.saveAndFlush(accessToken("access-a", 1L));
+        accessTokenRepository.saveAndFlush(accessToken("access-b", 2L));
+        entityManager.clear();
+
+        AccessToken found = accessTokenRepository.findByToken("access-a").orElseThrow();
+
+        assertThat(found.getUserId()).isEqualTo(1L);
+        assertThat(found.getTokenHash()).hasSize(32).isEqualTo(TokenHasher.sha256("access-a"));
+        assertThat(accessTokenRepository.findByToken("access-c")).isEmpty();
+    }
+
+    @Test
+    void refreshTokenIsStoredAsDigestAndFoundByRawToken() {
+        refreshTokenRepository.saveAndFlush(refreshToken("refresh-a", 1L));
+        entityManager.clear();
+
+        RefreshToken found = refreshTokenRepository.findByToken("refresh-a").orElseThrow();
+
+        assertThat(found.getUserId()).isEqualTo(1L);
+        assertThat(found.getTokenHash()).isEqualTo(TokenHasher.sha256("refresh-a"));
+        assertThat(refreshTokenRepository.findByToken("refresh-b")).isEmpty();
+    }
+
+    @Test
+    void digestIsUnique() {
+        accessTokenRepository.saveAndFlush(accessToken("access-a", 1L));
+
+        assertThatThrownBy(() -> accessTokenRepository.saveAndFlush(accessToken("access-a", 2L)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private static AccessToken accessToken(String token, Long userId) {
+        AccessToken accessToken = new AccessToken();
+        accessToken.setToken(token);
+        accessToken.setClientId("client");
+        accessToken.setUserId(userId);
+        accessToken.setScope("device:control");
+        accessToken.setExpiresAt(LocalDateTime.now().plusHours(1));
+        accessToken.setCreatedAt(LocalDateTime.now());
+        return accessToken;
+    }
+
+    private static RefreshToken refreshToken(String token, Long userId) {
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setToken(token);
+        refreshToken.setClientId("client");
+        refreshToken.setUserId(userId);
+        refreshToken.setScope("device:control");
+        refreshToken.setExpiresAt(LocalDateTime.now().plusDays(30));
+        refreshToken.setCreatedAt(LocalDateTime.now());
+        return refreshToken;
+    }
+}
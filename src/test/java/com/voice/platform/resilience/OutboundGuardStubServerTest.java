@@ -0,0 +1,165 @@
+package com.voice.platform.resilience;
+
+import com.voice.platform.config.HttpClientProperties;
+import com.voice.platform.config.OutboundProperties;
+import com.voice.platform.config.RestTemplateConfig;
+import com.voice.platform.support.StubHttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 出站舱壁和熔断器测试
+ * 使用真实的连接池 RestTemplate 和 OutboundGuardInterceptor，外部端点由本地桩服务器代替，
+ * 以 5xx 响应触发熔断、以注入的延迟占满舱壁。每个测试使用独立的目标，熔断器状态互不影响
+ */
+@SpringBootTest(classes = OutboundGuardStubServerTest.TestConfig.class,
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class OutboundGuardStubServerTest {
+
+    private static final String RECOVER_PATH = "/recover/v1/report";
+
+    private static final String REOPEN_PATH = "/reopen/v1/report";
+
+    private static final String BULKHEAD_PATH = "/bulkhead/v1/report";
+
+    private static final long OPEN_MS = 300;
+
+    private static final StubHttpServer STUB = StubHttpServer.start();
+
+    @Configuration
+    @EnableConfigurationProperties
+    @Import({RestTemplateConfig.class, HttpClientProperties.class, OutboundProperties.class, OutboundGuards.class})
+    static class TestConfig {
+    }
+
+    @DynamicPropertySource
+    static void destinations(DynamicPropertyRegistry registry) {
+        breaker(registry, "recover", "/recover/");
+        breaker(registry, "reopen", "/reopen/");
+
+        String bulkhead = "outbound.destinations.bulkhead.";
+        registry.add(bulkhead + "urls[0]", () -> STUB.url("/bulkhead/"));
+        registry.add(bulkhead + "max-concurrent", () -> 1);
+        registry.add(bulkhead + "max-queued", () -> 0);
+    }
+
+    /**
+     * 最近 4 次调用中失败达到一半即熔断，熔断 OPEN_MS 后放行 2 个探测调用
+     */
+    private static void breaker(DynamicPropertyRegistry registry, String name, String pathPrefix) {
+        String prefix = "outbound.destinations." + name + ".";
+        registry.add(prefix + "urls[0]", () -> STUB.url(pathPrefix));
+        registry.add(prefix + "window-size", () -> 4);
+        registry.add(prefix + "minimum-calls", () -> 4);
+        registry.add(prefix + "failure-rate-threshold", () -> 50);
+        registry.add(prefix + "open-ms", () -> OPEN_MS);
+        registry.add(prefix + "half-open-calls", () -> 2);
+    }
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private OutboundGuards outboundGuards;
+
+    @AfterAll
+    static void stopStub() {
+        STUB.close();
+    }
+
+    @BeforeEach
+    void resetStub() {
+        STUB.reset();
+    }
+
+    @Test
+    void breakerOpensOnServerErrorsAndClosesAfterHalfOpenProbesSucceed() throws Exception {
+        CircuitBreaker breaker = outboundGuards.all().get("recover").breaker();
+        // HttpClient 默认对 503 自动重试一次，使用 502 使每次调用只发出一个请求
+        STUB.respond(RECOVER_PATH, 502);
+
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> post(RECOVER_PATH)).isInstanceOf(HttpServerErrorException.class);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        // 熔断期间请求不发出
+        assertThatThrownBy(() -> post(RECOVER_PATH)).isInstanceOf(CallNotPermittedException.class);
+        assertThat(STUB.count(RECOVER_PATH)).isEqualTo(4);
+
+        STUB.respond(RECOVER_PATH, 200);
+        TimeUnit.MILLISECONDS.sleep(OPEN_MS + 50);
+
+        post(RECOVER_PATH);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        post(RECOVER_PATH);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(STUB.count(RECOVER_PATH)).isEqualTo(6);
+    }
+
+    @Test
+    void halfOpenProbeFailureReopensBreaker() throws Exception {
+        CircuitBreaker breaker = outboundGuards.all().get("reopen").breaker();
+        STUB.respond(REOPEN_PATH, 500);
+
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> post(REOPEN_PATH)).isInstanceOf(HttpServerErrorException.class);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        TimeUnit.MILLISECONDS.sleep(OPEN_MS + 50);
+
+        assertThatThrownBy(() -> post(REOPEN_PATH)).isInstanceOf(HttpServerErrorException.class);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(() -> post(REOPEN_PATH)).isInstanceOf(CallNotPermittedException.class);
+        assertThat(STUB.count(REOPEN_PATH)).isEqualTo(5);
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondConcurrencyLimit() throws Exception {
+        Bulkhead bulkhead = outboundGuards.all().get("bulkhead").bulkhead();
+        STUB.delay(BULKHEAD_PATH, 500);
+
+        CompletableFuture<String> slow = CompletableFuture.supplyAsync(() -> post(BULKHEAD_PATH),
+                command -> Thread.ofVirtual().start(command));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bulkhead.getActive() == 0 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertThat(bulkhead.getActive()).isEqualTo(1);
+
+        // 并发已满且不允许排队，立即拒绝，请求不发出
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> post(BULKHEAD_PATH)).isInstanceOf(CallNotPermittedException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(500);
+
+        assertThat(slow.get(5, TimeUnit.SECONDS)).isEqualTo("{}");
+        assertThat(bulkhead.getActive()).isZero();
+        assertThat(STUB.count(BULKHEAD_PATH)).isEqualTo(1);
+
+        // 许可归还后恢复放行
+        STUB.delay(BULKHEAD_PATH, 0);
+        assertThat(post(BULKHEAD_PATH)).isEqualTo("{}");
+        assertThat(STUB.count(BULKHEAD_PATH)).isEqualTo(2);
+    }
+
+    private String post(String path) {
+        return restTemplate.postForObject(STUB.url(path), "{}", String.class);
+    }
+}
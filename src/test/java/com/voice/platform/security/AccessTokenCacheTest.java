@@ -0,0 +1,107 @@
+package com.voice.platform.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 访问令牌验证缓存测试
+ * 覆盖存活时间上限、令牌过期、撤销失效以及事务提交后的再次失效
+ */
+class AccessTokenCacheTest {
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void cachedPrincipalIsReturnedUntilMaxTtl() throws Exception {
+        AccessTokenCache cache = new AccessTokenCache(100, 1);
+        TokenPrincipal principal = principal(1L, LocalDateTime.now().plusHours(1));
+        cache.put("token-a", principal);
+
+        assertThat(cache.get("token-a")).isEqualTo(principal);
+        assertThat(cache.get("token-b")).isNull();
+
+        // 令牌剩余 1 小时，条目只存活 max-ttl-seconds
+        TimeUnit.MILLISECONDS.sleep(1200);
+        assertThat(cache.get("token-a")).isNull();
+    }
+
+    @Test
+    void entryDoesNotOutliveToken() throws Exception {
+        AccessTokenCache cache = new AccessTokenCache(100, 300);
+        cache.put("token-a", principal(1L, LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(300))));
+        assertThat(cache.get("token-a")).isNotNull();
+
+        TimeUnit.MILLISECONDS.sleep(500);
+        assertThat(cache.get("token-a")).isNull();
+
+        // 已过期的令牌不进入缓存
+        cache.put("token-b", principal(1L, LocalDateTime.now().minusSeconds(1)));
+        assertThat(cache.get("token-b")).isNull();
+    }
+
+    @Test
+    void invalidateRemovesSingleToken() {
+        AccessTokenCache cache = new AccessTokenCache(100, 300);
+        cache.put("token-a", principal(1L, LocalDateTime.now().plusHours(1)));
+        cache.put("token-b", principal(1L, LocalDateTime.now().plusHours(1)));
+
+        cache.invalidate("token-a");
+
+        assertThat(cache.get("token-a")).isNull();
+        assertThat(cache.get("token-b")).isNotNull();
+    }
+
+    @Test
+    void invalidateUserRemovesOnlyThatUsersTokens() {
+        AccessTokenCache cache = new AccessTokenCache(100, 300);
+        cache.put("token-a", principal(1L, LocalDateTime.now().plusHours(1)));
+        cache.put("token-b", principal(1L, LocalDateTime.now().plusHours(1)));
+        cache.put("token-c", principal(2L, LocalDateTime.now().plusHours(1)));
+
+        cache.invalidateUser(1L);
+
+        assertThat(cache.get("token-a")).isNull();
+        assertThat(cache.get("token-b")).isNull();
+        assertThat(cache.get("token-c")).isNotNull();
+    }
+
+    @Test
+    void invalidationIsRepeatedAfterCommit() {
+        AccessTokenCache cache = new AccessTokenCache(100, 300);
+        TokenPrincipal principal = principal(1L, LocalDateTime.now().plusHours(1));
+        cache.put("token-a", principal);
+        cache.put("token-b", principal);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.invalidate("token-a");
+        cache.invalidateUser(1L);
+        assertThat(cache.get("token-a")).isNull();
+        assertThat(cache.get("token-b")).isNull();
+
+        // 提交前并发请求读到未提交的旧记录并回填缓存
+        cache.put("token-a", principal);
+        cache.put("token-b", principal);
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        assertThat(cache.get("token-a")).isNull();
+        assertThat(cache.get("token-b")).isNull();
+    }
+
+    private static TokenPrincipal principal(Long userId, LocalDateTime expiresAt) {
+        return new TokenPrincipal(userId, "client", "device:control", expiresAt);
+    }
+}
@@ -0,0 +1,168 @@
+package com.voice.platform.security;
+
+import com.voice.platform.model.RevokedToken;
+import com.voice.platform.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * JWT 撤销列表测试
+ * 覆盖撤销在事务提交后生效、按主键增量加载，以及按 revoked_at 补充加载乱序提交的记录
+ */
+@ExtendWith(MockitoExtension.class)
+class JwtRevocationListTest {
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @InjectMocks
+    private JwtRevocationList revocationList;
+
+    /**
+     * 已提交的撤销记录，按提交顺序加入
+     */
+    private final List<RevokedToken> committed = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(revocationList, "expectedSize", 1000);
+        ReflectionTestUtils.setField(revocationList, "falsePositiveRate", 0.01);
+        ReflectionTestUtils.setField(revocationList, "pageSize", 2);
+        ReflectionTestUtils.setField(revocationList, "overlapMs", 30000L);
+
+        when(revokedTokenRepository.findByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(anyLong(), any(), any()))
+                .thenAnswer(invocation -> page(committed.stream()
+                        .filter(r -> r.getId() > invocation.<Long>getArgument(0))
+                        .sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+                        .toList(), invocation.getArgument(2)));
+        when(revokedTokenRepository.findByRevokedAtGreaterThanEqualAndExpiresAtAfterOrderByIdAsc(any(), any(), any()))
+                .thenAnswer(invocation -> page(committed.stream()
+                        .filter(r -> !r.getRevokedAt().isBefore(invocation.getArgument(0)))
+                        .sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+                        .toList(), invocation.getArgument(2)));
+        revocationList.init();
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void revokeOutsideTransactionAppliesImmediately() {
+        revocationList.revoke("jti-1", LocalDateTime.now().plusHours(1));
+
+        assertThat(revocationList.isRevoked("jti-1")).isTrue();
+        assertThat(revocationList.isRevoked("jti-2")).isFalse();
+        verify(revokedTokenRepository).save(any(RevokedToken.class));
+    }
+
+    @Test
+    void revokeInTransactionAppliesAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        revocationList.revoke("jti-1", LocalDateTime.now().plusHours(1));
+
+        assertThat(revocationList.isRevoked("jti-1")).isFalse();
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        assertThat(revocationList.isRevoked("jti-1")).isTrue();
+    }
+
+    @Test
+    void rolledBackRevocationDoesNotApply() {
+        TransactionSynchronizationManager.initSynchronization();
+        revocationList.revoke("jti-1", LocalDateTime.now().plusHours(1));
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        assertThat(revocationList.isRevoked("jti-1")).isFalse();
+    }
+
+    @Test
+    void expiredTokenIsNotRecorded() {
+        revocationList.revoke("jti-1", LocalDateTime.now().minusSeconds(1));
+
+        assertThat(revocationList.isRevoked("jti-1")).isFalse();
+        verify(revokedTokenRepository, never()).save(any(RevokedToken.class));
+    }
+
+    @Test
+    void refreshLoadsRevocationsFromOtherInstancesAcrossPages() {
+        for (long id = 1; id <= 5; id++) {
+            commit(id, "jti-" + id);
+        }
+
+        revocationList.refresh();
+
+        for (long id = 1; id <= 5; id++) {
+            assertThat(revocationList.isRevoked("jti-" + id)).isTrue();
+        }
+    }
+
+    @Test
+    void recordCommittedAfterLargerIdIsPickedUpByOverlapScan() {
+        // ID 2 先提交并被加载，游标越过 1
+        commit(2L, "jti-2");
+        revocationList.refresh();
+        assertThat(revocationList.isRevoked("jti-2")).isTrue();
+
+        // ID 1 的事务随后才提交，主键游标不会再读到它
+        commit(1L, "jti-1");
+        revocationList.refresh();
+
+        assertThat(revocationList.isRevoked("jti-1")).isTrue();
+    }
+
+    @Test
+    void evictExpiredDropsExpiredRevocations() throws Exception {
+        revocationList.revoke("jti-1", LocalDateTime.now().plusNanos(50_000_000L));
+        revocationList.revoke("jti-2", LocalDateTime.now().plusHours(1));
+
+        TimeUnit.MILLISECONDS.sleep(100);
+        revocationList.evictExpired();
+
+        assertThat(revocationList.isRevoked("jti-1")).isFalse();
+        assertThat(revocationList.isRevoked("jti-2")).isTrue();
+    }
+
+    private void commit(Long id, String jti) {
+        RevokedToken record = new RevokedToken();
+        record.setId(id);
+        record.setJti(jti);
+        record.setExpiresAt(LocalDateTime.now().plusHours(1));
+        record.setRevokedAt(LocalDateTime.now());
+        committed.add(record);
+    }
+
+    private static List<RevokedToken> page(List<RevokedToken> records, Pageable pageable) {
+        int from = (int) Math.min(pageable.getOffset(), records.size());
+        int to = Math.min(from + pageable.getPageSize(), records.size());
+        return records.subList(from, to);
+    }
+}
@@ -0,0 +1,138 @@
+package com.voice.platform.service;
+
+import com.voice.platform.capability.DeviceCapabilityRegistry;
+import com.voice.platform.logging.RequestLogContext;
+import com.voice.platform.model.Device;
+import com.voice.platform.repository.DeviceRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+/**
+ * 批量加载设备测试
+ * Google QUERY / EXECUTE 涉及的设备用一次 IN 查询加载，并按令牌所属用户过滤
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(DeviceService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DeviceBatchLookupTest {
+
+    @MockBean
+    private DeviceStateStore deviceStateStore;
+
+    @MockBean
+    private DiscoveryCache discoveryCache;
+
+    @MockBean
+    private DeviceCapabilityRegistry capabilityRegistry;
+
+    @MockBean
+    private RequestLogContext requestLogContext;
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        deviceRepository.deleteAll();
+        List<Device> devices = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            devices.add(device(String.format("robot_%03d", i), 1L));
+        }
+        devices.add(device("robot_other", 2L));
+        deviceRepository.saveAll(devices);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void devicesAreLoadedWithOneQuery() {
+        List<String> deviceIds = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            deviceIds.add(String.format("robot_%03d", i));
+        }
+        deviceIds.add("robot_missing");
+
+        Map<String, Device> devices = deviceService.findDevicesByDeviceIds(1L, deviceIds);
+
+        assertThat(devices).hasSize(20).doesNotContainKey("robot_missing");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void devicesOfOtherUsersAreExcluded() {
+        Map<String, Device> devices = deviceService.findDevicesByDeviceIds(1L, List.of("robot_001", "robot_other"));
+
+        assertThat(devices).containsOnlyKeys("robot_001");
+        assertThat(deviceService.findDevicesByDeviceIds(2L, List.of("robot_001", "robot_other")))
+                .containsOnlyKeys("robot_other");
+    }
+
+    @Test
+    void internalLookupIsNotScopedToUser() {
+        Map<String, Device> devices = deviceService.findDevicesByDeviceIds(List.of("robot_001", "robot_other"));
+
+        assertThat(devices).containsOnlyKeys("robot_001", "robot_other");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void writeBehindReadsMemoryAndFiltersByUser() {
+        Map<String, Device> inMemory = new HashMap<>();
+        inMemory.put("robot_001", device("robot_001", 1L));
+        inMemory.put("robot_other", device("robot_other", 2L));
+        when(deviceStateStore.isEnabled()).thenReturn(true);
+        when(deviceStateStore.findAll(anyCollection())).thenReturn(inMemory);
+
+        Map<String, Device> devices = deviceService.findDevicesByDeviceIds(1L, List.of("robot_001", "robot_other"));
+
+        assertThat(devices).containsOnlyKeys("robot_001");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    private static Device device(String deviceId, Long userId) {
+        Device device = new Device();
+        device.setDeviceId(deviceId);
+        device.setDeviceName(deviceId);
+        device.setDeviceType("robot_cleaner");
+        device.setUserId(userId);
+        device.setStatus("online");
+        device.setPowerState("off");
+        device.setWorkMode("auto");
+        device.setBatteryLevel(80);
+        device.setCreatedAt(LocalDateTime.now());
+        device.setUpdatedAt(LocalDateTime.now());
+        return device;
+    }
+}
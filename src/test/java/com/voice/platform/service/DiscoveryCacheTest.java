@@ -0,0 +1,149 @@
+package com.voice.platform.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.voice.platform.capability.DeviceCapabilityRegistry;
+import com.voice.platform.dto.RawJson;
+import com.voice.platform.event.DeviceStateChangedEvent;
+import com.voice.platform.model.Device;
+import com.voice.platform.model.DeviceEntityListener;
+import com.voice.platform.service.DiscoveryCache.Platform;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 设备发现响应缓存测试
+ * 覆盖按平台和用户缓存、设备变更与状态变化的失效范围、事务提交后的再次失效以及设备换绑时原用户的失效
+ */
+class DiscoveryCacheTest {
+
+    private final DeviceCapabilityRegistry capabilityRegistry =
+            new DeviceCapabilityRegistry(new ObjectMapper(), new ClassPathResource("device-capabilities.json"));
+
+    private final DiscoveryCache cache = new DiscoveryCache(capabilityRegistry, true, 1000, 600);
+
+    private final AtomicInteger builds = new AtomicInteger();
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void fragmentIsBuiltOncePerPlatformAndUser() {
+        RawJson first = get(Platform.ALEXA, 1L);
+
+        assertThat(get(Platform.ALEXA, 1L)).isSameAs(first);
+        get(Platform.GOOGLE, 1L);
+        get(Platform.ALEXA, 2L);
+        assertThat(builds).hasValue(3);
+    }
+
+    @Test
+    void disabledCacheBuildsEveryTime() {
+        DiscoveryCache disabled = new DiscoveryCache(capabilityRegistry, false, 1000, 600);
+
+        disabled.get(Platform.ALEXA, 1L, this::build);
+        disabled.get(Platform.ALEXA, 1L, this::build);
+
+        assertThat(builds).hasValue(2);
+    }
+
+    @Test
+    void invalidateUserEvictsAllPlatformsOfThatUserOnly() {
+        for (Platform platform : Platform.values()) {
+            get(platform, 1L);
+        }
+        get(Platform.ALEXA, 2L);
+        builds.set(0);
+
+        cache.invalidateUser(1L);
+
+        for (Platform platform : Platform.values()) {
+            get(platform, 1L);
+        }
+        get(Platform.ALEXA, 2L);
+        assertThat(builds).hasValue(Platform.values().length);
+    }
+
+    @Test
+    void stateChangeEvictsOnlyPlatformsWhoseTemplatesIncludeState() {
+        for (Platform platform : Platform.values()) {
+            get(platform, 1L);
+        }
+        builds.set(0);
+
+        cache.onDeviceStateChanged(new DeviceStateChangedEvent("robot_001", 1L, "off", "on", null, null));
+
+        get(Platform.ALEXA, 1L);
+        get(Platform.GOOGLE, 1L);
+        assertThat(builds).hasValue(0);
+        get(Platform.ALIGENIE, 1L);
+        get(Platform.DUEROS, 1L);
+        get(Platform.MIAI, 1L);
+        assertThat(builds).hasValue(3);
+    }
+
+    @Test
+    void evictionIsRepeatedAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        get(Platform.ALEXA, 1L);
+        get(Platform.MIAI, 1L);
+
+        cache.invalidateUser(1L);
+        cache.onDeviceStateChanged(new DeviceStateChangedEvent("robot_001", 1L, "off", "on", null, null));
+
+        // 提交前并发请求读到旧数据并回填
+        get(Platform.ALEXA, 1L);
+        get(Platform.MIAI, 1L);
+        builds.set(0);
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        get(Platform.ALEXA, 1L);
+        get(Platform.MIAI, 1L);
+        assertThat(builds).hasValue(2);
+    }
+
+    @Test
+    void reboundDeviceInvalidatesPreviousOwner() {
+        DeviceEntityListener listener = new DeviceEntityListener();
+        ReflectionTestUtils.setField(listener, "discoveryCache", cache);
+        ReflectionTestUtils.setField(listener, "deviceStateStore", mock(DeviceStateStore.class));
+        Device device = new Device();
+        device.setDeviceId("robot_001");
+        device.setUserId(1L);
+        listener.onDeviceLoaded(device);
+        get(Platform.ALEXA, 1L);
+        get(Platform.ALEXA, 2L);
+        builds.set(0);
+
+        device.setUserId(2L);
+        listener.onDeviceChanged(device);
+
+        get(Platform.ALEXA, 1L);
+        get(Platform.ALEXA, 2L);
+        assertThat(builds).hasValue(2);
+    }
+
+    private RawJson get(Platform platform, Long userId) {
+        return cache.get(platform, userId, this::build);
+    }
+
+    private RawJson build() {
+        builds.incrementAndGet();
+        return new RawJson("[]".getBytes(StandardCharsets.UTF_8), 0);
+    }
+}
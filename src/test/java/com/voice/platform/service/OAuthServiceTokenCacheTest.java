@@ -0,0 +1,81 @@
+package com.voice.platform.service;
+
+import com.voice.platform.model.AccessToken;
+import com.voice.platform.repository.AccessTokenRepository;
+import com.voice.platform.security.AccessTokenCache;
+import com.voice.platform.security.TokenPrincipal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * OAuthService 的 Opaque 访问令牌验证测试
+ * 令牌只在缓存未命中时查询数据库，失效后重新查询
+ */
+@ExtendWith(MockitoExtension.class)
+class OAuthServiceTokenCacheTest {
+
+    @Mock
+    private AccessTokenRepository accessTokenRepository;
+
+    @Spy
+    private AccessTokenCache accessTokenCache = new AccessTokenCache(100, 300);
+
+    @InjectMocks
+    private OAuthService oauthService;
+
+    @Test
+    void repositoryIsQueriedOnlyOnCacheMiss() {
+        when(accessTokenRepository.findByToken("token-a")).thenReturn(Optional.of(token(7L, 1)));
+
+        Optional<TokenPrincipal> first = oauthService.resolveAccessToken("token-a");
+        Optional<TokenPrincipal> second = oauthService.resolveAccessToken("token-a");
+
+        assertThat(first).map(TokenPrincipal::userId).contains(7L);
+        assertThat(second).isEqualTo(first);
+        verify(accessTokenRepository, times(1)).findByToken("token-a");
+    }
+
+    @Test
+    void invalidatedTokenIsLookedUpAgain() {
+        when(accessTokenRepository.findByToken("token-a"))
+                .thenReturn(Optional.of(token(7L, 1)))
+                .thenReturn(Optional.empty());
+
+        assertThat(oauthService.resolveAccessToken("token-a")).isPresent();
+        accessTokenCache.invalidate("token-a");
+
+        assertThat(oauthService.resolveAccessToken("token-a")).isEmpty();
+        verify(accessTokenRepository, times(2)).findByToken("token-a");
+    }
+
+    @Test
+    void expiredTokenIsRejectedAndNotCached() {
+        when(accessTokenRepository.findByToken("token-a")).thenReturn(Optional.of(token(7L, -1)));
+
+        assertThat(oauthService.resolveAccessToken("token-a")).isEmpty();
+        assertThat(oauthService.resolveAccessToken("token-a")).isEmpty();
+        verify(accessTokenRepository, times(2)).findByToken("token-a");
+    }
+
+    private static AccessToken token(Long userId, long expiresInHours) {
+        AccessToken token = new AccessToken();
+        token.setToken("token-a");
+        token.setClientId("client");
+        token.setUserId(userId);
+        token.setScope("device:control");
+        token.setExpiresAt(LocalDateTime.now().plusHours(expiresInHours));
+        return token;
+    }
+}
@@ -0,0 +1,270 @@
+package com.voice.platform.service;
+
+import com.voice.platform.event.DeviceStateChangedEvent;
+import com.voice.platform.model.Device;
+import com.voice.platform.model.StateReportOutbox;
+import com.voice.platform.repository.RefreshTokenRepository;
+import com.voice.platform.repository.StateReportOutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 状态报告发件箱投递测试
+ * 发件箱记录写入 H2，发送结果由平台推送的替身决定；投递在测试线程上同步执行
+ * 覆盖只为已关联平台写入、领取与租约、同设备/同用户合并发送、退避重试、DEAD 标记以及拒绝后删除
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "state-report.outbox.batch-size=10",
+        "state-report.outbox.max-attempts=3",
+        "state-report.outbox.initial-backoff-ms=1000",
+        "state-report.outbox.max-backoff-ms=4000"
+})
+@Import({StateReportOutboxWorker.class, StateReportOutboxWorkerTest.TestConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StateReportOutboxWorkerTest {
+
+    @TestConfiguration
+    static class TestConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        Executor alexaReportExecutor() {
+            return Runnable::run;
+        }
+
+        @Bean
+        Executor googleReportExecutor() {
+            return Runnable::run;
+        }
+    }
+
+    @MockBean
+    private DeviceService deviceService;
+
+    @MockBean
+    private AlexaStateReporter alexaStateReporter;
+
+    @MockBean
+    private GoogleStateReporter googleStateReporter;
+
+    @MockBean
+    private AlexaTokenService alexaTokenService;
+
+    @MockBean
+    private GoogleServiceAccountService googleServiceAccountService;
+
+    @MockBean
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @MockBean
+    private DeviceStateStore deviceStateStore;
+
+    @Autowired
+    private StateReportOutboxRepository outboxRepository;
+
+    @Autowired
+    private StateReportOutboxWorker worker;
+
+    @BeforeEach
+    void clearOutbox() {
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void enqueueWritesOnlyLinkedPlatforms() {
+        when(alexaTokenService.hasToken(1L)).thenReturn(true);
+        when(googleServiceAccountService.isConfigured()).thenReturn(false);
+
+        worker.enqueue(powerChanged("robot_001", 1L));
+        worker.enqueue(powerChanged("robot_002", 2L));
+
+        List<StateReportOutbox> entries = outboxRepository.findAll();
+        assertThat(entries).hasSize(1);
+        assertThat(entries.get(0).getPlatform()).isEqualTo(StateReportOutbox.PLATFORM_ALEXA);
+        assertThat(entries.get(0).getDeviceId()).isEqualTo("robot_001");
+        assertThat(entries.get(0).getStatus()).isEqualTo(StateReportOutbox.STATUS_PENDING);
+    }
+
+    @Test
+    void deliveredEntriesAreDeletedAndMergedPerDevice() {
+        Device device = device("robot_001", 1L);
+        when(deviceService.findDevicesByDeviceIds(anyCollection())).thenReturn(Map.of("robot_001", device));
+        when(alexaStateReporter.sendChangeReport(any(), any(), any(), any(), any()))
+                .thenReturn(StateReportOutcome.DELIVERED);
+        save(entry(StateReportOutbox.PLATFORM_ALEXA, "robot_001", 1L, "off", "on", null, null));
+        save(entry(StateReportOutbox.PLATFORM_ALEXA, "robot_001", 1L, null, null, "auto", "spot"));
+
+        worker.drain();
+
+        assertThat(outboxRepository.count()).isZero();
+        // 两条变化合并为一条 ChangeReport：修改前状态取最早一条，修改后状态取设备当前状态
+        verify(alexaStateReporter, times(1)).sendChangeReport(device, "off", "on", null, "spot");
+    }
+
+    @Test
+    void googleEntriesAreMergedPerUser() {
+        Device first = device("robot_001", 1L);
+        Device second = device("robot_002", 1L);
+        when(deviceService.findDevicesByDeviceIds(anyCollection()))
+                .thenReturn(Map.of("robot_001", first, "robot_002", second));
+        when(googleStateReporter.sendReportStateBatch(anyList(), eq(1L))).thenReturn(StateReportOutcome.DELIVERED);
+        save(entry(StateReportOutbox.PLATFORM_GOOGLE, "robot_001", 1L, "off", "on", null, null));
+        save(entry(StateReportOutbox.PLATFORM_GOOGLE, "robot_002", 1L, "off", "on", null, null));
+
+        worker.drain();
+
+        assertThat(outboxRepository.count()).isZero();
+        verify(googleStateReporter, times(1)).sendReportStateBatch(List.of(first, second), 1L);
+    }
+
+    @Test
+    void failedEntryIsRescheduledWithBackoff() {
+        when(deviceService.findDevicesByDeviceIds(anyCollection()))
+                .thenReturn(Map.of("robot_001", device("robot_001", 1L)));
+        when(alexaStateReporter.sendChangeReport(any(), any(), any(), any(), any()))
+                .thenReturn(StateReportOutcome.RETRY);
+        save(entry(StateReportOutbox.PLATFORM_ALEXA, "robot_001", 1L, "off", "on", null, null));
+
+        LocalDateTime before = LocalDateTime.now();
+        worker.drain();
+
+        StateReportOutbox entry = outboxRepository.findAll().get(0);
+        assertThat(entry.getStatus()).isEqualTo(StateReportOutbox.STATUS_PENDING);
+        assertThat(entry.getAttempts()).isEqualTo(1);
+        // 第一次失败等待 initial-backoff-ms 的一半到全部
+        assertThat(entry.getNextAttemptAt()).isAfterOrEqualTo(before.plus(Duration.ofMillis(500)));
+        assertThat(entry.getNextAttemptAt()).isBeforeOrEqualTo(LocalDateTime.now().plus(Duration.ofMillis(1000)));
+
+        // 未到重试时间不会再次领取
+        worker.drain();
+        verify(alexaStateReporter, times(1)).sendChangeReport(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void entryIsMarkedDeadAfterMaxAttempts() {
+        when(deviceService.findDevicesByDeviceIds(anyCollection()))
+                .thenReturn(Map.of("robot_001", device("robot_001", 1L)));
+        when(alexaStateReporter.sendChangeReport(any(), any(), any(), any(), any()))
+                .thenReturn(StateReportOutcome.RETRY);
+        StateReportOutbox entry = entry(StateReportOutbox.PLATFORM_ALEXA, "robot_001", 1L, "off", "on", null, null);
+        entry.setAttempts(2);
+        save(entry);
+
+        worker.drain();
+
+        StateReportOutbox dead = outboxRepository.findAll().get(0);
+        assertThat(dead.getStatus()).isEqualTo(StateReportOutbox.STATUS_DEAD);
+        assertThat(dead.getAttempts()).isEqualTo(3);
+
+        // DEAD 记录不再领取
+        worker.drain();
+        verify(alexaStateReporter, times(1)).sendChangeReport(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void rejectedEntryIsDeletedWithoutRetry() {
+        when(deviceService.findDevicesByDeviceIds(anyCollection()))
+                .thenReturn(Map.of("robot_001", device("robot_001", 1L)));
+        when(alexaStateReporter.sendChangeReport(any(), any(), any(), any(), any()))
+                .thenReturn(StateReportOutcome.REJECTED);
+        save(entry(StateReportOutbox.PLATFORM_ALEXA, "robot_001", 1L, "off", "on", null, null));
+
+        worker.drain();
+
+        assertThat(outboxRepository.count()).isZero();
+    }
+
+    @Test
+    void leasedEntryIsNotClaimedAgain() {
+        StateReportOutbox entry = entry(StateReportOutbox.PLATFORM_ALEXA, "robot_001", 1L, "off", "on", null, null);
+        // 其他实例已领取，租约未到期
+        entry.setAttempts(1);
+        entry.setNextAttemptAt(LocalDateTime.now().plusSeconds(60));
+        save(entry);
+
+        worker.drain();
+
+        verify(deviceService, never()).findDevicesByDeviceIds(anyCollection());
+        assertThat(outboxRepository.findAll().get(0).getAttempts()).isEqualTo(1);
+    }
+
+    @Test
+    void entryForDeletedDeviceIsDropped() {
+        when(deviceService.findDevicesByDeviceIds(anyCollection())).thenReturn(Map.of());
+        save(entry(StateReportOutbox.PLATFORM_ALEXA, "robot_404", 1L, "off", "on", null, null));
+
+        worker.drain();
+
+        assertThat(outboxRepository.count()).isZero();
+        verify(alexaStateReporter, never()).sendChangeReport(any(), any(), any(), any(), any());
+    }
+
+    private void save(StateReportOutbox entry) {
+        outboxRepository.saveAndFlush(entry);
+    }
+
+    private static DeviceStateChangedEvent powerChanged(String deviceId, Long userId) {
+        return new DeviceStateChangedEvent(deviceId, userId, "off", "on", null, null);
+    }
+
+    private static StateReportOutbox entry(String platform, String deviceId, Long userId,
+                                           String oldPowerState, String newPowerState,
+                                           String oldWorkMode, String newWorkMode) {
+        LocalDateTime now = LocalDateTime.now();
+        StateReportOutbox entry = new StateReportOutbox();
+        entry.setPlatform(platform);
+        entry.setDeviceId(deviceId);
+        entry.setUserId(userId);
+        entry.setOldPowerState(oldPowerState);
+        entry.setNewPowerState(newPowerState);
+        entry.setOldWorkMode(oldWorkMode);
+        entry.setNewWorkMode(newWorkMode);
+        entry.setNextAttemptAt(now.minusSeconds(1));
+        entry.setCreatedAt(now);
+        return entry;
+    }
+
+    private static Device device(String deviceId, Long userId) {
+        Device device = new Device();
+        device.setDeviceId(deviceId);
+        device.setDeviceName(deviceId);
+        device.setDeviceType("robot_cleaner");
+        device.setUserId(userId);
+        device.setPowerState("on");
+        device.setWorkMode("spot");
+        device.setStatus("online");
+        return device;
+    }
+}
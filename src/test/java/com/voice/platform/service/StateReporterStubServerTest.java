@@ -0,0 +1,183 @@
+package com.voice.platform.service;
+
+import com.voice.platform.config.AsyncConfig;
+import com.voice.platform.config.HttpClientProperties;
+import com.voice.platform.config.OutboundProperties;
+import com.voice.platform.config.RestTemplateConfig;
+import com.voice.platform.model.Device;
+import com.voice.platform.resilience.OutboundGuards;
+import com.voice.platform.support.StubHttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Alexa / Google 状态推送的出站调用测试
+ * 使用真实的连接池 RestTemplate 和出站执行器，外部端点由本地桩服务器代替
+ */
+@SpringBootTest(classes = StateReporterStubServerTest.TestConfig.class,
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class StateReporterStubServerTest {
+
+    private static final String EVENTS_PATH = "/v3/events";
+
+    private static final String REPORT_STATE_PATH = "/v1/devices:reportStateAndNotification";
+
+    private static final StubHttpServer STUB = StubHttpServer.start();
+
+    @Configuration
+    @EnableConfigurationProperties
+    @Import({AsyncConfig.class, RestTemplateConfig.class, HttpClientProperties.class, OutboundProperties.class,
+            OutboundGuards.class, AlexaStateReporter.class, GoogleStateReporter.class})
+    static class TestConfig {
+    }
+
+    @DynamicPropertySource
+    static void stubUrls(DynamicPropertyRegistry registry) {
+        registry.add("alexa.event-gateway-url", () -> STUB.url(EVENTS_PATH));
+        registry.add("google.homegraph.report-state-url", () -> STUB.url(REPORT_STATE_PATH));
+    }
+
+    @MockBean
+    private AlexaTokenService alexaTokenService;
+
+    @MockBean
+    private GoogleServiceAccountService googleServiceAccountService;
+
+    @Autowired
+    private AlexaStateReporter alexaStateReporter;
+
+    @Autowired
+    private GoogleStateReporter googleStateReporter;
+
+    @AfterAll
+    static void stopStub() {
+        STUB.close();
+    }
+
+    @BeforeEach
+    void resetStub() {
+        STUB.reset();
+    }
+
+    @Test
+    void alexaChangeReportIsSentOnAlexaExecutor() throws Exception {
+        AtomicReference<Thread> tokenThread = new AtomicReference<>();
+        when(alexaTokenService.getAlexaAccessToken(1L)).thenAnswer(invocation -> {
+            tokenThread.set(Thread.currentThread());
+            return "alexa-token";
+        });
+
+        Boolean delivered = alexaStateReporter
+                .reportStateChangeAsync(device("robot_001", 1L), "off", "on", "auto", "auto")
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(delivered).isTrue();
+        assertThat(tokenThread.get()).isNotSameAs(Thread.currentThread());
+        assertThat(tokenThread.get().getName()).startsWith("alexa-report-");
+
+        List<StubHttpServer.Request> requests = STUB.requests(EVENTS_PATH);
+        assertThat(requests).hasSize(1);
+        assertThat(requests.get(0).authorization()).isEqualTo("Bearer alexa-token");
+        assertThat(requests.get(0).body())
+                .contains("\"ChangeReport\"")
+                .contains("\"Alexa.PowerController\"")
+                .contains("robot_001");
+    }
+
+    @Test
+    void alexaServerErrorCompletesWithFalse() throws Exception {
+        when(alexaTokenService.getAlexaAccessToken(1L)).thenReturn("alexa-token");
+        STUB.respond(EVENTS_PATH, 500);
+
+        Boolean delivered = alexaStateReporter
+                .reportStateChangeAsync(device("robot_001", 1L), "off", "on", null, null)
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(delivered).isFalse();
+        assertThat(STUB.count(EVENTS_PATH)).isEqualTo(1);
+    }
+
+    @Test
+    void alexaWithoutTokenSkipsGateway() throws Exception {
+        when(alexaTokenService.getAlexaAccessToken(1L)).thenReturn(null);
+
+        Boolean delivered = alexaStateReporter
+                .reportStateChangeAsync(device("robot_001", 1L), "off", "on", null, null)
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(delivered).isTrue();
+        assertThat(STUB.count(EVENTS_PATH)).isZero();
+    }
+
+    @Test
+    void googleBatchIsSentPerAgentUser() throws Exception {
+        when(googleServiceAccountService.getAccessToken()).thenReturn("google-token");
+
+        Boolean delivered = googleStateReporter
+                .reportStateBatchAsync(List.of(device("robot_001", 7L), device("robot_002", 7L)), 7L)
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(delivered).isTrue();
+        List<StubHttpServer.Request> requests = STUB.requests(REPORT_STATE_PATH);
+        assertThat(requests).hasSize(1);
+        assertThat(requests.get(0).authorization()).isEqualTo("Bearer google-token");
+        assertThat(requests.get(0).body())
+                .contains("\"agentUserId\":\"user_7\"")
+                .contains("robot_001")
+                .contains("robot_002");
+    }
+
+    @Test
+    void googleSlowServerDoesNotBlockCaller() throws Exception {
+        when(googleServiceAccountService.getAccessToken()).thenReturn("google-token");
+        STUB.delay(REPORT_STATE_PATH, 300);
+
+        long start = System.nanoTime();
+        var future = googleStateReporter.reportStateChangeAsync(device("robot_001", 7L), "off", "on", null, null);
+        long submitMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(submitMillis).isLessThan(300);
+        assertThat(future.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(STUB.count(REPORT_STATE_PATH)).isEqualTo(1);
+    }
+
+    @Test
+    void googleServerErrorCompletesWithFalse() throws Exception {
+        when(googleServiceAccountService.getAccessToken()).thenReturn("google-token");
+        STUB.respond(REPORT_STATE_PATH, 503);
+
+        Boolean delivered = googleStateReporter
+                .reportStateChangeAsync(device("robot_001", 7L), "off", "on", null, null)
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(delivered).isFalse();
+    }
+
+    private static Device device(String deviceId, Long userId) {
+        Device device = new Device();
+        device.setDeviceId(deviceId);
+        device.setDeviceName(deviceId);
+        device.setUserId(userId);
+        device.setPowerState("on");
+        device.setWorkMode("auto");
+        device.setStatus("online");
+        device.setBatteryLevel(80);
+        return device;
+    }
+}
@@ -0,0 +1,195 @@
+package com.voice.platform.service;
+
+import com.voice.platform.model.AccessToken;
+import com.voice.platform.model.OAuth2Authorization;
+import com.voice.platform.model.StateReportOutbox;
+import com.voice.platform.repository.AccessTokenRepository;
+import com.voice.platform.repository.OAuth2AuthorizationRepository;
+import com.voice.platform.repository.StateReportOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 过期令牌与授权码清理测试
+ * 在 H2 上按主键分块删除，覆盖分块上限、已使用授权码和 DEAD 状态报告的保留时间，以及未分区表的回退
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "token-purge.chunk-size=3",
+        "token-purge.pause-ms=0",
+        "token-purge.max-chunks-per-run=200",
+        "token-purge.used-code-retention-hours=24",
+        "token-purge.dead-report-retention-hours=168"
+})
+@Import({TokenPurgeService.class, TokenPurgeServiceTest.TestConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TokenPurgeServiceTest {
+
+    @TestConfiguration
+    static class TestConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private TokenPurgeService tokenPurgeService;
+
+    @Autowired
+    private AccessTokenRepository accessTokenRepository;
+
+    @Autowired
+    private OAuth2AuthorizationRepository authorizationRepository;
+
+    @Autowired
+    private StateReportOutboxRepository outboxRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void clearTables() {
+        accessTokenRepository.deleteAll();
+        authorizationRepository.deleteAll();
+        outboxRepository.deleteAll();
+    }
+
+    @AfterEach
+    void restoreLimits() {
+        ReflectionTestUtils.setField(tokenPurgeService, "maxChunksPerRun", 200);
+        ReflectionTestUtils.setField(tokenPurgeService, "partitionedTables", Set.of());
+    }
+
+    @Test
+    void expiredTokensAreDeletedInChunks() {
+        saveAccessTokens(10, LocalDateTime.now().minusMinutes(1));
+        saveAccessTokens(2, LocalDateTime.now().plusHours(1));
+        double deletedBefore = deletedCount("oauth_access_tokens");
+
+        tokenPurgeService.purge();
+
+        assertThat(accessTokenRepository.findAll())
+                .hasSize(2)
+                .allMatch(token -> token.getExpiresAt().isAfter(LocalDateTime.now()));
+        assertThat(deletedCount("oauth_access_tokens") - deletedBefore).isEqualTo(10);
+    }
+
+    @Test
+    void runStopsAtMaxChunksAndContinuesNextTime() {
+        ReflectionTestUtils.setField(tokenPurgeService, "maxChunksPerRun", 2);
+        saveAccessTokens(10, LocalDateTime.now().minusMinutes(1));
+
+        tokenPurgeService.purge();
+        assertThat(accessTokenRepository.count()).isEqualTo(4);
+
+        tokenPurgeService.purge();
+        tokenPurgeService.purge();
+        assertThat(accessTokenRepository.count()).isZero();
+    }
+
+    @Test
+    void usedAuthorizationIsKeptForRetentionPeriod() {
+        LocalDateTime now = LocalDateTime.now();
+        authorizationRepository.saveAll(List.of(
+                authorization("expired", now.minusMinutes(1), null),
+                authorization("used-recently", now.plusMinutes(5), now.minusHours(1)),
+                authorization("used-long-ago", now.plusMinutes(5), now.minusHours(25)),
+                authorization("pending", now.plusMinutes(5), null)));
+
+        tokenPurgeService.purge();
+
+        assertThat(authorizationRepository.findAll())
+                .extracting(OAuth2Authorization::getAuthorizationCode)
+                .containsExactlyInAnyOrder("used-recently", "pending");
+    }
+
+    @Test
+    void deadReportsArePurgedAfterRetention() {
+        LocalDateTime now = LocalDateTime.now();
+        outboxRepository.saveAll(List.of(
+                outboxEntry("dead-old", StateReportOutbox.STATUS_DEAD, now.minusHours(169)),
+                outboxEntry("dead-recent", StateReportOutbox.STATUS_DEAD, now.minusHours(1)),
+                outboxEntry("pending-old", StateReportOutbox.STATUS_PENDING, now.minusHours(169))));
+
+        tokenPurgeService.purge();
+
+        assertThat(outboxRepository.findAll())
+                .extracting(StateReportOutbox::getDeviceId)
+                .containsExactlyInAnyOrder("dead-recent", "pending-old");
+    }
+
+    @Test
+    void unpartitionedTableFallsBackToChunkedDelete() {
+        ReflectionTestUtils.setField(tokenPurgeService, "partitionedTables", Set.of("oauth_access_tokens"));
+        saveAccessTokens(4, LocalDateTime.now().minusMinutes(1));
+
+        tokenPurgeService.purge();
+
+        assertThat(accessTokenRepository.count()).isZero();
+    }
+
+    private double deletedCount(String table) {
+        Counter counter = meterRegistry.find("voice.platform.token.purge.deleted").tag("table", table).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private void saveAccessTokens(int count, LocalDateTime expiresAt) {
+        List<AccessToken> tokens = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            AccessToken token = new AccessToken();
+            token.setToken("token-" + expiresAt + "-" + i);
+            token.setClientId("client");
+            token.setUserId(1L);
+            token.setExpiresAt(expiresAt);
+            token.setCreatedAt(LocalDateTime.now());
+            tokens.add(token);
+        }
+        accessTokenRepository.saveAll(tokens);
+    }
+
+    private static OAuth2Authorization authorization(String code, LocalDateTime expiresAt, LocalDateTime usedAt) {
+        OAuth2Authorization authorization = new OAuth2Authorization();
+        authorization.setAuthorizationCode(code);
+        authorization.setClientId("client");
+        authorization.setUserId(1L);
+        authorization.setRedirectUri("https://example.com/callback");
+        authorization.setCreatedAt(LocalDateTime.now());
+        authorization.setExpiresAt(expiresAt);
+        authorization.setUsed(usedAt != null);
+        authorization.setUsedAt(usedAt);
+        return authorization;
+    }
+
+    private static StateReportOutbox outboxEntry(String deviceId, String status, LocalDateTime nextAttemptAt) {
+        StateReportOutbox entry = new StateReportOutbox();
+        entry.setPlatform(StateReportOutbox.PLATFORM_ALEXA);
+        entry.setDeviceId(deviceId);
+        entry.setUserId(1L);
+        entry.setStatus(status);
+        entry.setNextAttemptAt(nextAttemptAt);
+        entry.setCreatedAt(nextAttemptAt);
+        return entry;
+    }
+}
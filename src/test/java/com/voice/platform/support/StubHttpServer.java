@@ -0,0 +1,146 @@
+package com.voice.platform.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 本地桩服务器
+ * 代替 Alexa Event Gateway、LWA、Google OAuth、HomeGraph 等外部端点，按路径设置响应状态码和延迟，并记录收到的请求。
+ * 每个请求在独立的虚拟线程上处理，注入的延迟不会使其他请求排队
+ */
+public class StubHttpServer implements AutoCloseable {
+
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+
+    private final List<Request> requests = new CopyOnWriteArrayList<>();
+
+    private StubHttpServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    public static StubHttpServer start() {
+        try {
+            StubHttpServer stub = new StubHttpServer();
+            stub.server.start();
+            return stub;
+        } catch (IOException e) {
+            throw new IllegalStateException("桩服务器启动失败", e);
+        }
+    }
+
+    /**
+     * 路径对应的完整 URL
+     */
+    public String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    /**
+     * 设置路径的响应，未设置的路径返回 200 {}
+     */
+    public void respond(String path, int status, String body) {
+        route(path).status = status;
+        route(path).body = body;
+    }
+
+    public void respond(String path, int status) {
+        respond(path, status, "{}");
+    }
+
+    /**
+     * 设置路径的响应延迟（毫秒）
+     */
+    public void delay(String path, long delayMs) {
+        route(path).delayMs = delayMs;
+    }
+
+    /**
+     * 路径收到的请求
+     */
+    public List<Request> requests(String path) {
+        return requests.stream().filter(r -> r.path().equals(path)).toList();
+    }
+
+    public int count(String path) {
+        return requests(path).size();
+    }
+
+    /**
+     * 清除所有响应设置和请求记录
+     */
+    public void reset() {
+        routes.clear();
+        requests.clear();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    private Route route(String path) {
+        return routes.computeIfAbsent(path, p -> new Route());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            requests.add(new Request(exchange.getRequestMethod(), path,
+                    exchange.getRequestHeaders().getFirst("Authorization"), body));
+
+            Route route = routes.getOrDefault(path, new Route());
+            if (route.delayMs > 0) {
+                try {
+                    Thread.sleep(route.delayMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+
+            byte[] response = route.body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(route.status, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        }
+    }
+
+    /**
+     * 收到的请求
+     *
+     * @param authorization Authorization 请求头
+     */
+    public record Request(String method, String path, String authorization, String body) {
+    }
+
+    private static final class Route {
+
+        private volatile int status = 200;
+
+        private volatile String body = "{}";
+
+        private volatile long delayMs;
+    }
+}
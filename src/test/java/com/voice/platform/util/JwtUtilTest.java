@@ -0,0 +1,201 @@
+package com.voice.platform.util;
+
+import com.voice.platform.config.JwtConfig;
+import com.voice.platform.security.JwtKeyRing;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * JwtUtil 签发与验证测试
+ * 覆盖按 kid 选择验证密钥、密钥轮换、accept-hs256-until 截止时间以及请求内的声明缓存
+ */
+class JwtUtilTest {
+
+    private static final String KEY_STORE_PASSWORD = "changeit";
+
+    @TempDir
+    Path keyStoreDir;
+
+    @AfterEach
+    void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void sharedSecretIsUsedWithoutKeyStore() {
+        JwtUtil jwtUtil = new JwtUtil(new JwtConfig(), keyRing(null), "");
+
+        String token = jwtUtil.generateAccessToken("1", "client", "device:control");
+
+        assertThat(header(token)).contains("\"HS256\"").doesNotContain("kid");
+        assertThat(jwtUtil.getUserIdFromToken(token)).isEqualTo("1");
+        assertThat(jwtUtil.getClientIdFromToken(token)).isEqualTo("client");
+    }
+
+    @Test
+    void keyStoreTokensCarryKidAndVerifyByKid() throws Exception {
+        JwtUtil jwtUtil = new JwtUtil(new JwtConfig(), keyRing(generateKeyStore("k1")), "");
+
+        String token = jwtUtil.generateAccessToken("1", "client", "device:control");
+
+        assertThat(header(token)).contains("\"kid\":\"k1\"").contains("\"ES256\"");
+        assertThat(jwtUtil.getUserIdFromToken(token)).isEqualTo("1");
+    }
+
+    @Test
+    void unknownKidIsRejected() throws Exception {
+        JwtUtil issuer = new JwtUtil(new JwtConfig(), keyRing(generateKeyStore("other")), "");
+        String foreign = issuer.generateAccessToken("1", "client", "device:control");
+
+        Files.delete(keyStoreDir.resolve("jwt-signing.p12"));
+        JwtUtil jwtUtil = new JwtUtil(new JwtConfig(), keyRing(generateKeyStore("k1")), "");
+
+        assertThatThrownBy(() -> jwtUtil.getClaimsFromToken(foreign)).isInstanceOf(UnsupportedJwtException.class);
+        assertThat(jwtUtil.validateToken(foreign)).isFalse();
+    }
+
+    @Test
+    void tokensSignedBeforeRotationStillVerify() throws Exception {
+        String keyStore = generateKeyStore("k1");
+        JwtKeyRing keyRing = keyRing(keyStore);
+        JwtUtil jwtUtil = new JwtUtil(new JwtConfig(), keyRing, "");
+        String before = jwtUtil.generateAccessToken("1", "client", "device:control");
+
+        addKey(keyStore, "k2");
+        ReflectionTestUtils.setField(keyRing, "activeKid", "k2");
+        keyRing.reload();
+        String after = jwtUtil.generateAccessToken("2", "client", "device:control");
+
+        assertThat(header(after)).contains("\"kid\":\"k2\"");
+        assertThat(jwtUtil.getUserIdFromToken(before)).isEqualTo("1");
+        assertThat(jwtUtil.getUserIdFromToken(after)).isEqualTo("2");
+    }
+
+    @Test
+    void hs256IsRejectedAfterSwitchingToKeyStore() throws Exception {
+        String legacy = hs256Token();
+        JwtUtil jwtUtil = new JwtUtil(new JwtConfig(), keyRing(generateKeyStore("k1")), "");
+
+        assertThatThrownBy(() -> jwtUtil.getClaimsFromToken(legacy)).isInstanceOf(UnsupportedJwtException.class);
+    }
+
+    @Test
+    void hs256IsAcceptedOnlyUntilConfiguredInstant() throws Exception {
+        String legacy = hs256Token();
+        JwtKeyRing keyRing = keyRing(generateKeyStore("k1"));
+
+        JwtUtil accepting = new JwtUtil(new JwtConfig(), keyRing, Instant.now().plusSeconds(3600).toString());
+        assertThat(accepting.getUserIdFromToken(legacy)).isEqualTo("1");
+
+        JwtUtil expired = new JwtUtil(new JwtConfig(), keyRing, Instant.now().minusSeconds(1).toString());
+        assertThatThrownBy(() -> expired.getClaimsFromToken(legacy)).isInstanceOf(UnsupportedJwtException.class);
+    }
+
+    @Test
+    void hs256TokenWithKidIsNotVerifiedWithSharedSecret() throws Exception {
+        JwtConfig config = new JwtConfig();
+        String forged = Jwts.builder()
+                .header().keyId("k1").and()
+                .subject("1")
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(config.getSecret().getBytes(StandardCharsets.UTF_8)), Jwts.SIG.HS256)
+                .compact();
+        JwtUtil jwtUtil = new JwtUtil(config, keyRing(generateKeyStore("k1")),
+                Instant.now().plusSeconds(3600).toString());
+
+        assertThatThrownBy(() -> jwtUtil.getClaimsFromToken(forged)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void claimsAreCachedWithinRequest() {
+        JwtUtil jwtUtil = new JwtUtil(new JwtConfig(), keyRing(null), "");
+        String token = jwtUtil.generateAccessToken("1", "client", "device:control");
+
+        // 请求外每次都重新解析
+        assertThat(jwtUtil.getClaimsFromToken(token)).isNotSameAs(jwtUtil.getClaimsFromToken(token));
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        Claims first = jwtUtil.getClaimsFromToken(token);
+        assertThat(jwtUtil.getClaimsFromToken(token)).isSameAs(first);
+
+        // 新的请求重新验证
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertThat(jwtUtil.getClaimsFromToken(token)).isNotSameAs(first);
+    }
+
+    @Test
+    void failedVerificationIsNotCached() {
+        JwtUtil jwtUtil = new JwtUtil(new JwtConfig(), keyRing(null), "");
+        String token = jwtUtil.generateAccessToken("1", "client", "device:control");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertThatThrownBy(() -> jwtUtil.getClaimsFromToken(tampered)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> jwtUtil.getClaimsFromToken(tampered)).isInstanceOf(JwtException.class);
+    }
+
+    private static String hs256Token() {
+        return new JwtUtil(new JwtConfig(), keyRing(null), "").generateAccessToken("1", "client", "device:control");
+    }
+
+    private static String header(String token) {
+        return new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))),
+                StandardCharsets.UTF_8);
+    }
+
+    private static JwtKeyRing keyRing(String keyStorePath) {
+        JwtKeyRing keyRing = new JwtKeyRing();
+        ReflectionTestUtils.setField(keyRing, "keyStorePath", keyStorePath == null ? "" : keyStorePath);
+        ReflectionTestUtils.setField(keyRing, "keyStorePassword", KEY_STORE_PASSWORD);
+        ReflectionTestUtils.setField(keyRing, "activeKid", "");
+        ReflectionTestUtils.setField(keyRing, "activeKidFile", "");
+        keyRing.init();
+        return keyRing;
+    }
+
+    private String generateKeyStore(String alias) throws Exception {
+        Path keyStore = keyStoreDir.resolve("jwt-signing.p12");
+        addKey(keyStore.toString(), alias);
+        return keyStore.toString();
+    }
+
+    /**
+     * 以 keytool 向密钥库加入 EC P-256 密钥，并推后修改时间使密钥环能检测到变化
+     */
+    private static void addKey(String keyStore, String alias) throws Exception {
+        Path keytool = Path.of(System.getProperty("java.home"), "bin", "keytool");
+        Process process = new ProcessBuilder(keytool.toString(), "-genkeypair",
+                "-keyalg", "EC", "-groupname", "secp256r1", "-alias", alias, "-validity", "1",
+                "-dname", "CN=jwt", "-storetype", "PKCS12", "-keystore", keyStore,
+                "-storepass", KEY_STORE_PASSWORD)
+                .redirectErrorStream(true)
+                .start();
+        byte[] output = process.getInputStream().readAllBytes();
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("keytool 生成密钥库失败: " + new String(output));
+        }
+        Path path = Path.of(keyStore);
+        Files.setLastModifiedTime(path, FileTime.fromMillis(Files.getLastModifiedTime(path).toMillis() + 2000));
+    }
+}